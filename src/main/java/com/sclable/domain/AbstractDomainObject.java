@@ -14,7 +14,7 @@ public abstract class AbstractDomainObject<ID extends EntityId, Message extends
 
   protected @NotNull ID id;
 
-  private transient DomainEventCollector<Message> collector;
+  private transient EventCollector<Message> collector;
 
   public @NotNull ID getId() {
     return id;
@@ -36,12 +36,22 @@ public abstract class AbstractDomainObject<ID extends EntityId, Message extends
 
   @Override
   public void clearDomainEvents() {
-    collector.clear();
+    if (collector != null) {
+      collector.clear();
+    }
+  }
+
+  /**
+   * Creates the collector of the domain events, called on first use. Override to collect with
+   * e.g. a {@link SpillingDomainEventCollector} for bulk operations.
+   */
+  protected @NotNull EventCollector<Message> createCollector() {
+    return new DomainEventCollector<>();
   }
 
-  private DomainEventCollector<Message> getCollector() {
+  private EventCollector<Message> getCollector() {
     if (collector == null) {
-      collector = new DomainEventCollector<>();
+      collector = createCollector();
     }
 
     return collector;
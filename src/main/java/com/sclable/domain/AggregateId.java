@@ -2,7 +2,13 @@ package com.sclable.domain;
 
 import java.util.UUID;
 
-public abstract class AggregateId extends EntityId {
+/**
+ * Identifier of an {@link AggregateRoot}. Aggregate ids are ordered by their UUID compared as an
+ * unsigned 128 bit number, which equals the byte-wise order most databases use for UUID columns.
+ * This order is used for keyset pagination in {@link AggregateRepository#findPage(AggregateId,
+ * int)}.
+ */
+public abstract class AggregateId extends EntityId implements Comparable<AggregateId> {
   public AggregateId() {
     super();
   }
@@ -10,4 +16,16 @@ public abstract class AggregateId extends EntityId {
   public AggregateId(UUID id) {
     super(id);
   }
+
+  @Override
+  public int compareTo(AggregateId other) {
+    var mostSignificant =
+        Long.compareUnsigned(
+            getId().getMostSignificantBits(), other.getId().getMostSignificantBits());
+
+    return mostSignificant != 0
+        ? mostSignificant
+        : Long.compareUnsigned(
+            getId().getLeastSignificantBits(), other.getId().getLeastSignificantBits());
+  }
 }
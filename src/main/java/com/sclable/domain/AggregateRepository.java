@@ -2,8 +2,12 @@ package com.sclable.domain;
 
 import jakarta.validation.constraints.NotNull;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface AggregateRepository<ID extends AggregateId, AR extends AggregateRoot<ID>> {
   @NotNull
@@ -26,9 +30,93 @@ public interface AggregateRepository<ID extends AggregateId, AR extends Aggregat
 
   List<AR> findMany(List<ID> ids);
 
+  /**
+   * Loads all aggregates into memory. Use {@link #streamAll(int)} or {@link #findPage(AggregateId,
+   * int)} for repositories that hold more aggregates than fit on the heap.
+   */
   @NotNull
   List<AR> findAll();
 
+  /**
+   * Loads one page of aggregates ordered by {@link AggregateId} (keyset pagination).
+   *
+   * <p>The default implementation sorts and filters {@link #findAll()} and therefore still loads
+   * every aggregate. Repositories backed by a store should override it with a range query like
+   * {@code WHERE id > :after ORDER BY id LIMIT :limit}.
+   *
+   * @param after id of the last aggregate of the previous page or null for the first page
+   * @param limit maximum number of aggregates on the page
+   * @return aggregates with an id greater than {@code after}, ordered by id
+   */
+  @NotNull
+  default List<AR> findPage(ID after, int limit) {
+    return findAll().stream()
+        .filter(aggregateRoot -> after == null || aggregateRoot.getId().compareTo(after) > 0)
+        .sorted(Comparator.comparing(AggregateRoot::getId))
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Loads one page of aggregate ids ordered by {@link AggregateId}. Override it to avoid loading
+   * whole aggregates when only keys are needed.
+   *
+   * @param after last id of the previous page or null for the first page
+   * @param limit maximum number of ids on the page
+   * @return ids greater than {@code after}, ordered
+   */
+  @NotNull
+  default List<ID> findIdPage(ID after, int limit) {
+    return findPage(after, limit).stream().map(AggregateRoot::getId).collect(Collectors.toList());
+  }
+
+  /**
+   * Tells {@link #streamAll(int)} and {@link #streamAllIds(int)} whether to walk {@link
+   * #findPage(AggregateId, int)} and {@link #findIdPage(AggregateId, int)} page by page. Override
+   * it to return true when both are implemented with range queries; decorators forward it.
+   *
+   * @return true if paging does not load {@link #findAll()} per page
+   */
+  default boolean supportsKeysetPaging() {
+    return false;
+  }
+
+  /**
+   * Lazily streams all aggregates ordered by id, fetching {@code fetchSize} aggregates per page via
+   * {@link #findPage(AggregateId, int)}. Memory use is bounded by one page as long as the
+   * repository {@link #supportsKeysetPaging()}; otherwise {@link #findAll()} is loaded and sorted
+   * once.
+   *
+   * @param fetchSize number of aggregates loaded per round trip
+   * @return ordered stream of all aggregates
+   */
+  @NotNull
+  default Stream<AR> streamAll(int fetchSize) {
+    if (!supportsKeysetPaging()) {
+      Arguments.positive("fetchSize", fetchSize);
+      return findAll().stream().sorted(Comparator.comparing(AggregateRoot::getId));
+    }
+
+    return KeysetSpliterator.stream(this::findPage, AggregateRoot::getId, fetchSize);
+  }
+
+  /**
+   * Lazily streams the ids of all aggregates ordered by id, fetching {@code fetchSize} ids per page
+   * via {@link #findIdPage(AggregateId, int)}. Unless the repository {@link
+   * #supportsKeysetPaging()}, the ids of {@link #findAll()} are sorted once.
+   *
+   * @param fetchSize number of ids loaded per round trip
+   * @return ordered stream of all ids
+   */
+  @NotNull
+  default Stream<ID> streamAllIds(int fetchSize) {
+    if (!supportsKeysetPaging()) {
+      return streamAll(fetchSize).map(AggregateRoot::getId);
+    }
+
+    return KeysetSpliterator.stream(this::findIdPage, Function.identity(), fetchSize);
+  }
+
   void delete(@NotNull AR aggregateRoot);
 
   void delete(@NotNull ID id);
@@ -29,6 +29,14 @@ public abstract class AggregateRoot<ID extends AggregateId> extends Entity<ID> {
     this.version = version;
   }
 
+  /**
+   * @return entity tag for caches and conditional requests, changes whenever the version or the
+   *     {@link #fingerprint() content} of the aggregate changes
+   */
+  public String entityTag() {
+    return getVersion() + "-" + Long.toHexString(fingerprint());
+  }
+
   public static Supplier<DomainException> notFound(UUID id) {
     return () ->
         new DomainException(
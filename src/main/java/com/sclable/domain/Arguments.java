@@ -0,0 +1,61 @@
+package com.sclable.domain;
+
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+
+import java.time.Duration;
+
+/** Argument checks shared by the library, raising {@link ERR#ARGUMENT_OUT_OF_BOUNDS}. */
+public final class Arguments {
+  private Arguments() {}
+
+  public static int positive(String name, int value) {
+    if (value <= 0) {
+      throw outOfBounds(name, value, 1, Integer.MAX_VALUE);
+    }
+
+    return value;
+  }
+
+  public static long positive(String name, long value) {
+    if (value <= 0) {
+      throw outOfBounds(name, value, 1, Long.MAX_VALUE);
+    }
+
+    return value;
+  }
+
+  public static int notNegative(String name, int value) {
+    if (value < 0) {
+      throw outOfBounds(name, value, 0, Integer.MAX_VALUE);
+    }
+
+    return value;
+  }
+
+  public static int within(String name, int value, int min, int max) {
+    if (value < min || value > max) {
+      throw outOfBounds(name, value, min, max);
+    }
+
+    return value;
+  }
+
+  public static Duration notNegative(String name, Duration value) {
+    if (value == null || value.isNegative()) {
+      throw outOfBounds(name, value, Duration.ZERO, "infinity");
+    }
+
+    return value;
+  }
+
+  private static DomainException outOfBounds(String name, Object value, Object min, Object max) {
+    return new DomainException(
+        ERR.ARGUMENT_OUT_OF_BOUNDS.parameters(
+            Parameter.of("name", name),
+            Parameter.of("value", value),
+            Parameter.of("min", min),
+            Parameter.of("max", max)));
+  }
+}
@@ -0,0 +1,38 @@
+package com.sclable.domain;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link AggregateRepository}. Every operation returns immediately and
+ * completes its future once the underlying store answered, so a caller can fan out many loads
+ * without holding a thread per load.
+ *
+ * @see com.sclable.domain.repository.AsyncAggregateRepositoryAdapter to run a blocking repository
+ *     asynchronously
+ */
+public interface AsyncAggregateRepository<ID extends AggregateId, AR extends AggregateRoot<ID>> {
+  @NotNull
+  CompletableFuture<AR> save(@NotNull AR aggregateRoot);
+
+  @NotNull
+  CompletableFuture<List<AR>> saveAll(@NotNull List<AR> aggregateRoots);
+
+  @NotNull
+  CompletableFuture<Optional<AR>> find(@NotNull ID id);
+
+  @NotNull
+  CompletableFuture<List<AR>> findMany(@NotNull List<ID> ids);
+
+  @NotNull
+  CompletableFuture<Void> delete(@NotNull AR aggregateRoot);
+
+  @NotNull
+  CompletableFuture<Void> delete(@NotNull ID id);
+
+  @NotNull
+  CompletableFuture<Long> count();
+}
@@ -0,0 +1,85 @@
+package com.sclable.domain;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Net changes of a {@link TrackedCollection} since it was last marked clean. Changes are recorded
+ * per key (the id for entities, the element itself for ids and value objects) and folded on the
+ * fly: adding and removing the same key cancels out, removing and adding it again is recorded as a
+ * replacement.
+ *
+ * @param <E> element type of the tracked collection
+ */
+public class ChangeLog<E> {
+  private final Map<Object, E> added = new LinkedHashMap<>();
+  private final Map<Object, E> removed = new LinkedHashMap<>();
+  private final Map<Object, E> replaced = new LinkedHashMap<>();
+  private boolean reordered;
+
+  /** @return elements added since the last clean state */
+  public @NotNull List<E> getAdded() {
+    return new ArrayList<>(added.values());
+  }
+
+  /** @return elements removed since the last clean state, as they were when removed */
+  public @NotNull List<E> getRemoved() {
+    return new ArrayList<>(removed.values());
+  }
+
+  /** @return current elements that replaced an element with the same key */
+  public @NotNull List<E> getReplaced() {
+    return new ArrayList<>(replaced.values());
+  }
+
+  /** @return true if the order of an ordered collection changed */
+  public boolean isReordered() {
+    return reordered;
+  }
+
+  public boolean isEmpty() {
+    return added.isEmpty() && removed.isEmpty() && replaced.isEmpty() && !reordered;
+  }
+
+  void recordAdded(Object key, E element) {
+    var previous = removed.remove(key);
+
+    if (previous == null) {
+      added.put(key, element);
+    } else if (previous != element) {
+      replaced.put(key, element);
+    }
+  }
+
+  void recordRemoved(Object key, E element) {
+    if (added.remove(key) != null) {
+      return;
+    }
+
+    replaced.remove(key);
+    removed.putIfAbsent(key, element);
+  }
+
+  void recordReplaced(Object key, E element) {
+    if (added.containsKey(key)) {
+      added.put(key, element);
+    } else {
+      replaced.put(key, element);
+    }
+  }
+
+  void recordReordered() {
+    reordered = true;
+  }
+
+  void clear() {
+    added.clear();
+    removed.clear();
+    replaced.clear();
+    reordered = false;
+  }
+}
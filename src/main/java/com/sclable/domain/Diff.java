@@ -0,0 +1,60 @@
+package com.sclable.domain;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Difference between two versions of a collection, see {@link EntityDiffUtils}.
+ *
+ * @param <K> key of the elements, the {@link EntityId} for entities and the element itself for
+ *     value objects
+ * @param <E> element type
+ */
+public class Diff<K, E> {
+  private final Map<K, E> added = new LinkedHashMap<>();
+  private final Map<K, E> removed = new LinkedHashMap<>();
+  private final Map<K, Change<E>> changed = new LinkedHashMap<>();
+
+  /** @return elements only contained in the newer version, keyed by their key in that version */
+  public @NotNull Map<K, E> getAdded() {
+    return Collections.unmodifiableMap(added);
+  }
+
+  /** @return elements only contained in the older version, keyed by their key in that version */
+  public @NotNull Map<K, E> getRemoved() {
+    return Collections.unmodifiableMap(removed);
+  }
+
+  /** @return elements contained in both versions with different state, keyed by the older key */
+  public @NotNull Map<K, Change<E>> getChanged() {
+    return Collections.unmodifiableMap(changed);
+  }
+
+  public boolean isEmpty() {
+    return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+  }
+
+  void added(K key, E element) {
+    added.put(key, element);
+  }
+
+  void removed(K key, E element) {
+    removed.put(key, element);
+  }
+
+  void changed(K key, E before, E after) {
+    changed.put(key, new Change<>(before, after));
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static final class Change<E> {
+    private final E before;
+    private final E after;
+  }
+}
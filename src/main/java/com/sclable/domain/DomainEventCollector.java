@@ -3,33 +3,322 @@ package com.sclable.domain;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
 
+/**
+ * Collects the domain events of a domain object in the order they were added. Coalescing rules
+ * registered per event type compact redundant events as they are added, so only the events that
+ * matter reach repositories and buses: {@link #coalesceLastWins(Class, Function)} keeps the last
+ * event per key, {@link #coalesceMerging(Class, Function, BinaryOperator)} merges the events of
+ * a key and {@link #coalesceCancelling(Class, Function, Class, Function, Class[])} drops pairs of
+ * events that undo each other. A coalesced event takes the position of the latest event it
+ * replaces. {@link #getEvents()} returns a read-only view, which reflects later events.
+ *
+ * @example new DomainEventCollector<OrderEvent>().coalesceLastWins(QuantityChanged.class,
+ *     QuantityChanged::getLineId).coalesceCancelling(LineAdded.class, LineAdded::getLineId,
+ *     LineRemoved.class, LineRemoved::getLineId, QuantityChanged.class);
+ */
 public class DomainEventCollector<Message extends DomainEventMessage>
     implements EventCollector<Message> {
   private List<Message> events;
+  private List<Rule> rules;
+  private Map<Class<?>, Optional<Rule>> rulesByType;
+  private Map<List<Object>, Integer> positions;
+  private int gaps;
+  private List<Message> view;
 
+  /** @return read-only view of the collected events */
   public @NotNull List<Message> getEvents() {
-    if (events == null) {
-      events = new ArrayList<>();
+    if (view == null) {
+      view = Collections.unmodifiableList(new Collected());
     }
 
-    return events;
+    return view;
   }
 
   @Override
   public void add(@NotNull @Valid Message event) {
-    getEvents().add(event);
+    var rule = ruleFor(event);
+
+    if (rule.isPresent()) {
+      rule.get().add(event);
+    } else {
+      events().add(event);
+    }
   }
 
   @Override
   public void clear() {
-    getEvents().clear();
+    events().clear();
+    gaps = 0;
+
+    if (positions != null) {
+      positions.clear();
+    }
   }
 
   @Override
   public Identifiable<?> getSourceEntity() {
     return null;
   }
+
+  /**
+   * Keeps only the last event of {@code type} per key, e.g. the last quantity of an order line.
+   *
+   * @param key extracts the key, typically the id of the entity the event is about
+   */
+  public <E extends Message> @NotNull DomainEventCollector<Message> coalesceLastWins(
+      @NotNull Class<E> type, @NotNull Function<? super E, ?> key) {
+    return coalesceMerging(type, key, (previous, next) -> next);
+  }
+
+  /**
+   * Merges the events of {@code type} per key into one.
+   *
+   * @param key extracts the key, typically the id of the entity the event is about
+   * @param merge combines the previous event of the key with the next one
+   */
+  public <E extends Message> @NotNull DomainEventCollector<Message> coalesceMerging(
+      @NotNull Class<E> type,
+      @NotNull Function<? super E, ?> key,
+      @NotNull BinaryOperator<E> merge) {
+    return register(new Merging<>(type, key, merge));
+  }
+
+  /**
+   * Drops an event of {@code removed} together with the latest collected event of {@code added}
+   * with the same key, e.g. a line removed in the same command it was added in. An event of
+   * {@code removed} without such a counterpart is collected.
+   *
+   * @param dependents event types coalesced by {@link #coalesceLastWins(Class, Function)} or
+   *     {@link #coalesceMerging(Class, Function, BinaryOperator)} whose event of the same key is
+   *     dropped as well when collected after the cancelled one, e.g. quantity changes of the line
+   */
+  public <A extends Message, R extends Message> @NotNull
+      DomainEventCollector<Message> coalesceCancelling(
+          @NotNull Class<A> added,
+          @NotNull Function<? super A, ?> addedKey,
+          @NotNull Class<R> removed,
+          @NotNull Function<? super R, ?> removedKey,
+          @NotNull Class<?>... dependents) {
+    return register(new Cancelling<>(added, addedKey, removed, removedKey, List.of(dependents)));
+  }
+
+  private DomainEventCollector<Message> register(Rule rule) {
+    if (rules == null) {
+      rules = new ArrayList<>();
+      rulesByType = new HashMap<>();
+      positions = new HashMap<>();
+    }
+
+    rules.add(rule);
+    rulesByType.clear();
+    reindex();
+
+    return this;
+  }
+
+  private Optional<Rule> ruleFor(Message event) {
+    return ruleFor(event.getClass());
+  }
+
+  private Optional<Rule> ruleFor(Class<?> eventType) {
+    if (rules == null) {
+      return Optional.empty();
+    }
+
+    return rulesByType.computeIfAbsent(
+        eventType, type -> rules.stream().filter(rule -> rule.matches(type)).findFirst());
+  }
+
+  private List<Message> events() {
+    if (events == null) {
+      events = new ArrayList<>();
+    }
+
+    return events;
+  }
+
+  private void compact() {
+    events.removeIf(Objects::isNull);
+    gaps = 0;
+    reindex();
+  }
+
+  private void reindex() {
+    positions.clear();
+
+    for (var i = 0; i < events().size(); i++) {
+      var event = events.get(i);
+      var position = i;
+
+      if (event != null) {
+        ruleFor(event).ifPresent(rule -> rule.index(event, position));
+      }
+    }
+  }
+
+  /** Removes the collected event of the slot, leaving a gap until the next compaction. */
+  private Message take(List<Object> slot) {
+    var position = positions.remove(slot);
+
+    if (position == null) {
+      return null;
+    }
+
+    gaps++;
+    return events.set(position, null);
+  }
+
+  /** Drops the event of {@code rule} and {@code key} if it was collected after {@code position}. */
+  private void dropAfter(int position, Rule rule, Object key) {
+    var slot = Arrays.asList(rule, key);
+    var collected = positions.get(slot);
+
+    if (collected != null && collected > position) {
+      take(slot);
+    }
+  }
+
+  private void append(List<Object> slot, Message event) {
+    events().add(event);
+
+    if (slot != null) {
+      positions.put(slot, events.size() - 1);
+    }
+  }
+
+  /** Collected events, compacted before they are read. */
+  private final class Collected extends AbstractList<Message> {
+    @Override
+    public Message get(int index) {
+      return compacted().get(index);
+    }
+
+    @Override
+    public int size() {
+      return compacted().size();
+    }
+
+    private List<Message> compacted() {
+      if (gaps > 0) {
+        compact();
+      }
+
+      return events();
+    }
+  }
+
+  private abstract class Rule {
+    abstract boolean matches(Class<?> type);
+
+    abstract void add(Message event);
+
+    /** Records the position of a collected event that later events may coalesce with. */
+    abstract void index(Message event, int position);
+  }
+
+  private final class Merging<E extends Message> extends Rule {
+    private final Class<E> type;
+    private final Function<? super E, ?> key;
+    private final BinaryOperator<E> merge;
+
+    private Merging(Class<E> type, Function<? super E, ?> key, BinaryOperator<E> merge) {
+      this.type = type;
+      this.key = key;
+      this.merge = merge;
+    }
+
+    @Override
+    boolean matches(Class<?> eventType) {
+      return type.isAssignableFrom(eventType);
+    }
+
+    @Override
+    void add(Message event) {
+      var next = type.cast(event);
+      var slot = Arrays.asList(this, key.apply(next));
+      var previous = take(slot);
+
+      append(slot, previous == null ? next : merge.apply(type.cast(previous), next));
+    }
+
+    @Override
+    void index(Message event, int position) {
+      positions.put(Arrays.asList(this, key.apply(type.cast(event))), position);
+    }
+  }
+
+  private final class Cancelling<A extends Message, R extends Message> extends Rule {
+    private final Class<A> added;
+    private final Function<? super A, ?> addedKey;
+    private final Class<R> removed;
+    private final Function<? super R, ?> removedKey;
+    private final List<Class<?>> dependents;
+
+    private Cancelling(
+        Class<A> added,
+        Function<? super A, ?> addedKey,
+        Class<R> removed,
+        Function<? super R, ?> removedKey,
+        List<Class<?>> dependents) {
+      this.added = added;
+      this.addedKey = addedKey;
+      this.removed = removed;
+      this.removedKey = removedKey;
+      this.dependents = dependents;
+    }
+
+    @Override
+    boolean matches(Class<?> eventType) {
+      return added.isAssignableFrom(eventType) || removed.isAssignableFrom(eventType);
+    }
+
+    @Override
+    void add(Message event) {
+      var key = keyOf(event);
+      var slot = Arrays.asList(this, key);
+
+      if (added.isInstance(event)) {
+        append(slot, event);
+        return;
+      }
+
+      var position = positions.get(slot);
+      if (position == null) {
+        append(null, event);
+      } else {
+        take(slot);
+
+        for (var dependent : dependents) {
+          ruleFor(dependent)
+              .filter(Merging.class::isInstance)
+              .ifPresent(rule -> dropAfter(position, rule, key));
+        }
+      }
+    }
+
+    private Object keyOf(Message event) {
+      return added.isInstance(event)
+          ? addedKey.apply(added.cast(event))
+          : removedKey.apply(removed.cast(event));
+    }
+
+    @Override
+    void index(Message event, int position) {
+      if (added.isInstance(event)) {
+        positions.put(Arrays.asList(this, addedKey.apply(added.cast(event))), position);
+      }
+    }
+  }
 }
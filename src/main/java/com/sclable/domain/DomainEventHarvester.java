@@ -0,0 +1,140 @@
+package com.sclable.domain;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Drains the domain events of many aggregates at once, e.g. after {@link
+ * AggregateRepository#saveAll(List)}, so they are published as one batch instead of one call per
+ * aggregate. Events keep their order per aggregate and aggregates the order of the batch. Sources
+ * that are no {@link DomainObject} are skipped.
+ *
+ * @example DomainEventHarvester.publish(repository.saveAll(orders), eventBus::publishAll);
+ */
+public final class DomainEventHarvester {
+  private DomainEventHarvester() {}
+
+  /**
+   * @return copy of the events of all sources in one list, which outlives clearing the events of
+   *     the sources; prefer {@link #publishStreaming(Iterable, Consumer)} for spilled events
+   */
+  public static @NotNull List<DomainEventMessage> harvest(@NotNull Iterable<?> sources) {
+    var events = copy(parts(sources));
+    clear(sources);
+
+    return events;
+  }
+
+  /**
+   * Hands the events of all sources to the publisher in one batch, if there are any, and clears
+   * them afterwards. The batch is a list of its own, which the publisher may keep. If the publisher
+   * fails, the events stay on the sources.
+   *
+   * @return number of published events
+   */
+  public static int publish(
+      @NotNull Iterable<?> sources,
+      @NotNull Consumer<? super List<DomainEventMessage>> publisher) {
+    var events = copy(parts(sources));
+
+    if (!events.isEmpty()) {
+      publisher.accept(events);
+      clear(sources);
+    }
+
+    return events.size();
+  }
+
+  /**
+   * Like {@link #publish(Iterable, Consumer)}, but streams the events from the sources instead of
+   * copying them, so spilled events are not loaded to the heap at once. The batch can only be
+   * iterated and only until the publisher returns.
+   *
+   * @return number of published events
+   */
+  public static int publishStreaming(
+      @NotNull Iterable<?> sources,
+      @NotNull Consumer<? super Iterable<DomainEventMessage>> publisher) {
+    var parts = parts(sources);
+    var count = (int) Math.min(parts.stream().mapToLong(List::size).sum(), Integer.MAX_VALUE);
+
+    if (count > 0) {
+      publisher.accept(new Batch(parts));
+      clear(sources);
+    }
+
+    return count;
+  }
+
+  private static List<List<? extends DomainEventMessage>> parts(Iterable<?> sources) {
+    var parts = new ArrayList<List<? extends DomainEventMessage>>();
+
+    for (var source : sources) {
+      if (source instanceof DomainObject) {
+        var events = ((DomainObject<?, ?>) source).getDomainEvents();
+
+        if (!events.isEmpty()) {
+          parts.add(events);
+        }
+      }
+    }
+
+    return parts;
+  }
+
+  private static List<DomainEventMessage> copy(List<List<? extends DomainEventMessage>> parts) {
+    var events = new ArrayList<DomainEventMessage>();
+    parts.forEach(events::addAll);
+
+    return events;
+  }
+
+  private static void clear(Iterable<?> sources) {
+    for (var source : sources) {
+      if (source instanceof DomainObject) {
+        ((DomainObject<?, ?>) source).clearDomainEvents();
+      }
+    }
+  }
+
+  private static final class Batch implements Iterable<DomainEventMessage> {
+    private final List<List<? extends DomainEventMessage>> parts;
+
+    private Batch(List<List<? extends DomainEventMessage>> parts) {
+      this.parts = parts;
+    }
+
+    @Override
+    public @NotNull Iterator<DomainEventMessage> iterator() {
+      var remaining = parts.iterator();
+
+      return new Iterator<>() {
+        private Iterator<? extends DomainEventMessage> current = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+          while (!current.hasNext() && remaining.hasNext()) {
+            current = remaining.next().iterator();
+          }
+
+          return current.hasNext();
+        }
+
+        @Override
+        public DomainEventMessage next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+
+          return current.next();
+        }
+      };
+    }
+  }
+}
@@ -1,10 +1,12 @@
 package com.sclable.domain;
 
+import com.sclable.domain.concurrent.AggregateLockManager;
 import com.sclable.domain.exception.DomainException.DomainError;
 import com.sclable.domain.exception.DomainException.ERR;
 
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 public abstract class DomainService {
   @SafeVarargs
@@ -13,5 +15,15 @@ public abstract class DomainService {
     dsc.validate(constraints).raise(ERR.DOMAIN_SERVICE_CONSTRAINTS_VIOLATED);
   }
 
+  /**
+   * Runs an operation spanning several aggregates while holding write locks on all of them, so
+   * invariants across the aggregates can be checked and changed without interference. The locks
+   * are acquired in a globally consistent order and released when the operation returns.
+   */
+  protected static <T> T withLocks(
+      AggregateLockManager locks, Supplier<T> operation, AggregateId... ids) {
+    return locks.withWriteLock(operation, ids);
+  }
+
   private static class DomainServiceConstraints extends DomainConstraints {}
 }
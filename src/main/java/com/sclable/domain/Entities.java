@@ -1,15 +1,24 @@
 package com.sclable.domain;
 
+import com.sclable.domain.codec.StateCodec;
 import com.sclable.domain.exception.DomainException;
+import jakarta.validation.constraints.NotNull;
 import lombok.SneakyThrows;
-import org.apache.commons.lang3.SerializationUtils;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -18,9 +27,19 @@ import static com.sclable.domain.ConstraintValidations.notNull;
 import static com.sclable.domain.exception.DomainException.ERR.ENTITY_ALREADY_EXISTS;
 import static com.sclable.domain.exception.DomainException.ERR.ENTITY_NOT_FOUND;
 
-public abstract class Entities<ID extends EntityId, ENTITY extends Entity<ID>> extends DomainModel {
+public abstract class Entities<ID extends EntityId, ENTITY extends Entity<ID>> extends DomainModel
+    implements TrackedCollection<ENTITY> {
+  private static final StateCodec STATE_CODEC = new StateCodec();
+
   protected Set<ENTITY> entities;
 
+  private transient ChangeLog<ENTITY> changes;
+  private transient Fingerprint fingerprint;
+  private transient Map<ID, Long> contentHashes;
+  private transient long contentSum;
+  private transient Supplier<? extends Collection<ENTITY>> loader;
+  private transient Long storedFingerprint;
+
   public Entities() {
     initialize();
   }
@@ -29,19 +48,78 @@ public abstract class Entities<ID extends EntityId, ENTITY extends Entity<ID>> e
     entities = new HashSet<>();
   }
 
+  /**
+   * Replaces the contents with entities loaded on first access, so an aggregate can be loaded
+   * without materializing large child collections it may not need. Loading is not recorded in the
+   * {@link #getChanges() change log}. Serializing or copying the collection loads it first.
+   *
+   * @param loader supplies the entities, e.g. a query of the repository by the aggregate id
+   */
+  public void loadLazily(@NotNull Supplier<? extends Collection<ENTITY>> loader) {
+    initialize();
+    this.fingerprint = null;
+    this.contentHashes = null;
+    this.storedFingerprint = null;
+    this.loader = loader;
+  }
+
+  /**
+   * Like {@link #loadLazily(Supplier)}, but the collection reports the given {@link
+   * #contentFingerprint()} until it is loaded, so {@link AggregateRoot#entityTag()} does not load
+   * it.
+   *
+   * @param contentFingerprint content fingerprint the entities had when they were stored
+   */
+  public void loadLazily(
+      @NotNull Supplier<? extends Collection<ENTITY>> loader, long contentFingerprint) {
+    loadLazily(loader);
+    this.storedFingerprint = contentFingerprint;
+  }
+
+  /** @return false while the contents of a lazily loaded collection were not accessed yet */
+  public boolean isLoaded() {
+    return loader == null;
+  }
+
+  /**
+   * Loads the contents of a lazily loaded collection. Subclasses accessing {@link #entities}
+   * directly have to call it first.
+   */
+  protected final void ensureLoaded() {
+    if (loader != null) {
+      var loaded = loader.get();
+
+      loader = null;
+      storedFingerprint = null;
+      contentHashes = null;
+      entities.addAll(loaded);
+    }
+  }
+
+  /** @return the backing set; the fingerprints are recomputed, as callers may modify it */
   public Set<ENTITY> getAll() {
+    ensureLoaded();
+    fingerprint = null;
+    contentHashes = null;
+
     return entities;
   }
 
   public List<ID> getIds() {
+    ensureLoaded();
+
     return entities.stream().map(Entity::getId).collect(Collectors.toList());
   }
 
   public Stream<ENTITY> stream() {
+    ensureLoaded();
+
     return entities.stream();
   }
 
   public void forEach(Consumer<ENTITY> action) {
+    ensureLoaded();
+
     entities.forEach(action);
   }
 
@@ -62,6 +140,33 @@ public abstract class Entities<ID extends EntityId, ENTITY extends Entity<ID>> e
     }
 
     entities.add(entity);
+    getChanges().recordAdded(entity.getId(), entity);
+
+    if (fingerprint != null) {
+      fingerprint.add(entity.getId());
+    }
+    addContentHash(entity);
+  }
+
+  /**
+   * Replaces the entity with the same id, e.g. with a modified copy. The replacement is recorded
+   * in the {@link #getChanges() change log}.
+   */
+  public void replace(ENTITY entity) {
+    ensure(constraint("entity", entity, notNull()));
+
+    var existing = find(entity).orElseThrow(Entity.notFound(entity.getId()));
+
+    replaceEntity(existing, entity);
+    getChanges().recordReplaced(entity.getId(), entity);
+    removeContentHash(existing);
+    addContentHash(entity);
+  }
+
+  /** Swaps the entity instance in {@link #entities}; ordered subclasses keep its position. */
+  protected void replaceEntity(ENTITY existing, ENTITY replacement) {
+    entities.remove(existing);
+    entities.add(replacement);
   }
 
   public void remove(ENTITY entity) {
@@ -75,6 +180,12 @@ public abstract class Entities<ID extends EntityId, ENTITY extends Entity<ID>> e
     }
 
     entities.remove(entity);
+    getChanges().recordRemoved(entity.getId(), entity);
+
+    if (fingerprint != null) {
+      fingerprint.remove(entity.getId());
+    }
+    removeContentHash(entity);
   }
 
   public void remove(ID id) {
@@ -101,6 +212,7 @@ public abstract class Entities<ID extends EntityId, ENTITY extends Entity<ID>> e
 
   public Optional<ENTITY> find(ID id) {
     ensure(constraint("id", id, notNull()));
+    ensureLoaded();
 
     return entities.stream().filter(entity -> entity.getId().equals(id)).findFirst();
   }
@@ -112,35 +224,132 @@ public abstract class Entities<ID extends EntityId, ENTITY extends Entity<ID>> e
   }
 
   public Optional<ENTITY> find(Predicate<ENTITY> predicate) {
+    ensureLoaded();
+
     ensure(constraint("predicate", predicate, notNull()));
 
     return entities.stream().filter(predicate).findFirst();
   }
 
   public void clear() {
+    ensureLoaded();
+
+    entities.forEach(entity -> getChanges().recordRemoved(entity.getId(), entity));
     entities.clear();
+    fingerprint = null;
+    contentHashes = null;
   }
 
   public int size() {
+    ensureLoaded();
+
     return entities.size();
   }
 
   public boolean isEmpty() {
+    ensureLoaded();
+
     return entities.isEmpty();
   }
 
+  @Override
+  public @NotNull ChangeLog<ENTITY> getChanges() {
+    if (changes == null) {
+      changes = new ChangeLog<>();
+    }
+
+    return changes;
+  }
+
+  /** @return fingerprint of the entity ids, see {@link #contentFingerprint()} for their content */
+  @Override
+  public long fingerprint() {
+    ensureLoaded();
+
+    if (fingerprint == null) {
+      fingerprint = Fingerprint.of(entities, Entity::getId);
+    }
+
+    return fingerprint.value();
+  }
+
+  /**
+   * @return order independent fingerprint of the entities including their fields and nested
+   *     collections, see {@link Entity#fingerprint()}; computed once and then updated with the
+   *     fingerprint an entity has when it is added, replaced or removed, so entities modified in
+   *     place have to be {@link #replace(Entity) replaced} to be reflected
+   */
+  public long contentFingerprint() {
+    return contentFingerprint(Collections.newSetFromMap(new IdentityHashMap<>()));
+  }
+
+  long contentFingerprint(Set<Object> visited) {
+    if (loader != null && storedFingerprint != null) {
+      return storedFingerprint;
+    }
+
+    ensureLoaded();
+
+    if (contentHashes == null) {
+      var hashes = new HashMap<ID, Long>();
+      var sum = 0L;
+
+      for (var entity : entities) {
+        var hash = Fingerprint.mix(TrackedFields.fingerprintOf(entity, visited));
+
+        hashes.put(entity.getId(), hash);
+        sum += hash;
+      }
+
+      contentHashes = hashes;
+      contentSum = sum;
+    }
+
+    return contentSum;
+  }
+
+  private void addContentHash(ENTITY entity) {
+    if (contentHashes != null) {
+      var hash = Fingerprint.mix(entity.fingerprint());
+
+      contentHashes.put(entity.getId(), hash);
+      contentSum += hash;
+    }
+  }
+
+  private void removeContentHash(ENTITY entity) {
+    if (contentHashes != null) {
+      contentSum -= contentHashes.remove(entity.getId());
+    }
+  }
+
+  @Override
+  public void markClean() {
+    getChanges().clear();
+  }
+
   public boolean equals(Entities<ID, ENTITY> other) {
-    if (other == null || entities.size() != other.size()) {
+    ensureLoaded();
+
+    if (other == null
+        || entities.size() != other.size()
+        || fingerprint() != other.fingerprint()) {
       return false;
     }
 
-    return entities.containsAll(other.getAll());
+    return other.stream().allMatch(entities::contains);
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    ensureLoaded();
+    out.defaultWriteObject();
   }
 
   @SneakyThrows
   public Entities<ID, ENTITY> copy() {
-    var clone = SerializationUtils.clone(this);
+    var clone = STATE_CODEC.copy(this);
     clone.clear();
+    clone.markClean();
 
     entities.forEach(entity -> clone.add(entity.copy()));
 
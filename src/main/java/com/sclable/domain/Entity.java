@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.function.Supplier;
@@ -33,6 +34,33 @@ public abstract class Entity<ID extends EntityId> extends DomainModel implements
     this.originalId = originalId;
   }
 
+  /**
+   * @return change logs of the dirty {@link TrackedCollection} fields of this entity, e.g. {@link
+   *     Entities} or {@link EntityIds}, keyed by field name; nested entities report their own
+   *     changes
+   */
+  public Map<String, ChangeLog<?>> getCollectionChanges() {
+    return TrackedFields.changesOf(this);
+  }
+
+  public boolean hasCollectionChanges() {
+    return !getCollectionChanges().isEmpty();
+  }
+
+  /**
+   * @return fingerprint of the id and the non transient fields of this entity, equal across JVMs
+   *     for equal content; {@link TrackedCollection} fields contribute the fingerprints they
+   *     maintain, e.g. {@link Entities#contentFingerprint()}, only the other fields are hashed
+   */
+  public long fingerprint() {
+    return TrackedFields.fingerprintOf(this);
+  }
+
+  /** Marks the tracked collections of this entity and all nested entities clean. */
+  public void markCollectionsClean() {
+    TrackedFields.markClean(this);
+  }
+
   @SuppressWarnings("unchecked")
   public <T extends Entity<ID>> T copy() {
     return (T) EntityCopyUtils.copy(this);
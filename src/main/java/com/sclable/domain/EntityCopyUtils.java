@@ -1,7 +1,7 @@
 package com.sclable.domain;
 
+import com.sclable.domain.codec.StateCodec;
 import com.sclable.domain.exception.DomainException;
-import org.apache.commons.lang3.SerializationUtils;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -10,12 +10,14 @@ import java.util.stream.Collectors;
 
 /**
  * EntityCopyUtils is used to copy entities and aggregates including nested Entity and Entities. In
- * comparison to SerializationUtils.clone(entity) new ids are assigned to all domain objects.
+ * comparison to a plain copy of the state new ids are assigned to all domain objects.
  *
  * @example var myEntity = new MyEntity(); var copiedEntity = EntityCopyUtils.copy(myEntity);
  *     myEntity.getId().equals(copiedEntity.getId()); // false
  */
 public class EntityCopyUtils<ID extends EntityId, E extends Entity<ID>> {
+  private static final StateCodec STATE_CODEC = new StateCodec();
+
   private final ID entityId;
   private final E entity;
   private final HashMap<Field, Entities<? extends EntityId, ? extends Entity<?>>> entitiesMap = new HashMap<>();
@@ -65,7 +67,7 @@ public class EntityCopyUtils<ID extends EntityId, E extends Entity<ID>> {
           }
         });
 
-    return SerializationUtils.clone(entity);
+    return STATE_CODEC.copy(entity);
   }
 
   public void restoreOriginals() {
@@ -0,0 +1,37 @@
+package com.sclable.domain;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/** Difference between two versions of an entity or aggregate, see {@link EntityDiffUtils}. */
+public class EntityDiff {
+  private final Set<String> changedFields = new LinkedHashSet<>();
+  private final Map<String, Diff<?, ?>> collections = new LinkedHashMap<>();
+
+  /** @return names of the fields, other than entity collections, whose state differs */
+  public @NotNull Set<String> getChangedFields() {
+    return Collections.unmodifiableSet(changedFields);
+  }
+
+  /** @return differences of the {@link Entities} and {@link ValueObjects} fields that changed */
+  public @NotNull Map<String, Diff<?, ?>> getCollections() {
+    return Collections.unmodifiableMap(collections);
+  }
+
+  public boolean isEmpty() {
+    return changedFields.isEmpty() && collections.isEmpty();
+  }
+
+  void fieldChanged(String name) {
+    changedFields.add(name);
+  }
+
+  void collectionChanged(String name, Diff<?, ?> diff) {
+    collections.put(name, diff);
+  }
+}
@@ -0,0 +1,229 @@
+package com.sclable.domain;
+
+import com.sclable.domain.exception.DomainException;
+import jakarta.validation.constraints.NotNull;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Computes structural differences between two versions of {@link Entities}, {@link ValueObjects} or
+ * two entities, e.g. an aggregate and a copy made with {@link Entity#copy()}.
+ *
+ * <p>Entities are matched by id. An entity created by {@link Entity#copy()} is matched with the
+ * entity it was copied from through its {@link Entity#getOriginalId() original id}, so an aggregate
+ * can be diffed against its copy although all ids differ. Each version is indexed once, so a diff
+ * takes time linear in the number of elements. Matched entities are compared field by field,
+ * ignoring the identity and version fields; nested {@link Entities} and entities are compared the
+ * same way, any other field value with {@link Objects#deepEquals(Object, Object)}.
+ */
+public final class EntityDiffUtils {
+  private static final Set<Class<?>> BOOKKEEPING_CLASSES =
+      Set.of(DomainConstraints.class, Entity.class, AggregateRoot.class);
+
+  private static final ClassValue<List<Field>> STATE_FIELDS =
+      new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+          var fields = new ArrayList<Field>();
+
+          for (var clazz = type; clazz != Object.class; clazz = clazz.getSuperclass()) {
+            if (BOOKKEEPING_CLASSES.contains(clazz)) {
+              continue;
+            }
+
+            for (var field : clazz.getDeclaredFields()) {
+              var modifiers = field.getModifiers();
+
+              if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                field.setAccessible(true);
+                fields.add(field);
+              }
+            }
+          }
+
+          return List.copyOf(fields);
+        }
+      };
+
+  private EntityDiffUtils() {}
+
+  /**
+   * @param before older version or null for an empty collection
+   * @param after newer version or null for an empty collection
+   * @return added, removed and changed entities keyed by id
+   */
+  public static <ID extends EntityId, E extends Entity<ID>> @NotNull Diff<ID, E> diff(
+      Entities<ID, E> before, Entities<ID, E> after) {
+    return diff(before, after, new IdentityHashMap<>());
+  }
+
+  /**
+   * Value objects have no identity, so they can only be added or removed.
+   *
+   * @param before older version or null for an empty collection
+   * @param after newer version or null for an empty collection
+   * @return added and removed value objects
+   */
+  public static <E extends ValueObject> @NotNull Diff<E, E> diff(
+      ValueObjects<E> before, ValueObjects<E> after) {
+    var diff = new Diff<E, E>();
+    Set<E> older = before == null ? Set.of() : before.getAll();
+    Set<E> newer = after == null ? Set.of() : after.getAll();
+
+    newer.stream().filter(element -> !older.contains(element)).forEach(e -> diff.added(e, e));
+    older.stream().filter(element -> !newer.contains(element)).forEach(e -> diff.removed(e, e));
+
+    return diff;
+  }
+
+  /**
+   * @param before older version of the entity
+   * @param after newer version of the same entity or a copy of it
+   * @return changed fields and differences of the entity collections
+   */
+  public static @NotNull EntityDiff diff(@NotNull Entity<?> before, @NotNull Entity<?> after) {
+    var diff = new EntityDiff();
+    var visited = new IdentityHashMap<Object, Object>();
+    visited.put(before, after);
+
+    if (before.getClass() != after.getClass()) {
+      diff.fieldChanged("class");
+      return diff;
+    }
+
+    for (var field : STATE_FIELDS.get(before.getClass())) {
+      var older = valueOf(field, before);
+      var newer = valueOf(field, after);
+
+      if (older instanceof Entities || newer instanceof Entities) {
+        var entities = diff(asEntities(older), asEntities(newer), visited);
+        if (!entities.isEmpty()) {
+          diff.collectionChanged(field.getName(), entities);
+        }
+      } else if (older instanceof ValueObjects || newer instanceof ValueObjects) {
+        var values = diff(asValueObjects(older), asValueObjects(newer));
+        if (!values.isEmpty()) {
+          diff.collectionChanged(field.getName(), values);
+        }
+      } else if (!sameState(older, newer, visited)) {
+        diff.fieldChanged(field.getName());
+      }
+    }
+
+    return diff;
+  }
+
+  /** @return true if both objects have the same state as defined by this class */
+  public static boolean sameState(Object before, Object after) {
+    return sameState(before, after, new IdentityHashMap<>());
+  }
+
+  private static <ID extends EntityId, E extends Entity<ID>> Diff<ID, E> diff(
+      Entities<ID, E> before, Entities<ID, E> after, Map<Object, Object> visited) {
+    var diff = new Diff<ID, E>();
+    var index = new HashMap<EntityId, E>();
+    var matched = Collections.newSetFromMap(new IdentityHashMap<E, Boolean>());
+
+    if (before != null) {
+      before.forEach(entity -> index.put(entity.getId(), entity));
+      before.forEach(
+          entity -> {
+            if (entity.isCopied() && entity.getOriginalId() != null) {
+              index.putIfAbsent(entity.getOriginalId(), entity);
+            }
+          });
+    }
+
+    if (after != null) {
+      after.forEach(
+          entity -> {
+            var match = index.get(entity.getId());
+            if (match == null && entity.isCopied() && entity.getOriginalId() != null) {
+              match = index.get(entity.getOriginalId());
+            }
+
+            if (match == null || !matched.add(match)) {
+              diff.added(entity.getId(), entity);
+            } else if (!sameState(match, entity, visited)) {
+              diff.changed(match.getId(), match, entity);
+            }
+          });
+    }
+
+    if (before != null) {
+      before.forEach(
+          entity -> {
+            if (!matched.contains(entity)) {
+              diff.removed(entity.getId(), entity);
+            }
+          });
+    }
+
+    return diff;
+  }
+
+  private static boolean sameState(Object before, Object after, Map<Object, Object> visited) {
+    if (before == after) {
+      return true;
+    }
+    if (before == null || after == null || before.getClass() != after.getClass()) {
+      return false;
+    }
+    if (visited.get(before) == after) {
+      return true;
+    }
+
+    if (before instanceof Entities) {
+      return diff(asEntities(before), asEntities(after), visited).isEmpty();
+    }
+    if (before instanceof ValueObjects) {
+      return diff(asValueObjects(before), asValueObjects(after)).isEmpty();
+    }
+    if (before instanceof EntityIds) {
+      return ((EntityIds<?>) before).getAll().equals(((EntityIds<?>) after).getAll());
+    }
+    if (!(before instanceof DomainModel)) {
+      return Objects.deepEquals(before, after);
+    }
+
+    visited.put(before, after);
+
+    for (var field : STATE_FIELDS.get(before.getClass())) {
+      if (!sameState(valueOf(field, before), valueOf(field, after), visited)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <ID extends EntityId, E extends Entity<ID>> Entities<ID, E> asEntities(
+      Object value) {
+    return (Entities<ID, E>) value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends ValueObject> ValueObjects<E> asValueObjects(Object value) {
+    return (ValueObjects<E>) value;
+  }
+
+  private static Object valueOf(Field field, Object owner) {
+    try {
+      return field.get(owner);
+    } catch (IllegalAccessException e) {
+      throw new DomainException(
+          DomainException.ERR.CANNOT_ACCESS_FIELD.parameters(
+              DomainException.Parameter.of("field", field.getName())));
+    }
+  }
+}
@@ -2,10 +2,15 @@ package com.sclable.domain;
 
 import com.sclable.domain.exception.DomainException;
 import com.sclable.domain.exception.DomainException.Parameter;
+import jakarta.validation.constraints.NotNull;
 import lombok.ToString;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static com.sclable.domain.ConstraintValidations.constraint;
 import static com.sclable.domain.ConstraintValidations.notNull;
@@ -13,9 +18,15 @@ import static com.sclable.domain.exception.DomainException.ERR.ENTITY_ID_ALREADY
 import static com.sclable.domain.exception.DomainException.ERR.ENTITY_ID_NOT_FOUND;
 
 @ToString
-public abstract class EntityIds<ID extends EntityId> extends DomainModel {
+public abstract class EntityIds<ID extends EntityId> extends DomainModel
+    implements TrackedCollection<ID> {
   protected Set<ID> ids;
 
+  @ToString.Exclude private transient ChangeLog<ID> changes;
+  @ToString.Exclude private transient Fingerprint fingerprint;
+  @ToString.Exclude private transient Supplier<? extends Collection<ID>> loader;
+  @ToString.Exclude private transient Long storedFingerprint;
+
   public EntityIds() {
     initialize();
   }
@@ -24,7 +35,54 @@ public abstract class EntityIds<ID extends EntityId> extends DomainModel {
     ids = new HashSet<>();
   }
 
+  /**
+   * Replaces the contents with ids loaded on first access. Loading is not recorded in the {@link
+   * #getChanges() change log}. Serializing the collection loads it first.
+   *
+   * @param loader supplies the ids, e.g. a query of the repository by the aggregate id
+   */
+  public void loadLazily(@NotNull Supplier<? extends Collection<ID>> loader) {
+    initialize();
+    this.fingerprint = null;
+    this.storedFingerprint = null;
+    this.loader = loader;
+  }
+
+  /**
+   * Like {@link #loadLazily(Supplier)}, but the collection reports the given {@link
+   * #fingerprint()} until it is loaded, so {@link AggregateRoot#entityTag()} does not load it.
+   *
+   * @param fingerprint fingerprint the ids had when they were stored
+   */
+  public void loadLazily(@NotNull Supplier<? extends Collection<ID>> loader, long fingerprint) {
+    loadLazily(loader);
+    this.storedFingerprint = fingerprint;
+  }
+
+  /** @return false while the contents of a lazily loaded collection were not accessed yet */
+  public boolean isLoaded() {
+    return loader == null;
+  }
+
+  /**
+   * Loads the contents of a lazily loaded collection. Subclasses accessing {@link #ids} directly
+   * have to call it first.
+   */
+  protected final void ensureLoaded() {
+    if (loader != null) {
+      var loaded = loader.get();
+
+      loader = null;
+      storedFingerprint = null;
+      ids.addAll(loaded);
+    }
+  }
+
+  /** @return the backing set; the fingerprint is recomputed, as callers may modify it */
   public Set<ID> getAll() {
+    ensureLoaded();
+    fingerprint = null;
+
     return ids;
   }
 
@@ -42,6 +100,11 @@ public abstract class EntityIds<ID extends EntityId> extends DomainModel {
     }
 
     ids.add(id);
+    getChanges().recordAdded(id, id);
+
+    if (fingerprint != null) {
+      fingerprint.add(id);
+    }
   }
 
   public void remove(ID id) {
@@ -52,22 +115,70 @@ public abstract class EntityIds<ID extends EntityId> extends DomainModel {
     }
 
     ids.remove(id);
+    getChanges().recordRemoved(id, id);
+
+    if (fingerprint != null) {
+      fingerprint.remove(id);
+    }
   }
 
   public void clear() {
+    ensureLoaded();
+
+    ids.forEach(id -> getChanges().recordRemoved(id, id));
     ids.clear();
+    fingerprint = null;
   }
 
   public int size() {
+    ensureLoaded();
+
     return ids.size();
   }
 
   public boolean isEmpty() {
+    ensureLoaded();
+
     return ids.isEmpty();
   }
 
+  @Override
+  public @NotNull ChangeLog<ID> getChanges() {
+    if (changes == null) {
+      changes = new ChangeLog<>();
+    }
+
+    return changes;
+  }
+
+  @Override
+  public long fingerprint() {
+    if (loader != null && storedFingerprint != null) {
+      return storedFingerprint;
+    }
+
+    ensureLoaded();
+
+    if (fingerprint == null) {
+      fingerprint = Fingerprint.of(ids, id -> id);
+    }
+
+    return fingerprint.value();
+  }
+
+  @Override
+  public void markClean() {
+    getChanges().clear();
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    ensureLoaded();
+    out.defaultWriteObject();
+  }
+
   public boolean contains(ID id) {
     ensure(constraint("id", id, notNull()));
+    ensureLoaded();
 
     return ids.contains(id);
   }
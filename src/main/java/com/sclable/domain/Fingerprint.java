@@ -0,0 +1,52 @@
+package com.sclable.domain;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Order independent 64 bit fingerprint of a collection, the sum of the mixed hashes of its element
+ * keys. Adding or removing an element updates it in constant time.
+ */
+final class Fingerprint {
+  private long value;
+
+  static <T> Fingerprint of(Collection<T> elements, Function<T, Object> keyOf) {
+    var fingerprint = new Fingerprint();
+    elements.forEach(element -> fingerprint.add(keyOf.apply(element)));
+
+    return fingerprint;
+  }
+
+  void add(Object key) {
+    value += hash(key);
+  }
+
+  void remove(Object key) {
+    value -= hash(key);
+  }
+
+  long value() {
+    return value;
+  }
+
+  static long hash(Object key) {
+    if (key instanceof EntityId) {
+      key = ((EntityId) key).getId();
+    }
+    if (key instanceof UUID) {
+      var id = (UUID) key;
+      return mix(mix(id.getMostSignificantBits()) + id.getLeastSignificantBits());
+    }
+
+    return mix(TrackedFields.hashOf(key));
+  }
+
+  /** Finalizer of SplitMix64, spreads similar hashes over all 64 bits. */
+  static long mix(long hash) {
+    hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+    hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+
+    return hash ^ (hash >>> 31);
+  }
+}
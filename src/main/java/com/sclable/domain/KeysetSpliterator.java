@@ -0,0 +1,66 @@
+package com.sclable.domain;
+
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks through a repository page by page using keyset pagination. Only one page is held in memory
+ * at a time; the next page is requested with the key of the last element of the previous page.
+ */
+final class KeysetSpliterator<K, T> extends Spliterators.AbstractSpliterator<T> {
+  private final BiFunction<K, Integer, List<T>> pageLoader;
+  private final Function<T, K> keyExtractor;
+  private final int fetchSize;
+  private Iterator<T> page;
+  private K lastKey;
+  private boolean lastPage;
+
+  private KeysetSpliterator(
+      BiFunction<K, Integer, List<T>> pageLoader, Function<T, K> keyExtractor, int fetchSize) {
+    super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+    this.pageLoader = pageLoader;
+    this.keyExtractor = keyExtractor;
+    this.fetchSize = fetchSize;
+  }
+
+  static <K, T> Stream<T> stream(
+      BiFunction<K, Integer, List<T>> pageLoader, Function<T, K> keyExtractor, int fetchSize) {
+    return StreamSupport.stream(
+        new KeysetSpliterator<>(
+            pageLoader, keyExtractor, Arguments.positive("fetchSize", fetchSize)),
+        false);
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    if ((page == null || !page.hasNext()) && !nextPage()) {
+      return false;
+    }
+
+    var element = page.next();
+    lastKey = keyExtractor.apply(element);
+    action.accept(element);
+
+    return true;
+  }
+
+  private boolean nextPage() {
+    if (lastPage) {
+      return false;
+    }
+
+    var elements = pageLoader.apply(lastKey, fetchSize);
+    lastPage = elements.size() < fetchSize;
+    page = elements.iterator();
+
+    return page.hasNext();
+  }
+}
@@ -20,12 +20,27 @@ public abstract class OrderedEntities<ID extends EntityId, ENTITY extends Entity
     entities = new LinkedHashSet<>();
   }
 
+  @Override
+  protected void replaceEntity(ENTITY existing, ENTITY replacement) {
+    var replaced = new ArrayList<ENTITY>(entities.size());
+
+    for (var entity : entities) {
+      replaced.add(entity == existing ? replacement : entity);
+    }
+
+    entities.clear();
+    entities.addAll(replaced);
+  }
+
   public List<ENTITY> getAllSorted() {
+    ensureLoaded();
+
     return new ArrayList<>(entities);
   }
 
   public void orderByEntityIds(List<ID> entityIds) {
     ensure(constraint("entityIds", entityIds, notEmpty()));
+    ensureLoaded();
 
     var containsUnspecifiedEntities =
         entities.stream().anyMatch(entity -> !entityIds.contains(entity.getId()));
@@ -50,16 +65,22 @@ public abstract class OrderedEntities<ID extends EntityId, ENTITY extends Entity
 
     entities.clear();
     entities.addAll(reorderedEntities);
+    getChanges().recordReordered();
   }
 
   public void sort(Comparator<ENTITY> comparator) {
+    ensureLoaded();
+
     var sortedEntities = entities.stream().sorted(comparator).collect(Collectors.toList());
 
-    clear();
+    entities.clear();
     entities.addAll(sortedEntities);
+    getChanges().recordReordered();
   }
 
   public Optional<ENTITY> last() {
+    ensureLoaded();
+
     ENTITY last = null;
 
     for (var e : entities) {
@@ -1,10 +1,55 @@
 package com.sclable.domain;
 
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
 /**
  * Projections are short living InMemory read models of linked and dereferenced domain objects which
  * can help to reduce the mapping code in your domain logic. A projection can be used when the
  * structure of the aggregates/entities makes sense for most of the use-cases but limited scenarios
  * require the objects to be dereferenced. A projection is dereferenced in a dedicated factory which
  * is fetched via a repository.
+ *
+ * <p>A projection can also be kept up to date by events: it declares a handler per {@link Event}
+ * type with {@link #on(Enum, Consumer)}, usually in its constructor, and a {@link
+ * com.sclable.domain.projection.ProjectionRuntime} feeds it the events of a stream incrementally.
+ * Events of other types are ignored.
  */
-public class Projection extends DomainModel {}
+public class Projection extends DomainModel {
+  private transient Map<Enum<?>, Consumer<Serializable>> handlers;
+
+  /**
+   * @return name identifying the projection, e.g. for its checkpoint; the fully qualified class
+   *     name unless overridden, override it to keep checkpoints when the class is renamed or moved
+   */
+  public @NotNull String getName() {
+    return getClass().getName();
+  }
+
+  /** @return true if a handler is declared for the type of the event */
+  public boolean handles(@NotNull Event<?, ?> event) {
+    return handlers != null && handlers.containsKey(event.getEventType());
+  }
+
+  /** Passes the payload of the event to the handler declared for its type, if there is one. */
+  public void apply(@NotNull Event<?, ?> event) {
+    if (handles(event)) {
+      handlers.get(event.getEventType()).accept(event.getPayload());
+    }
+  }
+
+  /** Declares the handler receiving the payload of events of the given type. */
+  @SuppressWarnings("unchecked")
+  protected <ET extends Enum<ET>, P extends Serializable> void on(
+      @NotNull ET eventType, @NotNull Consumer<P> handler) {
+    if (handlers == null) {
+      handlers = new HashMap<>();
+    }
+
+    handlers.put(eventType, payload -> handler.accept((P) payload));
+  }
+}
@@ -0,0 +1,126 @@
+package com.sclable.domain;
+
+import com.sclable.domain.codec.SpillFile;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * {@link EventCollector} for bulk commands emitting more events than should stay on the heap. The
+ * first {@code memoryLimit} events are kept in memory, all further ones are appended to a
+ * temporary {@link SpillFile}. {@link #getEvents()} is a read-only view streaming the spilled
+ * events from the file on iteration; random access beyond the in-memory events reads the file
+ * sequentially. {@link #clear()} deletes the file.
+ *
+ * @example protected EventCollector<OrderEvent> createCollector() { return new
+ *     SpillingDomainEventCollector<>(); }
+ */
+public class SpillingDomainEventCollector<Message extends DomainEventMessage>
+    implements EventCollector<Message> {
+  public static final int DEFAULT_MEMORY_LIMIT = 10_000;
+
+  private final int memoryLimit;
+  private final Path spillDirectory;
+  private final List<Message> buffer = new ArrayList<>();
+  private final List<Message> events = new EventsView();
+  private SpillFile<Message> spill;
+
+  public SpillingDomainEventCollector() {
+    this(DEFAULT_MEMORY_LIMIT, Path.of(System.getProperty("java.io.tmpdir")));
+  }
+
+  /**
+   * @param memoryLimit number of events kept in memory before spilling
+   * @param spillDirectory directory of the temporary file
+   */
+  public SpillingDomainEventCollector(int memoryLimit, @NotNull Path spillDirectory) {
+    this.memoryLimit = Arguments.notNegative("memoryLimit", memoryLimit);
+    this.spillDirectory = spillDirectory;
+  }
+
+  /** @return read-only view of all collected events in the order they were added */
+  @Override
+  public @NotNull List<Message> getEvents() {
+    return events;
+  }
+
+  @Override
+  public void add(@NotNull @Valid Message event) {
+    if (spill == null && buffer.size() < memoryLimit) {
+      buffer.add(event);
+      return;
+    }
+
+    if (spill == null) {
+      spill = new SpillFile<>(spillDirectory);
+    }
+    spill.append(event);
+  }
+
+  /** @return number of events kept in the temporary file */
+  public long getSpilledCount() {
+    return spill == null ? 0 : spill.size();
+  }
+
+  @Override
+  public void clear() {
+    buffer.clear();
+
+    if (spill != null) {
+      spill.close();
+      spill = null;
+    }
+  }
+
+  @Override
+  public Identifiable<?> getSourceEntity() {
+    return null;
+  }
+
+  private final class EventsView extends AbstractList<Message> {
+    @Override
+    public Message get(int index) {
+      Objects.checkIndex(index, size());
+
+      if (index < buffer.size()) {
+        return buffer.get(index);
+      }
+
+      var spilled = spill.iterator();
+      for (var skipped = buffer.size(); skipped < index; skipped++) {
+        spilled.next();
+      }
+
+      return spilled.next();
+    }
+
+    @Override
+    public int size() {
+      return (int) Math.min(buffer.size() + getSpilledCount(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public @NotNull Iterator<Message> iterator() {
+      var inMemory = buffer.iterator();
+      var spilled = spill == null ? null : spill.iterator();
+
+      return new Iterator<>() {
+        @Override
+        public boolean hasNext() {
+          return inMemory.hasNext() || spilled != null && spilled.hasNext();
+        }
+
+        @Override
+        public Message next() {
+          return inMemory.hasNext() || spilled == null ? inMemory.next() : spilled.next();
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.sclable.domain;
+
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+
+/** Errors of the file based stores of the library, raising {@link ERR#STORAGE_FAILED}. */
+public final class StorageErrors {
+  private StorageErrors() {}
+
+  /**
+   * @param storage file or directory the operation failed on
+   * @param operation description of the failed operation, e.g. "read"
+   * @param cause I/O exception or null
+   */
+  public static DomainException failed(Object storage, String operation, Exception cause) {
+    return new DomainException(
+        ERR.STORAGE_FAILED.parameters(
+            Parameter.of("storage", storage), Parameter.of("operation", operation)),
+        cause);
+  }
+}
@@ -0,0 +1,31 @@
+package com.sclable.domain;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Collection of a domain model that records its changes, so a repository can persist the delta of
+ * large collections instead of rewriting them. Only changes made through the methods of the
+ * collection are recorded, not changes made to the sets returned by {@code getAll()}. The change
+ * log is not serialized: a deserialized collection starts clean.
+ *
+ * @param <E> element type
+ */
+public interface TrackedCollection<E> {
+  /** @return changes since the collection was created or last marked clean */
+  @NotNull
+  ChangeLog<E> getChanges();
+
+  /** Forgets all recorded changes, e.g. after the collection was persisted. */
+  void markClean();
+
+  /**
+   * @return order independent fingerprint of the elements, maintained in constant time per change;
+   *     collections with different fingerprints differ, equal fingerprints are very likely but not
+   *     guaranteed to mean equal content
+   */
+  long fingerprint();
+
+  default boolean isDirty() {
+    return !getChanges().isEmpty();
+  }
+}
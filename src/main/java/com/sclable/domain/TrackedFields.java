@@ -0,0 +1,264 @@
+package com.sclable.domain;
+
+import com.sclable.domain.exception.DomainException;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Finds the {@link TrackedCollection} and nested {@link Entity} fields of an entity. The fields are
+ * looked up once per class and cached, so change detection does not pay for reflection on every
+ * save.
+ */
+final class TrackedFields {
+  private static final ClassValue<List<Field>> FIELDS =
+      new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+          var fields = new ArrayList<Field>();
+
+          for (var clazz = type; clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (var field : clazz.getDeclaredFields()) {
+              if (isTracked(field)) {
+                field.setAccessible(true);
+                fields.add(field);
+              }
+            }
+          }
+
+          return List.copyOf(fields);
+        }
+      };
+
+  private static final ClassValue<Boolean> HAS_HASH_CODE =
+      new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+          try {
+            return type.getMethod("hashCode").getDeclaringClass() != Object.class;
+          } catch (NoSuchMethodException e) {
+            return false;
+          }
+        }
+      };
+
+  private static final ClassValue<List<Field>> CONTENT =
+      new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+          var fields = new ArrayList<Field>();
+
+          for (var clazz = type;
+              clazz != Entity.class && clazz != DomainModel.class && clazz != Object.class;
+              clazz = clazz.getSuperclass()) {
+            if (clazz == AggregateRoot.class) {
+              continue;
+            }
+            for (var field : clazz.getDeclaredFields()) {
+              var modifiers = field.getModifiers();
+
+              if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                field.setAccessible(true);
+                fields.add(field);
+              }
+            }
+          }
+
+          return List.copyOf(fields);
+        }
+      };
+
+  private TrackedFields() {}
+
+  /** @return changes of all dirty tracked collection fields keyed by field name */
+  static Map<String, ChangeLog<?>> changesOf(Entity<?> entity) {
+    var changes = new LinkedHashMap<String, ChangeLog<?>>();
+
+    for (var field : FIELDS.get(entity.getClass())) {
+      var value = valueOf(field, entity);
+
+      if (value instanceof TrackedCollection && ((TrackedCollection<?>) value).isDirty()) {
+        changes.put(field.getName(), ((TrackedCollection<?>) value).getChanges());
+      }
+    }
+
+    return changes;
+  }
+
+  /**
+   * @return fingerprint of the id and the content fields of the entity combined in field order;
+   *     collections contribute the fingerprints they maintain, so only the other fields are hashed
+   */
+  static long fingerprintOf(Entity<?> entity) {
+    return fingerprintOf(entity, newVisited());
+  }
+
+  static long fingerprintOf(Entity<?> entity, Set<Object> visited) {
+    var fingerprint = Fingerprint.hash(entity.getId());
+
+    if (!visited.add(entity)) {
+      return fingerprint;
+    }
+
+    for (var field : CONTENT.get(entity.getClass())) {
+      fingerprint = Fingerprint.mix(fingerprint + hashOf(valueOf(field, entity), visited));
+    }
+
+    visited.remove(entity);
+    return fingerprint;
+  }
+
+  /** @return hash of a value that is equal for equal content, also across JVMs */
+  static long hashOf(Object value) {
+    return hashOf(value, newVisited());
+  }
+
+  /**
+   * Hashes collections, maps and arrays by their elements, so copies hash alike. Enums are hashed
+   * by class and constant name, value objects and classes without an own {@code hashCode} by their
+   * fields; other values by their {@code hashCode}, which is specified for strings, boxed
+   * primitives and the {@code java.time} types.
+   */
+  private static long hashOf(Object value, Set<Object> visited) {
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof EntityId || value instanceof UUID) {
+      return Fingerprint.hash(value);
+    }
+    if (value instanceof Enum) {
+      var constant = (Enum<?>) value;
+
+      return Fingerprint.mix(constant.getDeclaringClass().getName().hashCode())
+          + constant.name().hashCode();
+    }
+    if (value instanceof Class) {
+      return ((Class<?>) value).getName().hashCode();
+    }
+    if (value instanceof Entities) {
+      return ((Entities<?, ?>) value).contentFingerprint(visited);
+    }
+    if (value instanceof TrackedCollection) {
+      return ((TrackedCollection<?>) value).fingerprint();
+    }
+    if (value instanceof Entity) {
+      return fingerprintOf((Entity<?>) value, visited);
+    }
+    if (value instanceof List) {
+      var hash = 1L;
+
+      for (var element : (List<?>) value) {
+        hash = Fingerprint.mix(hash + hashOf(element, visited));
+      }
+
+      return hash;
+    }
+    if (value instanceof Set) {
+      var hash = 0L;
+
+      for (var element : (Set<?>) value) {
+        hash += Fingerprint.mix(hashOf(element, visited));
+      }
+
+      return hash;
+    }
+    if (value instanceof Map) {
+      var hash = 0L;
+
+      for (var entry : ((Map<?, ?>) value).entrySet()) {
+        var key = hashOf(entry.getKey(), visited);
+
+        hash += Fingerprint.mix(key + hashOf(entry.getValue(), visited));
+      }
+
+      return hash;
+    }
+    if (value instanceof Object[]) {
+      return hashOf(Arrays.asList((Object[]) value), visited);
+    }
+    if (value.getClass().isArray()) {
+      var hash = 1L;
+
+      for (var i = 0; i < Array.getLength(value); i++) {
+        hash = Fingerprint.mix(hash + hashOf(Array.get(value, i), visited));
+      }
+
+      return hash;
+    }
+    if (value instanceof ValueObject || !HAS_HASH_CODE.get(value.getClass())) {
+      return fieldsHashOf(value, visited);
+    }
+
+    return value.hashCode();
+  }
+
+  private static long fieldsHashOf(Object value, Set<Object> visited) {
+    var hash = Fingerprint.mix(value.getClass().getName().hashCode());
+
+    if (!visited.add(value)) {
+      return hash;
+    }
+
+    for (var field : CONTENT.get(value.getClass())) {
+      hash = Fingerprint.mix(hash + hashOf(valueOf(field, value), visited));
+    }
+
+    visited.remove(value);
+    return hash;
+  }
+
+  private static Set<Object> newVisited() {
+    return Collections.newSetFromMap(new IdentityHashMap<>());
+  }
+
+  /** Marks all tracked collections of the entity and of its nested entities clean. */
+  static void markClean(Entity<?> entity) {
+    markClean(entity, newVisited());
+  }
+
+  private static void markClean(Entity<?> entity, Set<Object> visited) {
+    if (!visited.add(entity)) {
+      return;
+    }
+
+    for (var field : FIELDS.get(entity.getClass())) {
+      var value = valueOf(field, entity);
+
+      if (value instanceof TrackedCollection) {
+        ((TrackedCollection<?>) value).markClean();
+      }
+      if (value instanceof Entities && ((Entities<?, ?>) value).isLoaded()) {
+        ((Entities<?, ?>) value).forEach(child -> markClean(child, visited));
+      }
+      if (value instanceof Entity) {
+        markClean((Entity<?>) value, visited);
+      }
+    }
+  }
+
+  private static boolean isTracked(Field field) {
+    return !Modifier.isStatic(field.getModifiers())
+        && (TrackedCollection.class.isAssignableFrom(field.getType())
+            || Entity.class.isAssignableFrom(field.getType()));
+  }
+
+  private static Object valueOf(Field field, Object owner) {
+    try {
+      return field.get(owner);
+    } catch (IllegalAccessException e) {
+      throw new DomainException(
+          DomainException.ERR.CANNOT_ACCESS_FIELD.parameters(
+              DomainException.Parameter.of("field", field.getName())));
+    }
+  }
+}
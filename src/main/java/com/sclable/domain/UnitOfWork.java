@@ -0,0 +1,209 @@
+package com.sclable.domain;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks the aggregates a command works with and writes all of their changes at once. Aggregates
+ * loaded through the unit of work are kept in an identity map, so repeated lookups of the same id
+ * return the same instance without another repository call. Aggregates registered as new, dirty or
+ * deleted are written on {@link #commit()} with one {@link AggregateRepository#saveAll(List)} per
+ * repository, followed by the deletes. Afterwards the domain events collected by the registered
+ * aggregates are published in registration order as one batch.
+ *
+ * <p>A unit of work is meant to be used by a single thread for the duration of one command. It does
+ * not make the writes of several repositories atomic; wrap the commit in a transaction if the
+ * repositories share one.
+ *
+ * @example var unitOfWork = new UnitOfWork(eventBus::publishAll); var order =
+ *     unitOfWork.find(orders, orderId).orElseThrow(); order.ship();
+ *     unitOfWork.registerDirty(orders, order); unitOfWork.commit();
+ */
+public class UnitOfWork {
+  private final Consumer<List<DomainEventMessage>> eventPublisher;
+  private final Map<AggregateRepository<?, ?>, Session<?, ?>> sessions = new LinkedHashMap<>();
+  private final Map<AggregateId, AggregateRoot<?>> registered = new LinkedHashMap<>();
+
+  public UnitOfWork() {
+    this(events -> {});
+  }
+
+  /** @param eventPublisher receives the domain events of all committed aggregates in one batch */
+  public UnitOfWork(@NotNull Consumer<List<DomainEventMessage>> eventPublisher) {
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * @return the tracked instance of the aggregate, loading it from the repository only on the first
+   *     lookup; empty if it does not exist or was registered as deleted
+   */
+  public <ID extends AggregateId, AR extends AggregateRoot<ID>> @NotNull Optional<AR> find(
+      @NotNull AggregateRepository<ID, AR> repository, @NotNull ID id) {
+    var session = sessionOf(repository);
+
+    if (session.deleted.containsKey(id)) {
+      return Optional.empty();
+    }
+    if (!session.identityMap.containsKey(id)) {
+      session.identityMap.put(id, repository.find(id).orElse(null));
+    }
+
+    return Optional.ofNullable(session.identityMap.get(id));
+  }
+
+  /**
+   * Loads all aggregates that are not tracked yet with one {@link
+   * AggregateRepository#findMany(List)}.
+   *
+   * @return tracked instances of the existing aggregates in the order of {@code ids}
+   */
+  public <ID extends AggregateId, AR extends AggregateRoot<ID>> @NotNull List<AR> findMany(
+      @NotNull AggregateRepository<ID, AR> repository, @NotNull List<ID> ids) {
+    var session = sessionOf(repository);
+    var missing =
+        ids.stream()
+            .distinct()
+            .filter(id -> !session.identityMap.containsKey(id))
+            .collect(Collectors.toList());
+
+    if (!missing.isEmpty()) {
+      var loaded = new HashMap<ID, AR>();
+      repository
+          .findMany(missing)
+          .forEach(aggregateRoot -> loaded.put(aggregateRoot.getId(), aggregateRoot));
+      missing.forEach(id -> session.identityMap.put(id, loaded.get(id)));
+    }
+
+    return ids.stream()
+        .distinct()
+        .filter(id -> !session.deleted.containsKey(id))
+        .map(session.identityMap::get)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
+
+  /** Registers an aggregate that does not exist in the repository yet. */
+  public <ID extends AggregateId, AR extends AggregateRoot<ID>> void registerNew(
+      @NotNull AggregateRepository<ID, AR> repository, @NotNull AR aggregateRoot) {
+    var session = sessionOf(repository);
+    var id = aggregateRoot.getId();
+
+    if (session.deleted.remove(id) == null) {
+      session.created.add(id);
+    }
+
+    session.track(aggregateRoot);
+    register(aggregateRoot);
+  }
+
+  /** Registers a modified aggregate. Registering the same aggregate again is a no-op. */
+  public <ID extends AggregateId, AR extends AggregateRoot<ID>> void registerDirty(
+      @NotNull AggregateRepository<ID, AR> repository, @NotNull AR aggregateRoot) {
+    var session = sessionOf(repository);
+
+    session.deleted.remove(aggregateRoot.getId());
+    session.track(aggregateRoot);
+    register(aggregateRoot);
+  }
+
+  /**
+   * Registers an aggregate for deletion. Deleting an aggregate registered as new in this unit of
+   * work just forgets it together with its domain events.
+   */
+  public <ID extends AggregateId, AR extends AggregateRoot<ID>> void registerDeleted(
+      @NotNull AggregateRepository<ID, AR> repository, @NotNull AR aggregateRoot) {
+    var session = sessionOf(repository);
+    var id = aggregateRoot.getId();
+
+    session.changed.remove(id);
+    session.identityMap.remove(id);
+
+    if (session.created.remove(id)) {
+      registered.remove(id);
+    } else {
+      session.deleted.put(id, aggregateRoot);
+      register(aggregateRoot);
+    }
+  }
+
+  /** @return true if there are registered changes that were not committed yet */
+  public boolean hasChanges() {
+    return sessions.values().stream().anyMatch(Session::hasChanges);
+  }
+
+  /**
+   * Writes all registered changes repository by repository and publishes the collected domain
+   * events. The identity map is kept, so the unit of work can be used for further changes.
+   */
+  public void commit() {
+    sessions.values().forEach(Session::flush);
+
+    var aggregateRoots = new ArrayList<>(registered.values());
+    registered.clear();
+
+    DomainEventHarvester.publish(aggregateRoots, eventPublisher);
+  }
+
+  /** Forgets all registered changes and tracked aggregates. */
+  public void rollback() {
+    sessions.clear();
+    registered.clear();
+  }
+
+  private void register(AggregateRoot<?> aggregateRoot) {
+    registered.putIfAbsent(aggregateRoot.getId(), aggregateRoot);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <ID extends AggregateId, AR extends AggregateRoot<ID>> Session<ID, AR> sessionOf(
+      AggregateRepository<ID, AR> repository) {
+    return (Session<ID, AR>) sessions.computeIfAbsent(repository, key -> new Session<>(repository));
+  }
+
+  private static final class Session<ID extends AggregateId, AR extends AggregateRoot<ID>> {
+    private final AggregateRepository<ID, AR> repository;
+    private final Map<ID, AR> identityMap = new HashMap<>();
+    private final Map<ID, AR> changed = new LinkedHashMap<>();
+    private final Map<ID, AR> deleted = new LinkedHashMap<>();
+    private final Set<ID> created = new HashSet<>();
+
+    private Session(AggregateRepository<ID, AR> repository) {
+      this.repository = repository;
+    }
+
+    private void track(AR aggregateRoot) {
+      identityMap.put(aggregateRoot.getId(), aggregateRoot);
+      changed.put(aggregateRoot.getId(), aggregateRoot);
+    }
+
+    private boolean hasChanges() {
+      return !changed.isEmpty() || !deleted.isEmpty();
+    }
+
+    private void flush() {
+      if (!changed.isEmpty()) {
+        repository
+            .saveAll(new ArrayList<>(changed.values()))
+            .forEach(saved -> identityMap.put(saved.getId(), saved));
+      }
+
+      deleted.keySet().forEach(repository::delete);
+      deleted.keySet().forEach(id -> identityMap.put(id, null));
+
+      changed.clear();
+      deleted.clear();
+      created.clear();
+    }
+  }
+}
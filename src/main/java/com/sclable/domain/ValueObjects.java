@@ -15,11 +15,17 @@ import static com.sclable.domain.ConstraintValidations.constraint;
 import static com.sclable.domain.ConstraintValidations.notNull;
 
 public abstract class ValueObjects<E extends ValueObject> extends DomainModel
-    implements Serializable {
+    implements Serializable, TrackedCollection<E> {
 
   private final Set<E> entities = new LinkedHashSet<>();
 
+  private transient ChangeLog<E> changes;
+  private transient Fingerprint fingerprint;
+
+  /** @return the backing set; the fingerprint is recomputed, as callers may modify it */
   public Set<E> getAll() {
+    fingerprint = null;
+
     return entities;
   }
 
@@ -45,6 +51,11 @@ public abstract class ValueObjects<E extends ValueObject> extends DomainModel
     }
 
     entities.add(entity);
+    getChanges().recordAdded(entity, entity);
+
+    if (fingerprint != null) {
+      fingerprint.add(entity);
+    }
   }
 
   public void remove(E entity) {
@@ -57,6 +68,11 @@ public abstract class ValueObjects<E extends ValueObject> extends DomainModel
     }
 
     entities.remove(entity);
+    getChanges().recordRemoved(entity, entity);
+
+    if (fingerprint != null) {
+      fingerprint.remove(entity);
+    }
   }
 
   public boolean isEmpty() {
@@ -68,7 +84,9 @@ public abstract class ValueObjects<E extends ValueObject> extends DomainModel
   }
 
   public void clear() {
+    entities.forEach(entity -> getChanges().recordRemoved(entity, entity));
     entities.clear();
+    fingerprint = null;
   }
 
   public boolean contains(E entity) {
@@ -98,11 +116,36 @@ public abstract class ValueObjects<E extends ValueObject> extends DomainModel
     return Optional.empty();
   }
 
+  @Override
+  public @NotNull ChangeLog<E> getChanges() {
+    if (changes == null) {
+      changes = new ChangeLog<>();
+    }
+
+    return changes;
+  }
+
+  @Override
+  public long fingerprint() {
+    if (fingerprint == null) {
+      fingerprint = Fingerprint.of(entities, entity -> entity);
+    }
+
+    return fingerprint.value();
+  }
+
+  @Override
+  public void markClean() {
+    getChanges().clear();
+  }
+
   public boolean equals(ValueObjects<E> other) {
-    if (other == null || entities.size() != other.size()) {
+    if (other == null
+        || entities.size() != other.size()
+        || fingerprint() != other.fingerprint()) {
       return false;
     }
 
-    return entities.containsAll(other.getAll());
+    return other.stream().allMatch(entities::contains);
   }
 }
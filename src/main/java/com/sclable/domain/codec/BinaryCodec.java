@@ -0,0 +1,20 @@
+package com.sclable.domain.codec;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Schema of one type in the binary format: writes the fields of a value in a fixed order and reads
+ * them back in the same order. Implementations are registered with an {@link EventCodec} together
+ * with a schema version and have to be thread safe.
+ *
+ * @example BinaryCodec<OrderPlaced> codec = new BinaryCodec<>() { public void write(OrderPlaced
+ *     value, BinaryWriter out) { out.writeId(value.getOrderId()).writeVarLong(value.getTotal()); }
+ *     public OrderPlaced read(BinaryReader in) { return new OrderPlaced(in.readId(OrderId::new),
+ *     in.readVarLong()); } };
+ */
+public interface BinaryCodec<T> {
+  void write(@NotNull T value, @NotNull BinaryWriter out);
+
+  @NotNull
+  T read(@NotNull BinaryReader in);
+}
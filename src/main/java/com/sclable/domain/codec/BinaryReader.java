@@ -0,0 +1,174 @@
+package com.sclable.domain.codec;
+
+import com.sclable.domain.EntityId;
+import jakarta.validation.constraints.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Reads values written by a {@link BinaryWriter} from a byte array without copying it. A reader can
+ * be pointed at the next array with {@link #wrap(byte[], int, int)} to decode many values with one
+ * instance. Reading past the end or an invalid value raises {@link
+ * com.sclable.domain.exception.DomainException.ERR#CODEC_MALFORMED_INPUT}.
+ */
+public final class BinaryReader {
+  private byte[] buffer;
+  private int position;
+  private int limit;
+
+  public BinaryReader(@NotNull byte[] buffer) {
+    this(buffer, 0, buffer.length);
+  }
+
+  public BinaryReader(@NotNull byte[] buffer, int offset, int length) {
+    wrap(buffer, offset, length);
+  }
+
+  public @NotNull BinaryReader wrap(@NotNull byte[] buffer, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > buffer.length) {
+      throw Codecs.malformed("data", "range " + offset + "+" + length + " exceeds the buffer");
+    }
+
+    this.buffer = buffer;
+    this.position = offset;
+    this.limit = offset + length;
+    return this;
+  }
+
+  /** @return number of bytes left to read */
+  public int remaining() {
+    return limit - position;
+  }
+
+  public byte readByte() {
+    require(1);
+    return buffer[position++];
+  }
+
+  public boolean readBoolean() {
+    return readByte() != 0;
+  }
+
+  public int readVarInt() {
+    var raw = readUnsignedVarInt();
+    return (raw >>> 1) ^ -(raw & 1);
+  }
+
+  public long readVarLong() {
+    var raw = readUnsignedVarLong();
+    return (raw >>> 1) ^ -(raw & 1);
+  }
+
+  public long readLong() {
+    require(Long.BYTES);
+
+    var value = 0L;
+    for (var i = 0; i < Long.BYTES; i++) {
+      value = (value << 8) | (buffer[position++] & 0xFF);
+    }
+    return value;
+  }
+
+  public double readDouble() {
+    return Double.longBitsToDouble(readLong());
+  }
+
+  public String readString() {
+    var length = readLength();
+    if (length < 0) {
+      return null;
+    }
+
+    var value = new String(buffer, position, length, StandardCharsets.UTF_8);
+    position += length;
+    return value;
+  }
+
+  public byte[] readBytes() {
+    var length = readLength();
+    if (length < 0) {
+      return null;
+    }
+
+    var value = new byte[length];
+    System.arraycopy(buffer, position, value, 0, length);
+    position += length;
+    return value;
+  }
+
+  public @NotNull UUID readUuid() {
+    return new UUID(readLong(), readLong());
+  }
+
+  /** @param factory creates the id from its UUID, usually the constructor of the id class */
+  public <ID extends EntityId> @NotNull ID readId(@NotNull Function<UUID, ID> factory) {
+    return factory.apply(readUuid());
+  }
+
+  public <E extends Enum<E>> E readEnum(@NotNull Class<E> type) {
+    var ordinal = readUnsignedVarInt();
+    if (ordinal == 0) {
+      return null;
+    }
+
+    var constants = type.getEnumConstants();
+    if (ordinal > constants.length) {
+      throw Codecs.malformed(type.getSimpleName(), "unknown ordinal " + (ordinal - 1));
+    }
+    return constants[ordinal - 1];
+  }
+
+  int readUnsignedVarInt() {
+    var value = 0;
+    for (var shift = 0; shift < 35; shift += 7) {
+      var current = readByte();
+      value |= (current & 0x7F) << shift;
+
+      if (current >= 0) {
+        return value;
+      }
+    }
+
+    throw Codecs.malformed("data", "variable length int exceeds 5 bytes");
+  }
+
+  long readUnsignedVarLong() {
+    var value = 0L;
+    for (var shift = 0; shift < 70; shift += 7) {
+      var current = readByte();
+      value |= (long) (current & 0x7F) << shift;
+
+      if (current >= 0) {
+        return value;
+      }
+    }
+
+    throw Codecs.malformed("data", "variable length long exceeds 10 bytes");
+  }
+
+  /** @return reader over the next {@code length} bytes, which this reader skips */
+  BinaryReader slice(int length) {
+    require(length);
+
+    var slice = new BinaryReader(buffer, position, length);
+    position += length;
+    return slice;
+  }
+
+  private int readLength() {
+    var length = readUnsignedVarInt() - 1;
+    if (length != -1) {
+      require(length);
+    }
+    return length;
+  }
+
+  private void require(int length) {
+    if (length < 0 || length > limit - position) {
+      throw Codecs.malformed(
+          "data", "expected " + length + " more bytes but " + remaining() + " are left");
+    }
+  }
+}
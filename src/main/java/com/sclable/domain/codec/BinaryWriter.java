@@ -0,0 +1,177 @@
+package com.sclable.domain.codec;
+
+import com.sclable.domain.EntityId;
+import jakarta.validation.constraints.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Growable buffer {@link BinaryCodec}s write to. Integers are written as variable length zig-zag
+ * numbers, so small values of either sign take one byte; UUIDs and ids take 16 raw bytes and enums
+ * their ordinal. A writer is meant to be reused: {@link #reset()} keeps the allocated buffer, so
+ * encoding a stream of events only allocates while the buffer grows.
+ */
+public final class BinaryWriter {
+  private static final int DEFAULT_CAPACITY = 256;
+
+  private byte[] buffer;
+  private int position;
+
+  public BinaryWriter() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public BinaryWriter(int initialCapacity) {
+    this.buffer = new byte[Math.max(initialCapacity, 16)];
+  }
+
+  /** Discards the written bytes and keeps the buffer for the next value. */
+  public @NotNull BinaryWriter reset() {
+    position = 0;
+    return this;
+  }
+
+  /** @return number of written bytes */
+  public int size() {
+    return position;
+  }
+
+  public @NotNull byte[] toByteArray() {
+    return Arrays.copyOf(buffer, position);
+  }
+
+  public @NotNull BinaryWriter writeByte(int value) {
+    ensureCapacity(1);
+    buffer[position++] = (byte) value;
+    return this;
+  }
+
+  public @NotNull BinaryWriter writeBoolean(boolean value) {
+    return writeByte(value ? 1 : 0);
+  }
+
+  public @NotNull BinaryWriter writeVarInt(int value) {
+    return writeUnsignedVarInt((value << 1) ^ (value >> 31));
+  }
+
+  public @NotNull BinaryWriter writeVarLong(long value) {
+    return writeUnsignedVarLong((value << 1) ^ (value >> 63));
+  }
+
+  /** Writes the value with a fixed length of 8 bytes, e.g. for timestamps or hashes. */
+  public @NotNull BinaryWriter writeLong(long value) {
+    ensureCapacity(Long.BYTES);
+    for (var shift = 56; shift >= 0; shift -= 8) {
+      buffer[position++] = (byte) (value >>> shift);
+    }
+    return this;
+  }
+
+  public @NotNull BinaryWriter writeDouble(double value) {
+    return writeLong(Double.doubleToRawLongBits(value));
+  }
+
+  /** Writes a nullable string as UTF-8 prefixed by its length. */
+  public @NotNull BinaryWriter writeString(String value) {
+    if (value == null) {
+      return writeUnsignedVarInt(0);
+    }
+    if (!isAscii(value)) {
+      return writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    var length = value.length();
+    writeUnsignedVarInt(length + 1);
+    ensureCapacity(length);
+    for (var i = 0; i < length; i++) {
+      buffer[position++] = (byte) value.charAt(i);
+    }
+    return this;
+  }
+
+  /** Writes a nullable byte array prefixed by its length. */
+  public @NotNull BinaryWriter writeBytes(byte[] value) {
+    if (value == null) {
+      return writeUnsignedVarInt(0);
+    }
+
+    writeUnsignedVarInt(value.length + 1);
+    writeRaw(value, 0, value.length);
+    return this;
+  }
+
+  public @NotNull BinaryWriter writeUuid(@NotNull UUID value) {
+    return writeLong(value.getMostSignificantBits()).writeLong(value.getLeastSignificantBits());
+  }
+
+  public @NotNull BinaryWriter writeId(@NotNull EntityId id) {
+    return writeUuid(id.getId());
+  }
+
+  /** Writes the ordinal of a nullable enum constant. */
+  public @NotNull BinaryWriter writeEnum(Enum<?> value) {
+    return writeUnsignedVarInt(value == null ? 0 : value.ordinal() + 1);
+  }
+
+  /** Writes the bytes without a length prefix. */
+  public @NotNull BinaryWriter writeRaw(@NotNull byte[] bytes, int offset, int length) {
+    ensureCapacity(length);
+    System.arraycopy(bytes, offset, buffer, position, length);
+    position += length;
+    return this;
+  }
+
+  BinaryWriter writeUnsignedVarInt(int value) {
+    ensureCapacity(5);
+    while ((value & ~0x7F) != 0) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+    return this;
+  }
+
+  BinaryWriter writeUnsignedVarLong(long value) {
+    ensureCapacity(10);
+    while ((value & ~0x7FL) != 0) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+    return this;
+  }
+
+  /** Inserts a variable length number at {@code offset}, moving the bytes after it. */
+  void insertUnsignedVarInt(int offset, int value) {
+    var end = position;
+    writeUnsignedVarInt(value);
+    var length = position - end;
+
+    System.arraycopy(buffer, offset, buffer, offset + length, end - offset);
+    position = offset;
+    writeUnsignedVarInt(value);
+    position = end + length;
+  }
+
+  byte[] buffer() {
+    return buffer;
+  }
+
+  private void ensureCapacity(int additional) {
+    if (position + additional > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+    }
+  }
+
+  private static boolean isAscii(String value) {
+    for (var i = 0; i < value.length(); i++) {
+      if (value.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
@@ -0,0 +1,147 @@
+package com.sclable.domain.codec;
+
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encoded fields and instantiation of one class, computed once per class for {@link StateCodec}.
+ * Like Java serialization, the layout contains the non-static, non-transient fields of the
+ * serializable classes of the hierarchy, superclasses first and sorted by name, and instances are
+ * created by the no-arg constructor of the first non-serializable superclass.
+ */
+final class ClassLayout {
+  static final int REFERENCE = 0;
+  static final int BOOLEAN = 1;
+  static final int BYTE = 2;
+  static final int SHORT = 3;
+  static final int CHAR = 4;
+  static final int INT = 5;
+  static final int LONG = 6;
+  static final int FLOAT = 7;
+  static final int DOUBLE = 8;
+
+  private static final Map<Class<?>, Integer> PRIMITIVES =
+      Map.of(
+          boolean.class, BOOLEAN,
+          byte.class, BYTE,
+          short.class, SHORT,
+          char.class, CHAR,
+          int.class, INT,
+          long.class, LONG,
+          float.class, FLOAT,
+          double.class, DOUBLE);
+
+  private static final ClassValue<ClassLayout> LAYOUTS =
+      new ClassValue<>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+          return new ClassLayout(type);
+        }
+      };
+
+  final Class<?> type;
+  final Field[] fields;
+  final int[] kinds;
+  final int signature;
+  private final Constructor<?> constructor;
+
+  private ClassLayout(Class<?> type) {
+    this.type = type;
+    this.constructor = constructorOf(type);
+
+    var fields = new ArrayList<Field>();
+    if (constructor != null) {
+      collect(type, fields);
+    }
+
+    this.fields = fields.toArray(Field[]::new);
+    this.kinds =
+        fields.stream()
+            .mapToInt(field -> PRIMITIVES.getOrDefault(field.getType(), REFERENCE))
+            .toArray();
+    this.signature = signatureOf(this.fields);
+  }
+
+  static ClassLayout of(Class<?> type) {
+    return LAYOUTS.get(type);
+  }
+
+  /**
+   * @return false for classes that have to be encoded differently: non-serializable, abstract and
+   *     array classes and classes inheriting serializable state from JDK classes, i.e. classes
+   *     loaded by the boot or platform class loader
+   */
+  boolean isEncodable() {
+    return constructor != null;
+  }
+
+  Object newInstance() {
+    try {
+      return constructor.newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new DomainException(
+          ERR.INSTANCE_NOT_CREATED.parameters(Parameter.of("class", type.getName())), e);
+    }
+  }
+
+  private static Constructor<?> constructorOf(Class<?> type) {
+    if (type.isArray()
+        || type.isInterface()
+        || Modifier.isAbstract(type.getModifiers())
+        || !Serializable.class.isAssignableFrom(type)) {
+      return null;
+    }
+    for (var current = type; current != null; current = current.getSuperclass()) {
+      if (isPlatformClass(current) && Serializable.class.isAssignableFrom(current)) {
+        return null;
+      }
+    }
+
+    return SerializationConstructors.of(type);
+  }
+
+  private static boolean isPlatformClass(Class<?> type) {
+    var loader = type.getClassLoader();
+
+    return loader == null || loader == ClassLoader.getPlatformClassLoader();
+  }
+
+  private static void collect(Class<?> type, List<Field> fields) {
+    if (type == null || !Serializable.class.isAssignableFrom(type)) {
+      return;
+    }
+
+    collect(type.getSuperclass(), fields);
+    Arrays.stream(type.getDeclaredFields())
+        .filter(field -> !Modifier.isStatic(field.getModifiers()))
+        .filter(field -> !Modifier.isTransient(field.getModifiers()))
+        .sorted(Comparator.comparing(Field::getName))
+        .forEach(
+            field -> {
+              field.setAccessible(true);
+              fields.add(field);
+            });
+  }
+
+  private static int signatureOf(Field[] fields) {
+    var signature = 1;
+
+    for (var field : fields) {
+      signature = 31 * signature + field.getName().hashCode();
+      signature = 31 * signature + field.getType().getName().hashCode();
+    }
+
+    return signature;
+  }
+}
@@ -0,0 +1,25 @@
+package com.sclable.domain.codec;
+
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+
+final class Codecs {
+  private Codecs() {}
+
+  static DomainException notRegistered(Object type) {
+    return new DomainException(ERR.CODEC_NOT_REGISTERED.parameters(Parameter.of("type", type)));
+  }
+
+  static DomainException alreadyRegistered(Object type) {
+    return new DomainException(
+        ERR.CODEC_ALREADY_REGISTERED.parameters(Parameter.of("type", type)));
+  }
+
+  static DomainException malformed(Object subject, String reason) {
+    return new DomainException(
+        ERR.CODEC_MALFORMED_INPUT.parameters(
+            Parameter.of("subject", subject), Parameter.of("reason", reason)));
+  }
+
+}
@@ -0,0 +1,227 @@
+package com.sclable.domain.codec;
+
+import com.sclable.domain.Arguments;
+import com.sclable.domain.DomainEvent;
+import com.sclable.domain.DomainEventMessage;
+import com.sclable.domain.Event;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes {@link Event}s and {@link DomainEventMessage}s in a compact binary format instead of
+ * Java serialization. Every event type and message class is registered with a numeric type id, a
+ * schema version and a {@link BinaryCodec} for its payload. An encoded event consists of the type
+ * id, the schema version, the payload length and the payload; it contains no class names, and
+ * encoded events can be concatenated in one stream.
+ *
+ * <p>When a schema changes, its version is increased and an {@link Upcaster} from the previous
+ * version is registered. Payloads stored with older versions are migrated step by step while they
+ * are decoded. Encoding reuses one buffer per thread. Codecs are registered at startup; encoding
+ * and decoding are thread safe.
+ *
+ * @example var codec = new EventCodec().registerEvent(1, OrderEvent.PLACED, 2, orderPlaced)
+ *     .registerUpcaster(1, 1, orderPlacedV1ToV2); var bytes = codec.encode(event);
+ */
+public class EventCodec {
+  private final Map<Integer, Schema> byTypeId = new ConcurrentHashMap<>();
+  private final Map<Object, Schema> byType = new ConcurrentHashMap<>();
+  private final Map<Long, Upcaster> upcasters = new ConcurrentHashMap<>();
+  private final ThreadLocal<BinaryWriter> writers = ThreadLocal.withInitial(BinaryWriter::new);
+
+  /**
+   * @param typeId stable id written instead of the event type, must never be reused
+   * @param version current version of the payload schema, starting with 1
+   */
+  public <ET extends Enum<ET>, P extends Serializable> @NotNull EventCodec registerEvent(
+      int typeId, @NotNull ET eventType, int version, @NotNull BinaryCodec<P> payloadCodec) {
+    return register(new Schema(typeId, eventType, version, payloadCodec));
+  }
+
+  /**
+   * @param typeId stable id written instead of the class name, must never be reused
+   * @param version current version of the message schema, starting with 1
+   */
+  public <M extends DomainEventMessage> @NotNull EventCodec registerMessage(
+      int typeId, @NotNull Class<M> messageType, int version, @NotNull BinaryCodec<M> codec) {
+    return register(new Schema(typeId, messageType, version, codec));
+  }
+
+  /** Registers the migration of payloads of a type from {@code fromVersion} to the next one. */
+  public @NotNull EventCodec registerUpcaster(
+      int typeId, int fromVersion, @NotNull Upcaster upcaster) {
+    Arguments.positive("fromVersion", fromVersion);
+
+    if (upcasters.putIfAbsent(upcasterKey(typeId, fromVersion), upcaster) != null) {
+      throw Codecs.alreadyRegistered("upcaster of type " + typeId + " version " + fromVersion);
+    }
+
+    return this;
+  }
+
+  public @NotNull byte[] encode(@NotNull Event<?, ?> event) {
+    var out = writers.get().reset();
+    encode(event, out);
+
+    return out.toByteArray();
+  }
+
+  /** Appends the encoded event to {@code out}. */
+  public void encode(@NotNull Event<?, ?> event, @NotNull BinaryWriter out) {
+    write(schemaOf(event.getEventType()), event.getPayload(), out);
+  }
+
+  public @NotNull byte[] encode(@NotNull DomainEventMessage message) {
+    var out = writers.get().reset();
+    encode(message, out);
+
+    return out.toByteArray();
+  }
+
+  /** Appends the encoded message to {@code out}. */
+  public void encode(@NotNull DomainEventMessage message, @NotNull BinaryWriter out) {
+    write(schemaOf(message.getClass()), message, out);
+  }
+
+  public <ET extends Enum<ET>, P extends Serializable> @NotNull DomainEvent<ET, P> decodeEvent(
+      @NotNull byte[] bytes) {
+    return decodeEvent(new BinaryReader(bytes));
+  }
+
+  /** Reads the next encoded event from {@code in}. */
+  @SuppressWarnings("unchecked")
+  public <ET extends Enum<ET>, P extends Serializable> @NotNull DomainEvent<ET, P> decodeEvent(
+      @NotNull BinaryReader in) {
+    var schema = schemaOf(in.readUnsignedVarInt());
+
+    if (!(schema.type instanceof Enum)) {
+      throw Codecs.malformed("event", "type " + schema.typeId + " is a message");
+    }
+
+    return new DomainEvent<>((ET) schema.type, (P) readPayload(schema, in));
+  }
+
+  public <M extends DomainEventMessage> @NotNull M decodeMessage(@NotNull byte[] bytes) {
+    return decodeMessage(new BinaryReader(bytes));
+  }
+
+  /** Reads the next encoded message from {@code in}. */
+  @SuppressWarnings("unchecked")
+  public <M extends DomainEventMessage> @NotNull M decodeMessage(@NotNull BinaryReader in) {
+    var schema = schemaOf(in.readUnsignedVarInt());
+
+    if (schema.type instanceof Enum) {
+      throw Codecs.malformed("message", "type " + schema.typeId + " is an event");
+    }
+
+    var message = readPayload(schema, in);
+    if (message == null) {
+      throw Codecs.malformed(schema.type, "message is empty");
+    }
+
+    return (M) message;
+  }
+
+  private synchronized EventCodec register(Schema schema) {
+    if (byTypeId.containsKey(schema.typeId)) {
+      throw Codecs.alreadyRegistered("type " + schema.typeId);
+    }
+    if (byType.containsKey(schema.type)) {
+      throw Codecs.alreadyRegistered(schema.type);
+    }
+
+    byTypeId.put(schema.typeId, schema);
+    byType.put(schema.type, schema);
+
+    return this;
+  }
+
+  private Schema schemaOf(Object type) {
+    var schema = byType.get(type);
+    if (schema == null) {
+      throw Codecs.notRegistered(type);
+    }
+
+    return schema;
+  }
+
+  private Schema schemaOf(int typeId) {
+    var schema = byTypeId.get(typeId);
+    if (schema == null) {
+      throw Codecs.notRegistered("type " + typeId);
+    }
+
+    return schema;
+  }
+
+  private static void write(Schema schema, Object payload, BinaryWriter out) {
+    out.writeUnsignedVarInt(schema.typeId).writeUnsignedVarInt(schema.version);
+
+    if (payload == null) {
+      out.writeUnsignedVarInt(0);
+      return;
+    }
+
+    var start = out.size();
+    schema.codec.write(payload, out);
+    out.insertUnsignedVarInt(start, out.size() - start + 1);
+  }
+
+  private Object readPayload(Schema schema, BinaryReader in) {
+    var version = in.readUnsignedVarInt();
+    var length = in.readUnsignedVarInt() - 1;
+
+    if (version > schema.version) {
+      throw Codecs.malformed(
+          schema.type, "version " + version + " is newer than version " + schema.version);
+    }
+    if (length == -1) {
+      return null;
+    }
+
+    var payload = upcast(schema, version, in.slice(length));
+    var value = schema.codec.read(payload);
+
+    if (payload.remaining() > 0) {
+      throw Codecs.malformed(schema.type, payload.remaining() + " bytes were not read");
+    }
+
+    return value;
+  }
+
+  private BinaryReader upcast(Schema schema, int version, BinaryReader payload) {
+    for (var current = version; current < schema.version; current++) {
+      var upcaster = upcasters.get(upcasterKey(schema.typeId, current));
+      if (upcaster == null) {
+        throw Codecs.notRegistered("upcaster of " + schema.type + " from version " + current);
+      }
+
+      var out = new BinaryWriter(payload.remaining() + 16);
+      upcaster.upcast(payload, out);
+      payload = new BinaryReader(out.buffer(), 0, out.size());
+    }
+
+    return payload;
+  }
+
+  private static long upcasterKey(int typeId, int version) {
+    return ((long) typeId << 32) | version;
+  }
+
+  private static final class Schema {
+    private final int typeId;
+    private final Object type;
+    private final int version;
+    private final BinaryCodec<Object> codec;
+
+    @SuppressWarnings("unchecked")
+    private Schema(int typeId, Object type, int version, BinaryCodec<?> codec) {
+      this.typeId = Arguments.notNegative("typeId", typeId);
+      this.type = type;
+      this.version = Arguments.positive("version", version);
+      this.codec = (BinaryCodec<Object>) codec;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.sclable.domain.codec;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * Creates constructors that instantiate a serializable class the way Java serialization does, by
+ * running only the no-arg constructor of its first non-serializable superclass. They come from
+ * {@code sun.reflect.ReflectionFactory} of the {@code jdk.unsupported} module, which is looked up
+ * reflectively: on a runtime image without that module no constructors are created and {@link
+ * StateCodec} falls back to Java serialization for all classes.
+ */
+final class SerializationConstructors {
+  private static final Object FACTORY;
+  private static final Method NEW_CONSTRUCTOR;
+
+  static {
+    Object factory = null;
+    Method newConstructor = null;
+
+    try {
+      var type = Class.forName("sun.reflect.ReflectionFactory");
+      factory = type.getMethod("getReflectionFactory").invoke(null);
+      newConstructor = type.getMethod("newConstructorForSerialization", Class.class);
+    } catch (ReflectiveOperationException | LinkageError e) {
+      factory = null;
+      newConstructor = null;
+    }
+
+    FACTORY = factory;
+    NEW_CONSTRUCTOR = newConstructor;
+  }
+
+  private SerializationConstructors() {}
+
+  /** @return accessible serialization constructor of the class or null if none can be created */
+  static Constructor<?> of(Class<?> type) {
+    if (NEW_CONSTRUCTOR == null) {
+      return null;
+    }
+
+    try {
+      var constructor = (Constructor<?>) NEW_CONSTRUCTOR.invoke(FACTORY, type);
+
+      if (constructor != null) {
+        constructor.setAccessible(true);
+      }
+
+      return constructor;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,268 @@
+package com.sclable.domain.codec;
+
+import com.sclable.domain.StorageErrors;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * First-in first-out queue of values kept in a temporary file, for sequences that must not occupy
+ * the heap. Values are encoded by a {@link StateCodec} into a write buffer that is written out in
+ * blocks, and read back in blocks as well, so appending and polling cost no system call per value.
+ * The file is created on the first spilled block, emptied whenever the last value was polled and
+ * deleted by {@link #close()}, or by a {@link Cleaner} once the spill file is no longer reachable
+ * without having been closed. A spill file is not thread safe.
+ *
+ * @example var spill = new SpillFile<OrderLine>(tempDirectory); lines.forEach(spill::append);
+ *     for (var line = spill.poll(); line != null; line = spill.poll()) { ... } spill.close();
+ */
+public final class SpillFile<T> implements Iterable<T>, AutoCloseable {
+  private static final int BLOCK_SIZE = 64 * 1024;
+  private static final int MAX_HEADER_SIZE = 5;
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private final Path directory;
+  private final StateCodec codec;
+  private final BinaryWriter pending = new BinaryWriter(BLOCK_SIZE);
+  private final Cursor head = new Cursor(0);
+  private final TempFile temp = new TempFile();
+  private Cleaner.Cleanable cleanable;
+  private long written;
+  private long size;
+
+  public SpillFile(@NotNull Path directory) {
+    this(directory, new StateCodec());
+  }
+
+  /**
+   * @param directory directory the temporary file is created in
+   * @param codec encodes the values, which have to be supported by it
+   */
+  public SpillFile(@NotNull Path directory, @NotNull StateCodec codec) {
+    this.directory = directory;
+    this.codec = codec;
+  }
+
+  /** @return number of values not polled yet */
+  public long size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void append(T value) {
+    var start = pending.size();
+    codec.encode(value, pending);
+    pending.insertUnsignedVarInt(start, pending.size() - start);
+    size++;
+
+    if (pending.size() >= BLOCK_SIZE) {
+      flush();
+    }
+  }
+
+  /** @return the oldest value, which is removed, or null if the spill file is empty */
+  public T poll() {
+    if (size == 0) {
+      return null;
+    }
+
+    T value = head.next();
+    if (--size == 0) {
+      clear();
+    }
+
+    return value;
+  }
+
+  /** Removes all values and truncates the file. */
+  public void clear() {
+    size = 0;
+    written = 0;
+    pending.reset();
+    head.reset();
+
+    if (temp.channel != null) {
+      try {
+        temp.channel.truncate(0);
+      } catch (IOException e) {
+        throw StorageErrors.failed(temp.file, "truncate", e);
+      }
+    }
+  }
+
+  /**
+   * @return iterator over the values not polled yet in spill order, reading the file in blocks; the
+   *     spill file must not be modified during the iteration
+   */
+  @Override
+  public @NotNull Iterator<T> iterator() {
+    var cursor = new Cursor(head.position);
+    var count = size;
+
+    return new Iterator<>() {
+      private long remaining = count;
+
+      @Override
+      public boolean hasNext() {
+        return remaining > 0;
+      }
+
+      @Override
+      public T next() {
+        if (remaining == 0) {
+          throw new NoSuchElementException();
+        }
+
+        remaining--;
+        return cursor.next();
+      }
+    };
+  }
+
+  /** Deletes the file. */
+  @Override
+  public void close() {
+    size = 0;
+    pending.reset();
+
+    if (temp.channel == null) {
+      return;
+    }
+
+    try {
+      temp.delete();
+    } catch (IOException e) {
+      throw StorageErrors.failed(temp.file, "delete", e);
+    }
+  }
+
+  private void flush() {
+    try {
+      if (temp.channel == null) {
+        temp.create(directory);
+        if (cleanable == null) {
+          cleanable = CLEANER.register(this, temp);
+        }
+      }
+
+      var buffer = ByteBuffer.wrap(pending.buffer(), 0, pending.size());
+      while (buffer.hasRemaining()) {
+        written += temp.channel.write(buffer, written);
+      }
+    } catch (IOException e) {
+      throw StorageErrors.failed(temp.file == null ? directory : temp.file, "write", e);
+    }
+
+    pending.reset();
+  }
+
+  private final class Cursor {
+    private final BinaryReader reader = new BinaryReader(new byte[0]);
+    private byte[] buffer = new byte[0];
+    private int offset;
+    private int limit;
+    private long position;
+
+    private Cursor(long position) {
+      this.position = position;
+    }
+
+    private T next() {
+      fill(MAX_HEADER_SIZE);
+      var length = reader.wrap(buffer, offset, limit - offset).readUnsignedVarInt();
+      var header = limit - offset - reader.remaining();
+
+      fill(header + length);
+      if (limit - offset < header + length) {
+        throw Codecs.malformed(temp.file, "truncated value at " + position);
+      }
+
+      T value = codec.decode(reader.wrap(buffer, offset + header, length));
+      offset += header + length;
+      position += header + length;
+
+      return value;
+    }
+
+    private void reset() {
+      offset = 0;
+      limit = 0;
+      position = 0;
+    }
+
+    /** Reads at least {@code bytes} bytes into the buffer unless fewer are left. */
+    private void fill(int bytes) {
+      var available = limit - offset;
+      if (available >= bytes) {
+        return;
+      }
+      if (position + bytes > written && pending.size() > 0) {
+        flush();
+      }
+
+      if (bytes > buffer.length) {
+        var copy = new byte[Math.max(Math.max(bytes, BLOCK_SIZE), buffer.length)];
+        System.arraycopy(buffer, offset, copy, 0, available);
+        buffer = copy;
+      } else {
+        System.arraycopy(buffer, offset, buffer, 0, available);
+      }
+      offset = 0;
+      limit = available;
+
+      try {
+        for (var end = position + limit; limit < bytes && end < written; end = position + limit) {
+          var length = (int) Math.min(buffer.length - limit, written - end);
+          limit += temp.channel.read(ByteBuffer.wrap(buffer, limit, length), end);
+        }
+      } catch (IOException e) {
+        throw StorageErrors.failed(temp.file, "read", e);
+      }
+    }
+  }
+
+  /** Temporary file of a spill file, also the cleaning action; must not refer to the spill file. */
+  private static final class TempFile implements Runnable {
+    private volatile Path file;
+    private volatile FileChannel channel;
+
+    private void create(Path directory) throws IOException {
+      file = Files.createTempFile(directory, "spill-", ".tmp");
+      channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void delete() throws IOException {
+      try {
+        channel.close();
+        Files.deleteIfExists(file);
+      } finally {
+        channel = null;
+      }
+    }
+
+    @Override
+    public void run() {
+      if (channel == null) {
+        return;
+      }
+
+      try {
+        delete();
+      } catch (IOException e) {
+        // nothing to report to from a cleaner, the file stays in the temporary directory
+      }
+    }
+  }
+}
@@ -0,0 +1,578 @@
+package com.sclable.domain.codec;
+
+import com.sclable.domain.DomainConstraints;
+import com.sclable.domain.Entities;
+import com.sclable.domain.EntityId;
+import com.sclable.domain.EntityIds;
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import jakarta.validation.constraints.NotNull;
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Encodes the state of aggregates, entities and value objects in a compact binary format instead
+ * of Java serialization, e.g. for caches, copies and snapshots. Objects are encoded field by field
+ * with a layout computed once per class. It contains the fields Java serialization would write,
+ * but no class descriptors, none of the constraint violations inherited from {@link
+ * DomainConstraints} and no transient state such as collected domain events or change logs. Ids
+ * are written as the two longs of their UUID; strings, numbers, enums and the common collections
+ * have a compact form. Nested aggregates and shared references, including cycles, are preserved,
+ * and lazily loaded {@link Entities} and {@link EntityIds} are loaded first.
+ *
+ * <p>Each class name is written once per encoded value together with a hash of its fields, so state
+ * written before a class changed fails to decode instead of being misread. Other JDK classes are
+ * embedded with Java serialization. Custom {@code writeObject} and {@code readObject} methods are
+ * not called. Decoding instantiates the classes named in the input, so only trusted state should
+ * be decoded.
+ *
+ * @example var codec = new StateCodec(); var state = codec.encode(order); Order restored =
+ *     codec.decode(state);
+ */
+public class StateCodec {
+  private static final int FORMAT_VERSION = 1;
+  private static final List<Class<?>> COLLECTIONS =
+      List.of(
+          ArrayList.class,
+          LinkedList.class,
+          ArrayDeque.class,
+          HashSet.class,
+          LinkedHashSet.class,
+          TreeSet.class);
+  private static final List<Class<?>> MAPS =
+      List.of(HashMap.class, LinkedHashMap.class, TreeMap.class);
+
+  private enum Tag {
+    NULL,
+    BACK_REFERENCE,
+    OBJECT,
+    ID,
+    STRING,
+    INTEGER,
+    LONG,
+    DOUBLE,
+    BOOLEAN,
+    ENUM,
+    UUID,
+    BIG_DECIMAL,
+    INSTANT,
+    LOCAL_DATE,
+    BYTES,
+    COLLECTION,
+    MAP,
+    SERIALIZED
+  }
+
+  private final ClassLoader classLoader;
+  private final ThreadLocal<BinaryWriter> writers = ThreadLocal.withInitial(BinaryWriter::new);
+
+  /** Creates a codec resolving classes with the context class loader of the current thread. */
+  public StateCodec() {
+    this(
+        Thread.currentThread().getContextClassLoader() != null
+            ? Thread.currentThread().getContextClassLoader()
+            : StateCodec.class.getClassLoader());
+  }
+
+  public StateCodec(@NotNull ClassLoader classLoader) {
+    this.classLoader = classLoader;
+  }
+
+  public @NotNull byte[] encode(Object state) {
+    var out = writers.get().reset();
+    encode(state, out);
+
+    return out.toByteArray();
+  }
+
+  /** Appends the encoded state to {@code out}. */
+  public void encode(Object state, @NotNull BinaryWriter out) {
+    out.writeUnsignedVarInt(FORMAT_VERSION);
+    new Encoder(out).writeValue(state);
+  }
+
+  public <T> T decode(@NotNull byte[] bytes) {
+    return decode(new BinaryReader(bytes));
+  }
+
+  /** Reads the next encoded state from {@code in}. */
+  @SuppressWarnings("unchecked")
+  public <T> T decode(@NotNull BinaryReader in) {
+    var version = in.readUnsignedVarInt();
+    if (version != FORMAT_VERSION) {
+      throw Codecs.malformed("state", "format version " + version + " is not supported");
+    }
+
+    return (T) new Decoder(in).readValue();
+  }
+
+  /** @return deep copy of the state, e.g. of an aggregate or entity */
+  public <T> T copy(T state) {
+    var out = writers.get().reset();
+    encode(state, out);
+
+    return decode(new BinaryReader(out.buffer(), 0, out.size()));
+  }
+
+  private static DomainException inaccessible(Field field, Exception cause) {
+    return new DomainException(
+        ERR.CANNOT_ACCESS_FIELD.parameters(
+            Parameter.of("field", field.getDeclaringClass().getName() + "#" + field.getName())),
+        cause);
+  }
+
+  private static final class Encoder {
+    private final BinaryWriter out;
+    private final Map<Class<?>, Integer> classes = new IdentityHashMap<>();
+    private final Map<Object, Integer> objects = new IdentityHashMap<>();
+
+    private Encoder(BinaryWriter out) {
+      this.out = out;
+    }
+
+    private void writeValue(Object value) {
+      if (value == null) {
+        out.writeEnum(Tag.NULL);
+      } else if (value instanceof String) {
+        out.writeEnum(Tag.STRING).writeString((String) value);
+      } else if (value instanceof Integer) {
+        out.writeEnum(Tag.INTEGER).writeVarInt((Integer) value);
+      } else if (value instanceof Long) {
+        out.writeEnum(Tag.LONG).writeVarLong((Long) value);
+      } else if (value instanceof Double) {
+        out.writeEnum(Tag.DOUBLE).writeDouble((Double) value);
+      } else if (value instanceof Boolean) {
+        out.writeEnum(Tag.BOOLEAN).writeBoolean((Boolean) value);
+      } else if (value instanceof Enum) {
+        var constant = (Enum<?>) value;
+        out.writeEnum(Tag.ENUM);
+        writeClass(constant.getDeclaringClass(), 0);
+        out.writeUnsignedVarInt(constant.ordinal());
+      } else if (value instanceof UUID) {
+        out.writeEnum(Tag.UUID).writeUuid((UUID) value);
+      } else if (value instanceof BigDecimal) {
+        var decimal = (BigDecimal) value;
+        out.writeEnum(Tag.BIG_DECIMAL).writeBytes(decimal.unscaledValue().toByteArray());
+        out.writeVarInt(decimal.scale());
+      } else if (value instanceof Instant) {
+        var instant = (Instant) value;
+        out.writeEnum(Tag.INSTANT).writeVarLong(instant.getEpochSecond());
+        out.writeVarInt(instant.getNano());
+      } else if (value instanceof LocalDate) {
+        out.writeEnum(Tag.LOCAL_DATE).writeVarLong(((LocalDate) value).toEpochDay());
+      } else if (value instanceof byte[]) {
+        out.writeEnum(Tag.BYTES).writeBytes((byte[]) value);
+      } else {
+        writeReference(value);
+      }
+    }
+
+    private void writeReference(Object value) {
+      var reference = objects.get(value);
+      if (reference != null) {
+        out.writeEnum(Tag.BACK_REFERENCE).writeUnsignedVarInt(reference);
+        return;
+      }
+
+      var type = value.getClass();
+      var layout = ClassLayout.of(type);
+
+      if (value instanceof EntityId && layout.fields.length == 1) {
+        out.writeEnum(Tag.ID);
+        writeClass(type, layout.signature);
+        out.writeUuid(((EntityId) value).getId());
+      } else if (COLLECTIONS.contains(type) && !hasComparator(value)) {
+        var collection = (Collection<?>) value;
+        objects.put(value, objects.size());
+        out.writeEnum(Tag.COLLECTION).writeUnsignedVarInt(COLLECTIONS.indexOf(type));
+        out.writeUnsignedVarInt(collection.size());
+        collection.forEach(this::writeValue);
+      } else if (MAPS.contains(type) && !hasComparator(value)) {
+        var map = (Map<?, ?>) value;
+        objects.put(value, objects.size());
+        out.writeEnum(Tag.MAP).writeUnsignedVarInt(MAPS.indexOf(type));
+        out.writeUnsignedVarInt(map.size());
+        map.forEach(
+            (key, element) -> {
+              writeValue(key);
+              writeValue(element);
+            });
+      } else if (layout.isEncodable()) {
+        ensureLoaded(value);
+        objects.put(value, objects.size());
+        out.writeEnum(Tag.OBJECT);
+        writeClass(type, layout.signature);
+        writeFields(layout, value);
+      } else if (value instanceof Serializable) {
+        objects.put(value, objects.size());
+        out.writeEnum(Tag.SERIALIZED).writeBytes(serialize((Serializable) value));
+      } else {
+        throw Codecs.notRegistered(type.getName());
+      }
+    }
+
+    private void writeFields(ClassLayout layout, Object instance) {
+      for (var i = 0; i < layout.fields.length; i++) {
+        var field = layout.fields[i];
+
+        try {
+          switch (layout.kinds[i]) {
+            case ClassLayout.BOOLEAN:
+              out.writeBoolean(field.getBoolean(instance));
+              break;
+            case ClassLayout.BYTE:
+              out.writeByte(field.getByte(instance));
+              break;
+            case ClassLayout.SHORT:
+              out.writeVarInt(field.getShort(instance));
+              break;
+            case ClassLayout.CHAR:
+              out.writeVarInt(field.getChar(instance));
+              break;
+            case ClassLayout.INT:
+              out.writeVarInt(field.getInt(instance));
+              break;
+            case ClassLayout.LONG:
+              out.writeVarLong(field.getLong(instance));
+              break;
+            case ClassLayout.FLOAT:
+              out.writeVarInt(Float.floatToRawIntBits(field.getFloat(instance)));
+              break;
+            case ClassLayout.DOUBLE:
+              out.writeDouble(field.getDouble(instance));
+              break;
+            default:
+              writeValue(field.get(instance));
+          }
+        } catch (IllegalAccessException e) {
+          throw inaccessible(field, e);
+        }
+      }
+    }
+
+    private void writeClass(Class<?> type, int signature) {
+      var index = classes.get(type);
+
+      if (index != null) {
+        out.writeUnsignedVarInt(index + 1);
+      } else {
+        classes.put(type, classes.size());
+        out.writeUnsignedVarInt(0).writeString(type.getName()).writeVarInt(signature);
+      }
+    }
+
+    private static boolean hasComparator(Object value) {
+      return value instanceof SortedSet && ((SortedSet<?>) value).comparator() != null
+          || value instanceof SortedMap && ((SortedMap<?, ?>) value).comparator() != null;
+    }
+
+    private static void ensureLoaded(Object value) {
+      if (value instanceof Entities) {
+        ((Entities<?, ?>) value).getAll();
+      } else if (value instanceof EntityIds) {
+        ((EntityIds<?>) value).getAll();
+      }
+    }
+
+    private static byte[] serialize(Serializable value) {
+      try {
+        return SerializationUtils.serialize(value);
+      } catch (SerializationException e) {
+        throw new DomainException(
+            ERR.CODEC_NOT_REGISTERED.parameters(Parameter.of("type", value.getClass().getName())),
+            e);
+      }
+    }
+  }
+
+  private final class Decoder {
+    private final BinaryReader in;
+    private final List<Class<?>> classes = new ArrayList<>();
+    private final List<Integer> signatures = new ArrayList<>();
+    private final List<Object> objects = new ArrayList<>();
+
+    private Decoder(BinaryReader in) {
+      this.in = in;
+    }
+
+    private Object readValue() {
+      var tag = in.readEnum(Tag.class);
+      if (tag == null) {
+        throw Codecs.malformed("state", "value tag is missing");
+      }
+
+      switch (tag) {
+        case NULL:
+          return null;
+        case STRING:
+          return in.readString();
+        case INTEGER:
+          return in.readVarInt();
+        case LONG:
+          return in.readVarLong();
+        case DOUBLE:
+          return in.readDouble();
+        case BOOLEAN:
+          return in.readBoolean();
+        case ENUM:
+          return readEnum();
+        case UUID:
+          return in.readUuid();
+        case BIG_DECIMAL:
+          return new BigDecimal(new BigInteger(in.readBytes()), in.readVarInt());
+        case INSTANT:
+          return Instant.ofEpochSecond(in.readVarLong(), in.readVarInt());
+        case LOCAL_DATE:
+          return LocalDate.ofEpochDay(in.readVarLong());
+        case BYTES:
+          return in.readBytes();
+        case BACK_REFERENCE:
+          return readBackReference();
+        case ID:
+          return readId();
+        case COLLECTION:
+          return readCollection();
+        case MAP:
+          return readMap();
+        case OBJECT:
+          return readObject();
+        default:
+          return readSerialized();
+      }
+    }
+
+    private Object readEnum() {
+      var type = classes.get(readClass());
+      var ordinal = in.readUnsignedVarInt();
+      var constants = type.getEnumConstants();
+
+      if (constants == null || ordinal < 0 || ordinal >= constants.length) {
+        throw Codecs.malformed(type.getName(), "unknown enum ordinal " + ordinal);
+      }
+
+      return constants[ordinal];
+    }
+
+    private Object readBackReference() {
+      var index = in.readUnsignedVarInt();
+      if (index < 0 || index >= objects.size()) {
+        throw Codecs.malformed("state", "unknown back reference " + index);
+      }
+
+      return objects.get(index);
+    }
+
+    private Object readId() {
+      var layout = layoutOf(readClass());
+      var id = layout.newInstance();
+      set(layout.fields[0], id, in.readUuid());
+
+      return id;
+    }
+
+    private Object readCollection() {
+      var kind = in.readUnsignedVarInt();
+      var size = readSize();
+      Collection<Object> collection;
+
+      switch (kind) {
+        case 0:
+          collection = new ArrayList<>(size);
+          break;
+        case 1:
+          collection = new LinkedList<>();
+          break;
+        case 2:
+          collection = new ArrayDeque<>(size);
+          break;
+        case 3:
+          collection = new HashSet<>(capacityOf(size));
+          break;
+        case 4:
+          collection = new LinkedHashSet<>(capacityOf(size));
+          break;
+        case 5:
+          collection = new TreeSet<>();
+          break;
+        default:
+          throw Codecs.malformed("state", "unknown collection kind " + kind);
+      }
+
+      objects.add(collection);
+      for (var i = 0; i < size; i++) {
+        collection.add(readValue());
+      }
+
+      return collection;
+    }
+
+    private Object readMap() {
+      var kind = in.readUnsignedVarInt();
+      var size = readSize();
+      Map<Object, Object> map;
+
+      switch (kind) {
+        case 0:
+          map = new HashMap<>(capacityOf(size));
+          break;
+        case 1:
+          map = new LinkedHashMap<>(capacityOf(size));
+          break;
+        case 2:
+          map = new TreeMap<>();
+          break;
+        default:
+          throw Codecs.malformed("state", "unknown map kind " + kind);
+      }
+
+      objects.add(map);
+      for (var i = 0; i < size; i++) {
+        map.put(readValue(), readValue());
+      }
+
+      return map;
+    }
+
+    private Object readObject() {
+      var layout = layoutOf(readClass());
+      var instance = layout.newInstance();
+      objects.add(instance);
+
+      for (var i = 0; i < layout.fields.length; i++) {
+        var field = layout.fields[i];
+
+        try {
+          switch (layout.kinds[i]) {
+            case ClassLayout.BOOLEAN:
+              field.setBoolean(instance, in.readBoolean());
+              break;
+            case ClassLayout.BYTE:
+              field.setByte(instance, in.readByte());
+              break;
+            case ClassLayout.SHORT:
+              field.setShort(instance, (short) in.readVarInt());
+              break;
+            case ClassLayout.CHAR:
+              field.setChar(instance, (char) in.readVarInt());
+              break;
+            case ClassLayout.INT:
+              field.setInt(instance, in.readVarInt());
+              break;
+            case ClassLayout.LONG:
+              field.setLong(instance, in.readVarLong());
+              break;
+            case ClassLayout.FLOAT:
+              field.setFloat(instance, Float.intBitsToFloat(in.readVarInt()));
+              break;
+            case ClassLayout.DOUBLE:
+              field.setDouble(instance, in.readDouble());
+              break;
+            default:
+              set(field, instance, readValue());
+          }
+        } catch (IllegalAccessException e) {
+          throw inaccessible(field, e);
+        }
+      }
+
+      return instance;
+    }
+
+    private Object readSerialized() {
+      var index = objects.size();
+      objects.add(null);
+
+      try {
+        var value = SerializationUtils.deserialize(in.readBytes());
+        objects.set(index, value);
+
+        return value;
+      } catch (SerializationException e) {
+        throw Codecs.malformed("state", e.getMessage());
+      }
+    }
+
+    private int readClass() {
+      var reference = in.readUnsignedVarInt();
+
+      if (reference > 0) {
+        if (reference > classes.size()) {
+          throw Codecs.malformed("state", "unknown class reference " + reference);
+        }
+
+        return reference - 1;
+      }
+
+      var name = in.readString();
+      try {
+        classes.add(Class.forName(name, false, classLoader));
+      } catch (ClassNotFoundException e) {
+        throw new DomainException(
+            ERR.CLASS_NOT_FOUND.parameters(Parameter.of("class", name)), e);
+      }
+      signatures.add(in.readVarInt());
+
+      return classes.size() - 1;
+    }
+
+    private ClassLayout layoutOf(int index) {
+      var layout = ClassLayout.of(classes.get(index));
+
+      if (!layout.isEncodable()) {
+        throw Codecs.notRegistered(layout.type.getName());
+      }
+      if (layout.signature != signatures.get(index)) {
+        throw Codecs.malformed(layout.type.getName(), "fields changed since it was encoded");
+      }
+
+      return layout;
+    }
+
+    private int readSize() {
+      var size = in.readUnsignedVarInt();
+      if (size < 0 || size > in.remaining()) {
+        throw Codecs.malformed("state", "size " + size + " exceeds the input");
+      }
+
+      return size;
+    }
+
+    private void set(Field field, Object instance, Object value) {
+      try {
+        field.set(instance, value);
+      } catch (IllegalAccessException e) {
+        throw inaccessible(field, e);
+      } catch (IllegalArgumentException e) {
+        throw Codecs.malformed(field.getDeclaringClass().getName(), e.getMessage());
+      }
+    }
+
+    private int capacityOf(int size) {
+      return (int) (size / 0.75f) + 1;
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.sclable.domain.codec;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Migrates an encoded payload from the schema version it is registered for to the next version,
+ * e.g. by copying the old fields and writing a default for a new one. Upcasters of consecutive
+ * versions are chained, so stored events of any older version can be read by the current schema.
+ */
+@FunctionalInterface
+public interface Upcaster {
+  void upcast(@NotNull BinaryReader in, @NotNull BinaryWriter out);
+}
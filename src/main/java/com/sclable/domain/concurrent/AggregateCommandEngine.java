@@ -0,0 +1,312 @@
+package com.sclable.domain.concurrent;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRepository;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.Arguments;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import com.sclable.domain.exception.DomainException;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Executes commands against aggregates with a single writer per aggregate. Commands are routed by
+ * the hash of their {@link AggregateId} to one of a fixed number of partitions, each owning one
+ * thread and a bounded queue, so commands for the same aggregate never contend for locks and never
+ * need optimistic retries.
+ *
+ * <p>Recently used aggregates stay resident in memory. A partition drains its queue in batches,
+ * applies all commands of a batch and then writes the aggregates they changed with a single {@link
+ * AggregateRepository#saveAll(List)}, so a burst of commands for a hot aggregate costs one load and
+ * one save. The futures of the commands complete once that save succeeded.
+ *
+ * <p>Commands must validate before they modify an aggregate: a command that throws fails its own
+ * future, but changes it already applied are saved together with the rest of the batch. The engine
+ * has to be the only writer of the aggregates it manages, as resident aggregates are not reloaded.
+ *
+ * @example var engine = new AggregateCommandEngine<>(accounts, 8, 10_000, 100_000);
+ *     engine.submit(accountId, account -> account.deposit(amount)).join();
+ */
+public class AggregateCommandEngine<ID extends AggregateId, AR extends AggregateRoot<ID>>
+    implements AutoCloseable {
+  public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+  private static final long IDLE_POLL_MILLIS = 100;
+
+  private final AggregateRepository<ID, AR> repository;
+  private final List<Partition> partitions = new ArrayList<>();
+  private final int maxBatchSize;
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+  private volatile boolean closed;
+
+  /**
+   * @param repository repository the aggregates are loaded from and saved to
+   * @param partitions number of single threaded partitions
+   * @param maxQueueDepth maximum number of waiting commands per partition
+   * @param maxResident maximum number of aggregates kept in memory over all partitions
+   */
+  public AggregateCommandEngine(
+      @NotNull AggregateRepository<ID, AR> repository,
+      int partitions,
+      int maxQueueDepth,
+      int maxResident) {
+    this(repository, partitions, maxQueueDepth, maxResident, DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  public AggregateCommandEngine(
+      @NotNull AggregateRepository<ID, AR> repository,
+      int partitions,
+      int maxQueueDepth,
+      int maxResident,
+      int maxBatchSize) {
+    this.repository = repository;
+    this.maxBatchSize = Arguments.positive("maxBatchSize", maxBatchSize);
+
+    var residentPerPartition =
+        Math.max(
+            1,
+            Arguments.positive("maxResident", maxResident)
+                / Arguments.positive("partitions", partitions));
+    var queueDepth = Arguments.positive("maxQueueDepth", maxQueueDepth);
+
+    for (var i = 0; i < partitions; i++) {
+      this.partitions.add(new Partition(i, queueDepth, residentPerPartition));
+    }
+  }
+
+  /**
+   * Queues a command without waiting for queue capacity.
+   *
+   * @return future completed with the result of the command after the changed aggregate was saved
+   * @throws DomainException {@link ERR#COMMAND_QUEUE_FULL} if the partition of the aggregate has
+   *     no capacity left, callers should back off
+   */
+  public <R> @NotNull CompletableFuture<R> submit(
+      @NotNull ID id, @NotNull Function<AR, R> command) {
+    return submit(id, command, Duration.ZERO);
+  }
+
+  /**
+   * Queues a command, waiting up to {@code timeout} for queue capacity.
+   *
+   * @throws DomainException {@link ERR#COMMAND_QUEUE_FULL} if no capacity became available in time
+   */
+  public <R> @NotNull CompletableFuture<R> submit(
+      @NotNull ID id, @NotNull Function<AR, R> command, @NotNull Duration timeout) {
+    var partition = partitionOf(id);
+    var pending = new PendingCommand<>(id, command);
+
+    closeLock.readLock().lock();
+
+    try {
+      if (closed) {
+        throw new DomainException(
+            ERR.COMMAND_ENGINE_CLOSED.parameters(
+                Parameter.of("engine", getClass().getSimpleName())));
+      }
+
+      if (!partition.queue.offer(pending, timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+        throw new DomainException(
+            ERR.COMMAND_QUEUE_FULL.parameters(
+                Parameter.of("partition", partition.index),
+                Parameter.of("depth", partition.queue.size())));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      pending.future.completeExceptionally(e);
+    } finally {
+      closeLock.readLock().unlock();
+    }
+
+    return pending.future;
+  }
+
+  /** @return number of commands waiting in all partitions */
+  public int queueDepth() {
+    return partitions.stream().mapToInt(partition -> partition.queue.size()).sum();
+  }
+
+  /** @return number of commands waiting in the partition of the aggregate */
+  public int queueDepth(@NotNull ID id) {
+    return partitionOf(id).queue.size();
+  }
+
+  /** Stops accepting commands, executes all queued commands and waits for the partitions. */
+  @Override
+  public void close() {
+    closeLock.writeLock().lock();
+
+    try {
+      closed = true;
+    } finally {
+      closeLock.writeLock().unlock();
+    }
+
+    for (var partition : partitions) {
+      try {
+        partition.thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private Partition partitionOf(ID id) {
+    var uuid = id.getId();
+    var hash = uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+
+    return partitions.get(Math.floorMod(hash ^ (hash >>> 32), partitions.size()));
+  }
+
+  private final class Partition {
+    private final int index;
+    private final BlockingQueue<PendingCommand<ID, AR, ?>> queue;
+    private final Map<ID, AR> resident;
+    private final Thread thread;
+
+    private Partition(int index, int maxQueueDepth, int maxResident) {
+      this.index = index;
+      this.queue = new ArrayBlockingQueue<>(maxQueueDepth);
+      this.resident =
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ID, AR> eldest) {
+              return size() > maxResident;
+            }
+          };
+      this.thread = new Thread(this::run, "aggregate-commands-" + index);
+      this.thread.setDaemon(true);
+      this.thread.start();
+    }
+
+    private void run() {
+      while (!closed || !queue.isEmpty()) {
+        try {
+          var first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+          if (first != null) {
+            var batch = new ArrayList<PendingCommand<ID, AR, ?>>();
+            batch.add(first);
+            queue.drainTo(batch, maxBatchSize - 1);
+            execute(batch);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+
+    private void execute(List<PendingCommand<ID, AR, ?>> batch) {
+      var aggregates = load(batch);
+      var changed = new LinkedHashMap<ID, AR>();
+      var applied = new ArrayList<PendingCommand<ID, AR, ?>>();
+      var completions = new ArrayList<Runnable>();
+
+      for (var pending : batch) {
+        if (pending.future.isDone()) {
+          continue;
+        }
+
+        var aggregateRoot = aggregates.get(pending.id);
+
+        if (aggregateRoot == null) {
+          pending.future.completeExceptionally(AggregateRoot.notFound(pending.id.getId()).get());
+          continue;
+        }
+
+        try {
+          completions.add(pending.execute(aggregateRoot));
+          applied.add(pending);
+          changed.put(pending.id, aggregateRoot);
+        } catch (Throwable e) {
+          pending.future.completeExceptionally(e);
+        }
+      }
+
+      if (changed.isEmpty()) {
+        return;
+      }
+
+      try {
+        repository
+            .saveAll(new ArrayList<>(changed.values()))
+            .forEach(saved -> resident.put(saved.getId(), saved));
+        completions.forEach(Runnable::run);
+      } catch (Throwable e) {
+        changed.keySet().forEach(resident::remove);
+        applied.forEach(pending -> pending.future.completeExceptionally(e));
+      }
+    }
+
+    /** @return aggregates of the batch, taken from memory or loaded with one findMany */
+    private Map<ID, AR> load(List<PendingCommand<ID, AR, ?>> batch) {
+      var aggregates = new HashMap<ID, AR>();
+      var missing = new ArrayList<ID>();
+
+      batch.stream()
+          .map(pending -> pending.id)
+          .distinct()
+          .forEach(
+              id -> {
+                var aggregateRoot = resident.get(id);
+
+                if (aggregateRoot == null) {
+                  missing.add(id);
+                } else {
+                  aggregates.put(id, aggregateRoot);
+                }
+              });
+
+      if (missing.isEmpty()) {
+        return aggregates;
+      }
+
+      try {
+        repository.findMany(missing).forEach(found -> aggregates.put(found.getId(), found));
+        missing.stream()
+            .filter(aggregates::containsKey)
+            .forEach(id -> resident.put(id, aggregates.get(id)));
+      } catch (Throwable e) {
+        batch.stream()
+            .filter(pending -> !aggregates.containsKey(pending.id))
+            .forEach(pending -> pending.future.completeExceptionally(e));
+      }
+
+      return aggregates;
+    }
+  }
+
+  private static final class PendingCommand<
+      ID extends AggregateId, AR extends AggregateRoot<ID>, R> {
+    private final ID id;
+    private final Function<AR, R> command;
+    private final CompletableFuture<R> future = new CompletableFuture<>();
+
+    private PendingCommand(ID id, Function<AR, R> command) {
+      this.id = id;
+      this.command = command;
+    }
+
+    /** @return completion to run once the aggregate was saved */
+    private Runnable execute(AR aggregateRoot) {
+      var result = command.apply(aggregateRoot);
+
+      return () -> future.complete(result);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.sclable.domain.concurrent;
+
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Locks held on a set of aggregates, acquired by {@link AggregateLockManager}. Closing it releases
+ * all locks in reverse acquisition order; use it in a try-with-resources block.
+ */
+public final class AggregateLock implements AutoCloseable {
+  private final List<Lock> locks;
+  private boolean released;
+
+  AggregateLock(List<Lock> locks) {
+    this.locks = locks;
+  }
+
+  @Override
+  public void close() {
+    if (released) {
+      return;
+    }
+
+    released = true;
+    release(locks, locks.size());
+  }
+
+  static void release(List<Lock> locks, int acquired) {
+    for (var i = acquired - 1; i >= 0; i--) {
+      locks.get(i).unlock();
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package com.sclable.domain.concurrent;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.Arguments;
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Pessimistic in-process locks keyed by {@link AggregateId}, for operations that have to keep an
+ * invariant across several aggregates, e.g. a transfer between two accounts.
+ *
+ * <p>Aggregate ids are hashed onto a fixed number of read/write lock stripes, so memory does not
+ * grow with the number of aggregates. Locks for several aggregates are always acquired in ascending
+ * stripe order and each stripe only once, which makes concurrent multi-aggregate acquisitions
+ * deadlock free. Ordering by stripe rather than by id is required: two ids sharing a stripe
+ * would otherwise be acquired in different orders relative to a third one.
+ *
+ * <p>Locks are reentrant. A thread holding a read lock must not request a write lock for an
+ * aggregate on the same stripe, read locks cannot be upgraded. Such a request fails with {@link
+ * ERR#LOCK_UPGRADE} instead of waiting forever, even if the aggregates are unrelated.
+ *
+ * @example try (var lock = locks.writeLock(from.getId(), to.getId())) { from.withdraw(amount);
+ *     to.deposit(amount); }
+ */
+public class AggregateLockManager {
+  public static final int DEFAULT_STRIPES = 1024;
+
+  private final ReentrantReadWriteLock[] stripes;
+
+  public AggregateLockManager() {
+    this(DEFAULT_STRIPES, false);
+  }
+
+  /**
+   * @param stripes number of lock stripes, rounded up to a power of two; more stripes mean fewer
+   *     unrelated aggregates blocking each other
+   * @param fair true to grant locks in arrival order, which prevents starvation of writers at the
+   *     cost of throughput
+   */
+  public AggregateLockManager(int stripes, boolean fair) {
+    Arguments.within("stripes", stripes, 1, 1 << 30);
+
+    this.stripes = new ReentrantReadWriteLock[Integer.highestOneBit(stripes * 2 - 1)];
+    for (var i = 0; i < this.stripes.length; i++) {
+      this.stripes[i] = new ReentrantReadWriteLock(fair);
+    }
+  }
+
+  public static AggregateLockManager striped(int stripes) {
+    return new AggregateLockManager(stripes, false);
+  }
+
+  public static AggregateLockManager fair(int stripes) {
+    return new AggregateLockManager(stripes, true);
+  }
+
+  /** Waits until all aggregates are locked exclusively. */
+  public @NotNull AggregateLock writeLock(@NotNull AggregateId... ids) {
+    return lock(List.of(), List.of(ids), null);
+  }
+
+  /** Waits until all aggregates are locked for shared reading. */
+  public @NotNull AggregateLock readLock(@NotNull AggregateId... ids) {
+    return lock(List.of(ids), List.of(), null);
+  }
+
+  /**
+   * Locks aggregates for reading and writing at once. An aggregate contained in both collections
+   * is locked for writing.
+   *
+   * @param timeout maximum time to wait for all locks or null to wait indefinitely
+   * @throws DomainException {@link ERR#LOCK_TIMEOUT} if not all locks were acquired in time, no
+   *     lock is held in that case; {@link ERR#LOCK_UPGRADE} if the thread holds a read lock on the
+   *     stripe of an aggregate to write
+   */
+  public @NotNull AggregateLock lock(
+      @NotNull Collection<? extends AggregateId> reads,
+      @NotNull Collection<? extends AggregateId> writes,
+      Duration timeout) {
+    var exclusive = new TreeMap<Integer, Boolean>();
+    reads.forEach(id -> exclusive.putIfAbsent(stripeOf(id), false));
+    writes.forEach(id -> exclusive.put(stripeOf(id), true));
+
+    var locks = new ArrayList<Lock>(exclusive.size());
+    exclusive.forEach(
+        (stripe, write) -> {
+          var lock = stripes[stripe];
+
+          if (write && lock.getReadHoldCount() > 0 && !lock.isWriteLockedByCurrentThread()) {
+            throw new DomainException(
+                ERR.LOCK_UPGRADE.parameters(Parameter.of("ids", ids(reads, writes))));
+          }
+
+          locks.add(write ? lock.writeLock() : lock.readLock());
+        });
+
+    acquire(locks, timeout, () -> ids(reads, writes));
+
+    return new AggregateLock(locks);
+  }
+
+  /** Runs the operation while holding write locks on all aggregates. */
+  public <T> T withWriteLock(@NotNull Supplier<T> operation, @NotNull AggregateId... ids) {
+    var lock = writeLock(ids);
+
+    try {
+      return operation.get();
+    } finally {
+      lock.close();
+    }
+  }
+
+  /** Runs the operation while holding read locks on all aggregates. */
+  public <T> T withReadLock(@NotNull Supplier<T> operation, @NotNull AggregateId... ids) {
+    var lock = readLock(ids);
+
+    try {
+      return operation.get();
+    } finally {
+      lock.close();
+    }
+  }
+
+  private void acquire(List<Lock> locks, Duration timeout, Supplier<Set<AggregateId>> ids) {
+    var deadline = timeout == null ? 0 : System.nanoTime() + timeout.toNanos();
+    var acquired = 0;
+
+    try {
+      for (var lock : locks) {
+        if (timeout == null) {
+          lock.lockInterruptibly();
+        } else if (!lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+          throw new DomainException(
+              ERR.LOCK_TIMEOUT.parameters(
+                  Parameter.of("ids", ids.get()), Parameter.of("timeout", timeout)));
+        }
+
+        acquired++;
+      }
+    } catch (InterruptedException e) {
+      AggregateLock.release(locks, acquired);
+      Thread.currentThread().interrupt();
+
+      throw new DomainException(
+          ERR.LOCK_INTERRUPTED.parameters(Parameter.of("ids", ids.get())), e);
+    } catch (RuntimeException e) {
+      AggregateLock.release(locks, acquired);
+      throw e;
+    }
+  }
+
+  private int stripeOf(AggregateId id) {
+    var uuid = id.getId();
+    var hash = uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+    hash ^= hash >>> 32;
+    hash ^= hash >>> 16;
+
+    return (int) hash & (stripes.length - 1);
+  }
+
+  private static Set<AggregateId> ids(
+      Collection<? extends AggregateId> reads, Collection<? extends AggregateId> writes) {
+    var ids = new TreeSet<AggregateId>(reads);
+    ids.addAll(writes);
+
+    return ids;
+  }
+}
@@ -0,0 +1,256 @@
+package com.sclable.domain.event;
+
+import com.sclable.domain.Arguments;
+import com.sclable.domain.DomainEventMessage;
+import com.sclable.domain.DomainObject;
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process bus delivering domain events to {@link EventHandler}s through a preallocated ring
+ * buffer. Publishers claim slots with a single atomic increment and never take a lock; each handler
+ * runs on its own thread, follows the published sequence and receives events in batches. A full
+ * ring makes publishers wait for the slowest handler, which bounds memory and applies backpressure.
+ *
+ * <p>Handlers are registered before {@link #start()}. Exceptions and errors thrown by a handler are
+ * passed to the uncaught exception handler of its thread and do not stop the handler. The last
+ * handler to pass a slot releases its event, so handled events do not stay reachable.
+ *
+ * @example var bus = new DomainEventBus<>(4096, WaitStrategy.yielding());
+ *     bus.subscribe(projection::apply); bus.start(); bus.publishFrom(order);
+ */
+public class DomainEventBus<M extends DomainEventMessage> implements AutoCloseable {
+  public static final int DEFAULT_CAPACITY = 4096;
+
+  private final Object[] slots;
+  private final AtomicIntegerArray published;
+  private final AtomicIntegerArray handled;
+  private final int mask;
+  private final int indexShift;
+  private final WaitStrategy waitStrategy;
+  private final AtomicLong claimed = new AtomicLong(-1);
+  private final List<Consumer> consumers = new ArrayList<>();
+  private int consumerCount;
+  private volatile long cachedGatingSequence = -1;
+  private volatile boolean started;
+  private volatile boolean closed;
+
+  public DomainEventBus() {
+    this(DEFAULT_CAPACITY, WaitStrategy.blocking());
+  }
+
+  /**
+   * @param capacity number of slots, rounded up to a power of two
+   * @param waitStrategy how idle handlers wait for events
+   */
+  public DomainEventBus(int capacity, @NotNull WaitStrategy waitStrategy) {
+    var size = Integer.highestOneBit(Arguments.within("capacity", capacity, 1, 1 << 30) * 2 - 1);
+    this.slots = new Object[size];
+    this.published = new AtomicIntegerArray(size);
+    this.handled = new AtomicIntegerArray(size);
+    this.mask = size - 1;
+    this.indexShift = Integer.numberOfTrailingZeros(size);
+    this.waitStrategy = waitStrategy;
+
+    for (var i = 0; i < size; i++) {
+      published.set(i, -1);
+    }
+  }
+
+  /** Registers a handler, which receives all events published after {@link #start()}. */
+  public synchronized void subscribe(@NotNull EventHandler<? super M> handler) {
+    if (started) {
+      throw new DomainException(
+          ERR.EVENT_BUS_STARTED.parameters(Parameter.of("bus", getClass().getSimpleName())));
+    }
+
+    consumers.add(new Consumer(handler, consumers.size()));
+  }
+
+  /** Starts one thread per registered handler. */
+  public synchronized void start() {
+    if (started) {
+      throw new DomainException(
+          ERR.EVENT_BUS_STARTED.parameters(Parameter.of("bus", getClass().getSimpleName())));
+    }
+
+    started = true;
+    consumerCount = consumers.size();
+    consumers.forEach(consumer -> consumer.thread.start());
+  }
+
+  public void publish(@NotNull M event) {
+    var sequence = claim(1);
+
+    store(sequence, event);
+    markPublished(sequence);
+    waitStrategy.signal();
+  }
+
+  /** Publishes all events with a single claim, so they occupy consecutive sequences. */
+  public void publishAll(@NotNull List<? extends M> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+
+    var last = claim(events.size());
+    var first = last - events.size() + 1;
+
+    for (var i = 0; i < events.size(); i++) {
+      store(first + i, events.get(i));
+    }
+    for (var sequence = first; sequence <= last; sequence++) {
+      markPublished(sequence);
+    }
+
+    waitStrategy.signal();
+  }
+
+  /** Publishes the events collected by a domain object and clears them. */
+  public void publishFrom(@NotNull DomainObject<?, ? extends M> source) {
+    publishAll(source.getDomainEvents());
+    source.clearDomainEvents();
+  }
+
+  /** @return number of published events not yet handled by the slowest handler */
+  public long backlog() {
+    return Math.max(0, claimed.get() - minimumHandledSequence());
+  }
+
+  /** Stops accepting events, lets every handler finish all published events and stops them. */
+  @Override
+  public void close() {
+    closed = true;
+    waitStrategy.signal();
+
+    for (var consumer : consumers) {
+      if (!consumer.thread.isAlive()) {
+        continue;
+      }
+
+      try {
+        consumer.thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private long claim(int count) {
+    if (closed) {
+      throw new DomainException(
+          ERR.EVENT_BUS_CLOSED.parameters(Parameter.of("bus", getClass().getSimpleName())));
+    }
+    Arguments.within("events", count, 1, slots.length);
+
+    var last = claimed.addAndGet(count);
+    var wrapPoint = last - slots.length;
+
+    if (wrapPoint > cachedGatingSequence) {
+      long gatingSequence;
+
+      while (wrapPoint > (gatingSequence = minimumHandledSequence())) {
+        LockSupport.parkNanos(1);
+      }
+
+      cachedGatingSequence = gatingSequence;
+    }
+
+    return last;
+  }
+
+  private long minimumHandledSequence() {
+    var minimum = consumers.isEmpty() ? claimed.get() : Long.MAX_VALUE;
+
+    for (var consumer : consumers) {
+      minimum = Math.min(minimum, consumer.sequence.get());
+    }
+
+    return minimum;
+  }
+
+  private void store(long sequence, M event) {
+    handled.set(index(sequence), 0);
+    slots[index(sequence)] = event;
+  }
+
+  private void markPublished(long sequence) {
+    published.set(index(sequence), (int) (sequence >>> indexShift));
+  }
+
+  private boolean isPublished(long sequence) {
+    return published.get(index(sequence)) == (int) (sequence >>> indexShift);
+  }
+
+  private int index(long sequence) {
+    return (int) sequence & mask;
+  }
+
+  private final class Consumer {
+    private final EventHandler<? super M> handler;
+    private final AtomicLong sequence = new AtomicLong(-1);
+    private final Thread thread;
+
+    private Consumer(EventHandler<? super M> handler, int number) {
+      this.handler = handler;
+      this.thread = new Thread(this::run, "domain-event-handler-" + number);
+      this.thread.setDaemon(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void run() {
+      var attempt = 0;
+
+      while (true) {
+        var next = sequence.get() + 1;
+
+        if (!isPublished(next)) {
+          if (closed && next > claimed.get()) {
+            return;
+          }
+
+          try {
+            waitStrategy.idle(attempt++);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+
+          continue;
+        }
+
+        var available = next;
+        var highest = claimed.get();
+        while (available < highest && isPublished(available + 1)) {
+          available++;
+        }
+
+        for (var current = next; current <= available; current++) {
+          var index = index(current);
+
+          try {
+            handler.onEvent((M) slots[index], current, current == available);
+          } catch (Throwable e) {
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+          }
+
+          if (handled.incrementAndGet(index) == consumerCount) {
+            slots[index] = null;
+          }
+        }
+
+        sequence.set(available);
+        attempt = 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,324 @@
+package com.sclable.domain.event;
+
+import com.sclable.domain.Arguments;
+import com.sclable.domain.DomainEventMessage;
+import com.sclable.domain.DomainObject;
+import com.sclable.domain.codec.SpillFile;
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import jakarta.validation.constraints.NotNull;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link Flow.Publisher} of domain events honoring the demand of each subscriber. Every subscriber
+ * has a bounded buffer; events are delivered on an executor only as far as the subscriber
+ * requested them, with all events available for a {@code request(n)} delivered in one task. What
+ * happens when a buffer is full is decided by the {@link OverflowStrategy}: {@link
+ * OverflowStrategy#SPILL} keeps publishers at full speed and the heap bounded by moving the
+ * overflow to a temporary file, {@link OverflowStrategy#DROP} discards it and {@link
+ * OverflowStrategy#BLOCK} makes publishers wait for the slowest subscriber.
+ *
+ * <p>Spilled events are encoded by a {@link com.sclable.domain.codec.StateCodec}, so they have to
+ * be supported by it. Subscribers receive events in publication order. {@link #close()} completes
+ * every subscriber after it received its remaining events.
+ *
+ * @example var publisher = new DomainEventPublisher<>(); publisher.subscribe(projection);
+ *     publisher.publishFrom(order);
+ */
+public class DomainEventPublisher<M extends DomainEventMessage>
+    implements Flow.Publisher<M>, AutoCloseable {
+  public static final int DEFAULT_BUFFER_SIZE = Flow.defaultBufferSize();
+
+  private final Executor executor;
+  private final int bufferSize;
+  private final OverflowStrategy overflowStrategy;
+  private final Path spillDirectory;
+  private final List<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+  private final LongAdder dropped = new LongAdder();
+  private volatile boolean closed;
+
+  public DomainEventPublisher() {
+    this(ForkJoinPool.commonPool(), DEFAULT_BUFFER_SIZE, OverflowStrategy.SPILL);
+  }
+
+  public DomainEventPublisher(
+      @NotNull Executor executor, int bufferSize, @NotNull OverflowStrategy overflowStrategy) {
+    this(
+        executor, bufferSize, overflowStrategy, Path.of(System.getProperty("java.io.tmpdir")));
+  }
+
+  /**
+   * @param executor executor subscribers receive their events on
+   * @param bufferSize maximum number of events kept in memory per subscriber
+   * @param overflowStrategy what happens to events published to a full buffer
+   * @param spillDirectory directory of the temporary files of {@link OverflowStrategy#SPILL}
+   */
+  public DomainEventPublisher(
+      @NotNull Executor executor,
+      int bufferSize,
+      @NotNull OverflowStrategy overflowStrategy,
+      @NotNull Path spillDirectory) {
+    this.executor = executor;
+    this.bufferSize = Arguments.positive("bufferSize", bufferSize);
+    this.overflowStrategy = overflowStrategy;
+    this.spillDirectory = spillDirectory;
+  }
+
+  /** Subscribes to all events published from now on; a closed publisher completes immediately. */
+  @Override
+  public void subscribe(@NotNull Flow.Subscriber<? super M> subscriber) {
+    var subscription = new BufferedSubscription(subscriber);
+    subscriptions.add(subscription);
+    subscriber.onSubscribe(subscription);
+
+    if (closed) {
+      subscription.complete();
+    }
+  }
+
+  public void publish(@NotNull M event) {
+    ensureOpen();
+    subscriptions.forEach(subscription -> subscription.offer(event));
+  }
+
+  public void publishAll(@NotNull List<? extends M> events) {
+    ensureOpen();
+    subscriptions.forEach(subscription -> events.forEach(subscription::offer));
+  }
+
+  /** Publishes the events collected by a domain object and clears them. */
+  public void publishFrom(@NotNull DomainObject<?, ? extends M> source) {
+    publishAll(source.getDomainEvents());
+    source.clearDomainEvents();
+  }
+
+  /** @return number of current subscribers */
+  public int getSubscriberCount() {
+    return subscriptions.size();
+  }
+
+  /** @return number of events discarded by {@link OverflowStrategy#DROP} over all subscribers */
+  public long getDropped() {
+    return dropped.sum();
+  }
+
+  /** Stops accepting events and completes every subscriber after its remaining events. */
+  @Override
+  public void close() {
+    closed = true;
+    subscriptions.forEach(BufferedSubscription::complete);
+  }
+
+  private void ensureOpen() {
+    if (closed) {
+      throw new DomainException(
+          ERR.EVENT_BUS_CLOSED.parameters(Parameter.of("bus", getClass().getSimpleName())));
+    }
+  }
+
+  private final class BufferedSubscription implements Flow.Subscription {
+    private final Flow.Subscriber<? super M> subscriber;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<M> buffer = new ArrayDeque<>();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger work = new AtomicInteger();
+    private SpillFile<M> spill;
+    private volatile Throwable error;
+    private volatile boolean completing;
+    private volatile boolean terminated;
+
+    private BufferedSubscription(Flow.Subscriber<? super M> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        fail(new IllegalArgumentException("Requested " + n + " events, must be positive"));
+        return;
+      }
+
+      demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      terminated = true;
+      subscriptions.remove(this);
+      schedule();
+    }
+
+    private void offer(M event) {
+      lock.lock();
+
+      try {
+        if (overflowStrategy == OverflowStrategy.BLOCK) {
+          while (buffer.size() >= bufferSize && !terminated) {
+            notFull.awaitUninterruptibly();
+          }
+        }
+
+        if (terminated) {
+          return;
+        } else if (spill != null && !spill.isEmpty()) {
+          spill.append(event);
+        } else if (buffer.size() < bufferSize) {
+          buffer.add(event);
+        } else if (overflowStrategy == OverflowStrategy.SPILL) {
+          spill().append(event);
+        } else {
+          dropped.increment();
+        }
+      } finally {
+        lock.unlock();
+      }
+
+      schedule();
+    }
+
+    private void complete() {
+      completing = true;
+      schedule();
+    }
+
+    private void schedule() {
+      if (work.getAndIncrement() == 0) {
+        executor.execute(this::drain);
+      }
+    }
+
+    /**
+     * Delivers as many events as requested and signals errors and completion; runs on one executor
+     * thread at a time, so the subscriber is never called concurrently.
+     */
+    private void drain() {
+      try {
+        for (var missed = 1; missed != 0; missed = work.addAndGet(-missed)) {
+          if (error != null && !terminated) {
+            terminate();
+            subscriber.onError(error);
+          }
+          if (terminated) {
+            release();
+            continue;
+          }
+
+          for (var batch = take(demand.get()); !batch.isEmpty(); batch = take(demand.get())) {
+            for (var event : batch) {
+              if (terminated || error != null) {
+                break;
+              }
+
+              try {
+                subscriber.onNext(event);
+              } catch (Throwable e) {
+                fail(e);
+              }
+            }
+
+            demand.addAndGet(-batch.size());
+          }
+
+          if (completing && !terminated && error == null && isEmpty()) {
+            terminate();
+            subscriber.onComplete();
+          }
+        }
+      } catch (Throwable e) {
+        terminate();
+        work.set(0);
+        throw e;
+      }
+    }
+
+    /** Takes at most one buffer of events and refills the buffer from the spill file. */
+    private List<M> take(long requested) {
+      if (requested <= 0 || terminated || error != null) {
+        return List.of();
+      }
+
+      lock.lock();
+
+      try {
+        var count = (int) Math.min(requested, buffer.size());
+        var batch = new ArrayList<M>(count);
+        for (var i = 0; i < count; i++) {
+          batch.add(buffer.poll());
+        }
+        while (spill != null && !spill.isEmpty() && buffer.size() < bufferSize) {
+          buffer.add(spill.poll());
+        }
+
+        notFull.signalAll();
+        return batch;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private boolean isEmpty() {
+      lock.lock();
+
+      try {
+        return buffer.isEmpty() && (spill == null || spill.isEmpty());
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private SpillFile<M> spill() {
+      if (spill == null) {
+        spill = new SpillFile<>(spillDirectory);
+      }
+
+      return spill;
+    }
+
+    /** Records the error, {@link #drain()} signals it to the subscriber. */
+    private void fail(Throwable error) {
+      if (this.error == null) {
+        this.error = error;
+      }
+
+      schedule();
+    }
+
+    private void terminate() {
+      terminated = true;
+      subscriptions.remove(this);
+      release();
+    }
+
+    private void release() {
+      lock.lock();
+
+      try {
+        buffer.clear();
+        if (spill != null) {
+          spill.close();
+          spill = null;
+        }
+
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.sclable.domain.event;
+
+import com.sclable.domain.DomainEventMessage;
+
+/**
+ * Consumer of a {@link DomainEventBus}. Each handler runs on its own thread and receives every
+ * event in publication order. Events become available in batches; {@code endOfBatch} marks the
+ * last event currently available, which is the natural point to flush buffered work.
+ *
+ * @param <M> event type
+ */
+@FunctionalInterface
+public interface EventHandler<M extends DomainEventMessage> {
+  void onEvent(M event, long sequence, boolean endOfBatch) throws Exception;
+}
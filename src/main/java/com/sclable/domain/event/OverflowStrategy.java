@@ -0,0 +1,11 @@
+package com.sclable.domain.event;
+
+/** Decides what a {@link DomainEventPublisher} does when the buffer of a subscriber is full. */
+public enum OverflowStrategy {
+  /** Discards the event for that subscriber, see {@link DomainEventPublisher#getDropped()}. */
+  DROP,
+  /** Makes the publishing thread wait until the subscriber requested and received older events. */
+  BLOCK,
+  /** Appends the event to a temporary file, which the subscriber drains after the buffer. */
+  SPILL
+}
@@ -0,0 +1,91 @@
+package com.sclable.domain.event;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides how an {@link EventHandler} thread waits for the next event, trading latency against
+ * CPU usage.
+ */
+public interface WaitStrategy {
+  /**
+   * Called repeatedly while no event is available.
+   *
+   * @param attempt number of unsuccessful checks since the last event was handled
+   */
+  void idle(int attempt) throws InterruptedException;
+
+  /** Called by publishers after new events became available. */
+  default void signal() {}
+
+  /** Lowest latency, keeps one core per handler busy. */
+  static WaitStrategy busySpin() {
+    return attempt -> Thread.onSpinWait();
+  }
+
+  /** Spins briefly and then yields the core to other threads. */
+  static WaitStrategy yielding() {
+    return attempt -> {
+      if (attempt < 100) {
+        Thread.onSpinWait();
+      } else {
+        Thread.yield();
+      }
+    };
+  }
+
+  /** Spins, yields and finally parks for {@code parkTime} between checks. */
+  static WaitStrategy sleeping(Duration parkTime) {
+    var parkNanos = parkTime.toNanos();
+
+    return attempt -> {
+      if (attempt < 100) {
+        Thread.onSpinWait();
+      } else if (attempt < 200) {
+        Thread.yield();
+      } else {
+        LockSupport.parkNanos(parkNanos);
+      }
+    };
+  }
+
+  /** Blocks idle handlers on a condition, lowest CPU usage at the cost of a wake-up per signal. */
+  static WaitStrategy blocking() {
+    return new WaitStrategy() {
+      private final ReentrantLock lock = new ReentrantLock();
+      private final Condition available = lock.newCondition();
+      private final AtomicInteger waiting = new AtomicInteger();
+
+      @Override
+      public void idle(int attempt) throws InterruptedException {
+        lock.lock();
+        waiting.incrementAndGet();
+
+        try {
+          // bounded wait, a signal racing with the availability check only delays by one period
+          available.await(1, TimeUnit.MILLISECONDS);
+        } finally {
+          waiting.decrementAndGet();
+          lock.unlock();
+        }
+      }
+
+      @Override
+      public void signal() {
+        if (waiting.get() > 0) {
+          lock.lock();
+
+          try {
+            available.signalAll();
+          } finally {
+            lock.unlock();
+          }
+        }
+      }
+    };
+  }
+}
@@ -115,7 +115,34 @@ public class DomainException extends RuntimeException {
     AMBIGUOUS_ENTITIES_FOUND("Multiple entities found for a relation with cardinality 1"),
     RETRIEVE_CACHE_KEY_FAILED("Cannot retrieve cache key."),
     RETRIEVE_CACHED_AGGREGATE_FAILED("Cannot retrieve cached aggregate."),
-    CACHE_KEY_MISSING("Cannot retrieve cached objects without a cache key.");
+    CACHE_KEY_MISSING("Cannot retrieve cached objects without a cache key."),
+
+    // REPOSITORY
+    REPOSITORY_CLOSED("Repository {0} is closed"),
+    ARGUMENT_OUT_OF_BOUNDS("Argument {0}={1} must be within {2} and {3}"),
+    INDEX_KEY_NOT_UNIQUE("Index {0} already contains key {1} for aggregate id={2}"),
+    INDEX_NOT_REGISTERED("Index {0} is not registered"),
+    INDEX_NOT_SORTED("Index {0} does not support range queries"),
+    STORAGE_FAILED("Storage {0} failed to {1}"),
+
+    // CONCURRENCY
+    LOCK_TIMEOUT("Aggregates {0} could not be locked within {1}"),
+    LOCK_INTERRUPTED("Interrupted while locking aggregates {0}"),
+    LOCK_UPGRADE("Aggregates {0} cannot be write locked by a thread holding a read lock on them"),
+    COMMAND_ENGINE_CLOSED("Command engine {0} is closed"),
+    COMMAND_QUEUE_FULL("Command queue of partition {0} is full with {1} commands"),
+
+    // EVENTS
+    EVENT_BUS_STARTED("Event bus {0} is already started"),
+    EVENT_BUS_CLOSED("Event bus {0} is closed"),
+    PROJECTION_FAILED("Projection {0} failed to handle events up to position {1}"),
+    CHECKPOINT_NAME_INVALID("Checkpoint name \"{0}\" must not be blank or contain a path"),
+    OUTBOX_CLOSED("Outbox {0} is closed"),
+
+    // CODEC
+    CODEC_NOT_REGISTERED("No codec is registered for {0}"),
+    CODEC_ALREADY_REGISTERED("A codec is already registered for {0}"),
+    CODEC_MALFORMED_INPUT("Encoded {0} is malformed: {1}");
 
     private final String message;
 
@@ -0,0 +1,510 @@
+package com.sclable.domain.outbox;
+
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.Arguments;
+import com.sclable.domain.DomainEventMessage;
+import com.sclable.domain.DomainObject;
+import com.sclable.domain.codec.BinaryReader;
+import com.sclable.domain.codec.BinaryWriter;
+import com.sclable.domain.codec.EventCodec;
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import com.sclable.domain.projection.FileCheckpointStore;
+import jakarta.validation.constraints.NotNull;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox making sure that the domain events of saved aggregates are published, and
+ * only those. {@link #record(String, List, Supplier)} appends the events collected by the
+ * aggregates to a local append-only journal and forces it to the device before the save runs. A
+ * commit marker follows a successful save, an abort marker a failed one, and only committed events
+ * are relayed. Concurrent records share their fsync, so throughput is bound by the bandwidth of the
+ * device rather than its latency.
+ *
+ * <p>A relay drains committed events in batches to the subscribers, in the background after {@link
+ * #start(Duration)} or on each call of {@link #relay()}. Its position is checkpointed after every
+ * delivered batch. A batch whose delivery failed is delivered again, as are batches delivered
+ * shortly before a crash; delivery is at least once and subscribers should deduplicate by {@link
+ * OutboxEntry#getEventId()}.
+ *
+ * <p>If the process dies between writing the events and the marker, the outcome of the save is
+ * unknown on restart. The same holds in-process if the marker cannot be written. Such events are
+ * held back until {@link #resolve(String, Predicate)} tells for each aggregate whether it was
+ * saved; {@link com.sclable.domain.repository.OutboxAggregateRepository} does that by comparing
+ * the stored aggregate with the recorded version and fingerprint.
+ *
+ * @example var outbox = new Outbox(Path.of("data/outbox"), eventCodec);
+ *     outbox.subscribe(broker::send); outbox.start(Duration.ofMillis(20));
+ *     outbox.record("orders", List.of(order), () -> orders.save(order));
+ */
+public class Outbox implements AutoCloseable {
+  public static final int DEFAULT_BATCH_SIZE = 1_000;
+  public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+  static final String CHECKPOINT = "outbox-relay";
+  private static final int INTENT = 1;
+  private static final int COMMIT = 2;
+  private static final int ABORT = 3;
+  private static final int READ_SIZE = 1024 * 1024;
+
+  private final OutboxJournal journal;
+  private final FileCheckpointStore checkpoints;
+  private final EventCodec codec;
+  private final int batchSize;
+  private final List<Consumer<List<OutboxEntry>>> subscribers = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<BinaryWriter> writers = ThreadLocal.withInitial(BinaryWriter::new);
+  private final Map<Long, Intent> orphans = new LinkedHashMap<>();
+  private final TreeMap<Long, Intent> pending = new TreeMap<>();
+  private final ArrayDeque<Committed> ready = new ArrayDeque<>();
+  private int readyEntries;
+  private long scanned;
+  private long checkpoint;
+  private volatile Thread relayThread;
+  private volatile boolean closed;
+
+  public Outbox(@NotNull Path directory, @NotNull EventCodec codec) {
+    this(directory, codec, DEFAULT_BATCH_SIZE, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * @param directory directory of the journal and the relay checkpoint, created if missing
+   * @param codec codec of the recorded domain event messages
+   * @param batchSize maximum number of events passed to the subscribers at once, batches of one
+   *     save are never split
+   * @param segmentSize size in bytes after which the journal continues in a new file; files whose
+   *     events were all relayed are deleted
+   */
+  public Outbox(
+      @NotNull Path directory, @NotNull EventCodec codec, int batchSize, long segmentSize) {
+    this.batchSize = Arguments.positive("batchSize", batchSize);
+    this.journal = new OutboxJournal(directory, segmentSize);
+    this.checkpoints = new FileCheckpointStore(directory);
+    this.codec = codec;
+    this.checkpoint =
+        Math.min(Math.max(checkpoints.load(CHECKPOINT), journal.start()), journal.end());
+    this.scanned = checkpoint;
+
+    findOrphans();
+  }
+
+  /** Registers a subscriber receiving all committed events relayed from now on. */
+  public void subscribe(@NotNull Consumer<List<OutboxEntry>> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  /**
+   * Records the domain events of the aggregates durably, runs the save and publishes the events
+   * only if it succeeded. The events of the aggregates are cleared afterwards.
+   *
+   * @param source name of the aggregate type, used to {@link #resolve(String, Predicate) resolve}
+   *     records interrupted by a crash or a failed marker
+   * @param aggregateRoots aggregates whose collected events are recorded
+   * @param save saves the aggregates
+   * @return result of the save
+   */
+  public <T> T record(
+      @NotNull String source,
+      @NotNull List<? extends AggregateRoot<?>> aggregateRoots,
+      @NotNull Supplier<T> save) {
+    var sources =
+        aggregateRoots.stream()
+            .filter(aggregateRoot -> aggregateRoot instanceof DomainObject)
+            .filter(aggregateRoot -> hasDomainEvents((DomainObject<?, ?>) aggregateRoot))
+            .collect(Collectors.toList());
+
+    if (sources.isEmpty()) {
+      return save.get();
+    }
+
+    var intent = prepare(source, sources);
+    T result;
+
+    try {
+      result = save.get();
+    } catch (RuntimeException | Error e) {
+      try {
+        completeOrHoldBack(intent, List.of());
+      } catch (RuntimeException | Error markerFailure) {
+        e.addSuppressed(markerFailure);
+      }
+      throw e;
+    }
+
+    var groups = new ArrayList<Integer>();
+    for (var i = 0; i < sources.size(); i++) {
+      groups.add(i);
+    }
+
+    completeOrHoldBack(intent, groups);
+    sources.forEach(aggregateRoot -> ((DomainObject<?, ?>) aggregateRoot).clearDomainEvents());
+
+    return result;
+  }
+
+  /**
+   * Decides the outcome of the records of {@code source} interrupted by a crash or whose marker
+   * could not be written, whose events are held back until then. A record whose marker fails
+   * again stays unresolved.
+   *
+   * @param saved tells whether the aggregate was saved in the recorded state
+   * @return number of resolved records
+   */
+  public synchronized int resolve(
+      @NotNull String source, @NotNull Predicate<UnresolvedSave> saved) {
+    var resolved = 0;
+
+    for (var iterator = orphans.values().iterator(); iterator.hasNext(); ) {
+      var intent = iterator.next();
+      if (!intent.source.equals(source)) {
+        continue;
+      }
+
+      var groups = new ArrayList<Integer>();
+      for (var i = 0; i < intent.aggregateIds.length; i++) {
+        var save =
+            new UnresolvedSave(intent.aggregateIds[i], intent.versions[i], intent.fingerprints[i]);
+
+        if (saved.test(save)) {
+          groups.add(i);
+        }
+      }
+
+      complete(intent.position, groups);
+      iterator.remove();
+      resolved++;
+    }
+
+    return resolved;
+  }
+
+  /** @return number of records interrupted by a crash or a failed marker not resolved yet */
+  public synchronized int unresolved() {
+    return orphans.size();
+  }
+
+  /**
+   * Delivers the next batch of committed events to all subscribers.
+   *
+   * @return number of delivered events, 0 if there were none
+   * @throws RuntimeException thrown by a subscriber, the batch is delivered again by the next call
+   */
+  public synchronized int relay() {
+    if (readyEntries < batchSize) {
+      scan();
+    }
+
+    var batch = new ArrayList<OutboxEntry>();
+    var batches = 0;
+
+    for (var committed : ready) {
+      if (!batch.isEmpty() && batch.size() + committed.entries.size() > batchSize) {
+        break;
+      }
+
+      batch.addAll(committed.entries);
+      batches++;
+    }
+
+    if (!batch.isEmpty()) {
+      var entries = Collections.unmodifiableList(batch);
+      subscribers.forEach(subscriber -> subscriber.accept(entries));
+    }
+
+    for (var i = 0; i < batches; i++) {
+      readyEntries -= ready.poll().entries.size();
+    }
+    advanceCheckpoint();
+
+    return batch.size();
+  }
+
+  /**
+   * Starts relaying in the background.
+   *
+   * @param pollInterval pause when there are no events or a delivery failed
+   */
+  public synchronized void start(@NotNull Duration pollInterval) {
+    ensureOpen();
+
+    if (relayThread == null) {
+      relayThread = new Thread(() -> run(pollInterval.toNanos()), "outbox-relay");
+      relayThread.setDaemon(true);
+      relayThread.start();
+    }
+  }
+
+  /** Stops the relay and closes the journal. Events recorded but not relayed are kept. */
+  @Override
+  public void close() {
+    closed = true;
+
+    var thread = relayThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    synchronized (this) {
+      journal.close();
+    }
+  }
+
+  /** Appends and forces the events of the aggregates. */
+  Intent prepare(String source, List<? extends AggregateRoot<?>> aggregateRoots) {
+    ensureOpen();
+
+    var out = writers.get().reset();
+    var intent = new Intent(-1, source, aggregateRoots.size());
+    out.writeByte(INTENT).writeString(source).writeVarInt(aggregateRoots.size());
+
+    for (var i = 0; i < aggregateRoots.size(); i++) {
+      var aggregateRoot = aggregateRoots.get(i);
+      var events = ((DomainObject<?, ?>) aggregateRoot).getDomainEvents();
+      intent.aggregateIds[i] = aggregateRoot.getId().getId();
+      intent.versions[i] = aggregateRoot.getVersion();
+      intent.fingerprints[i] = aggregateRoot.fingerprint();
+
+      out.writeUuid(intent.aggregateIds[i]).writeVarLong(intent.versions[i]);
+      out.writeLong(intent.fingerprints[i]).writeVarInt(events.size());
+    }
+    for (var aggregateRoot : aggregateRoots) {
+      for (var event : ((DomainObject<?, ?>) aggregateRoot).getDomainEvents()) {
+        out.writeUuid(newEventId());
+        codec.encode(event, out);
+      }
+    }
+
+    intent.position = journal.append(out.toByteArray(), true);
+    return intent;
+  }
+
+  /**
+   * Appends the marker of a record. If that fails, the record is held back like one interrupted by
+   * a crash, so it can be resolved in-process instead of blocking the relay checkpoint.
+   */
+  private void completeOrHoldBack(Intent intent, List<Integer> groups) {
+    try {
+      complete(intent.position, groups);
+    } catch (RuntimeException | Error e) {
+      synchronized (this) {
+        orphans.put(intent.position, intent);
+      }
+      throw e;
+    }
+  }
+
+  /** Appends the commit marker for the given aggregates or the abort marker if there are none. */
+  void complete(long intent, List<Integer> groups) {
+    var out = writers.get().reset();
+
+    if (groups.isEmpty()) {
+      out.writeByte(ABORT).writeVarLong(intent);
+    } else {
+      out.writeByte(COMMIT).writeVarLong(intent).writeVarInt(groups.size());
+      groups.forEach(out::writeVarInt);
+    }
+
+    journal.append(out.toByteArray(), false);
+
+    var thread = relayThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  private void run(long pollIntervalNanos) {
+    while (!closed) {
+      try {
+        if (relay() == 0) {
+          LockSupport.parkNanos(pollIntervalNanos);
+        }
+      } catch (RuntimeException e) {
+        LockSupport.parkNanos(pollIntervalNanos);
+      }
+    }
+  }
+
+  private void findOrphans() {
+    var intents = new LinkedHashMap<Long, Intent>();
+
+    for (var position = checkpoint; position < journal.end(); ) {
+      var records = journal.read(position, READ_SIZE);
+      if (records.isEmpty()) {
+        break;
+      }
+
+      for (var record : records) {
+        var in = new BinaryReader(record.buffer, record.offset, record.length);
+
+        if (in.readByte() == INTENT) {
+          intents.put(record.position, readIntent(record.position, in, false));
+        } else {
+          intents.remove(in.readVarLong());
+        }
+        position = record.next;
+      }
+    }
+
+    orphans.putAll(intents);
+  }
+
+  /**
+   * Applies the records after {@code scanned}. Commit markers are appended without waiting for the
+   * device, so they are forced first: a marker lost on power failure must not have been relayed.
+   */
+  private void scan() {
+    var durable = journal.force();
+
+    while (readyEntries < batchSize && scanned < durable) {
+      var records = journal.read(scanned, READ_SIZE);
+      if (records.isEmpty()) {
+        return;
+      }
+
+      for (var record : records) {
+        if (record.next > durable) {
+          return;
+        }
+
+        apply(record);
+        scanned = record.next;
+      }
+    }
+  }
+
+  private void apply(OutboxJournal.Record record) {
+    var in = new BinaryReader(record.buffer, record.offset, record.length);
+    var type = in.readByte();
+
+    if (type == INTENT) {
+      pending.put(record.position, readIntent(record.position, in, true));
+      return;
+    }
+
+    var intent = pending.remove(in.readVarLong());
+    if (type != COMMIT || intent == null) {
+      return;
+    }
+
+    var entries = new ArrayList<OutboxEntry>();
+    for (var groups = in.readVarInt(); groups > 0; groups--) {
+      entries.addAll(intent.entries.get(in.readVarInt()));
+    }
+
+    ready.add(new Committed(intent.position, entries));
+    readyEntries += entries.size();
+  }
+
+  private Intent readIntent(long position, BinaryReader in, boolean withEvents) {
+    var source = in.readString();
+    var groups = in.readVarInt();
+    var intent = new Intent(position, source, groups);
+    var counts = new int[groups];
+
+    for (var i = 0; i < groups; i++) {
+      intent.aggregateIds[i] = in.readUuid();
+      intent.versions[i] = in.readVarLong();
+      intent.fingerprints[i] = in.readLong();
+      counts[i] = in.readVarInt();
+    }
+
+    if (withEvents) {
+      for (var i = 0; i < groups; i++) {
+        var entries = new ArrayList<OutboxEntry>(counts[i]);
+        for (var j = 0; j < counts[i]; j++) {
+          var eventId = in.readUuid();
+          DomainEventMessage message = codec.decodeMessage(in);
+          entries.add(new OutboxEntry(eventId, intent.aggregateIds[i], message));
+        }
+        intent.entries.add(entries);
+      }
+    }
+
+    return intent;
+  }
+
+  private void advanceCheckpoint() {
+    var position = Math.min(scanned, journal.durable());
+
+    if (!pending.isEmpty()) {
+      position = Math.min(position, pending.firstKey());
+    }
+    for (var committed : ready) {
+      position = Math.min(position, committed.intent);
+    }
+
+    if (position > checkpoint) {
+      checkpoints.store(CHECKPOINT, position);
+      checkpoint = position;
+      journal.deleteBefore(position);
+    }
+  }
+
+  private void ensureOpen() {
+    if (closed) {
+      throw new DomainException(
+          ERR.OUTBOX_CLOSED.parameters(Parameter.of("outbox", getClass().getSimpleName())));
+    }
+  }
+
+  private static boolean hasDomainEvents(DomainObject<?, ?> domainObject) {
+    return !domainObject.getDomainEvents().isEmpty();
+  }
+
+  private static UUID newEventId() {
+    var random = ThreadLocalRandom.current();
+    var mostSignificant = (random.nextLong() & ~0xF000L) | 0x4000L;
+    var leastSignificant = (random.nextLong() & ~(0xCL << 60)) | (0x8L << 60);
+
+    return new UUID(mostSignificant, leastSignificant);
+  }
+
+  static final class Intent {
+    private long position;
+    private final String source;
+    private final UUID[] aggregateIds;
+    private final long[] versions;
+    private final long[] fingerprints;
+    private final List<List<OutboxEntry>> entries = new ArrayList<>();
+
+    private Intent(long position, String source, int groups) {
+      this.position = position;
+      this.source = source;
+      this.aggregateIds = new UUID[groups];
+      this.versions = new long[groups];
+      this.fingerprints = new long[groups];
+    }
+  }
+
+  private static final class Committed {
+    private final long intent;
+    private final List<OutboxEntry> entries;
+
+    private Committed(long intent, List<OutboxEntry> entries) {
+      this.intent = intent;
+      this.entries = entries;
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.sclable.domain.outbox;
+
+import com.sclable.domain.DomainEventMessage;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/** Domain event relayed by an {@link Outbox} with an id that stays the same on redelivery. */
+@Getter
+@AllArgsConstructor
+public class OutboxEntry {
+  private final UUID eventId;
+  private final UUID aggregateId;
+  private final DomainEventMessage message;
+}
@@ -0,0 +1,362 @@
+package com.sclable.domain.outbox;
+
+import com.sclable.domain.StorageErrors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of checksummed records split into segment files. Positions are logical
+ * offsets over all segments, each segment is named after the position of its first record.
+ * Appends that have to be durable share their fsync with concurrent appends (group commit).
+ */
+final class OutboxJournal implements AutoCloseable {
+  static final String SUFFIX = ".journal";
+  private static final int HEADER_SIZE = 8;
+
+  private final Path directory;
+  private final long segmentSize;
+  private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+  private final ReentrantLock appendLock = new ReentrantLock();
+  private final Object syncLock = new Object();
+  private final CRC32 appendChecksum = new CRC32();
+  private ByteBuffer appendBuffer = ByteBuffer.allocate(4096);
+  private volatile long end;
+  private long durable;
+
+  OutboxJournal(Path directory, long segmentSize) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+
+    try {
+      Files.createDirectories(directory);
+
+      List<Path> files;
+      try (var listing = Files.list(directory)) {
+        files =
+            listing
+                .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                .collect(Collectors.toList());
+      }
+      for (var file : files) {
+        var name = file.getFileName().toString();
+        var base = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        segments.put(base, open(file, base));
+      }
+
+      if (segments.isEmpty()) {
+        segments.put(0L, open(fileOf(0), 0));
+      }
+
+      recover(segments.lastEntry().getValue());
+      end = segments.lastEntry().getValue().end();
+      durable = end;
+    } catch (IOException | NumberFormatException e) {
+      throw StorageErrors.failed(directory, "open journal", e);
+    }
+  }
+
+  /** @return position after the last complete record */
+  long end() {
+    return end;
+  }
+
+  /** @return position up to which all records are on the device */
+  long durable() {
+    synchronized (syncLock) {
+      return durable;
+    }
+  }
+
+  /**
+   * Forces all records appended so far to the device, sharing the fsync with concurrent appends.
+   *
+   * @return position up to which all records are on the device, at least the end before the call
+   */
+  long force() {
+    sync(end);
+
+    return durable();
+  }
+
+  /** @return position of the first record still kept */
+  long start() {
+    return segments.firstKey();
+  }
+
+  /**
+   * Appends a record.
+   *
+   * @param sync wait until the record and all records before it are on the device
+   * @return position of the record
+   */
+  long append(byte[] body, boolean sync) {
+    long position;
+    long recordEnd;
+
+    appendLock.lock();
+    try {
+      var segment = segments.lastEntry().getValue();
+      if (segment.size >= segmentSize) {
+        segment = roll(segment);
+      }
+
+      appendChecksum.reset();
+      appendChecksum.update(body);
+
+      var buffer = bufferOf(HEADER_SIZE + body.length);
+      buffer.putInt(body.length).putInt((int) appendChecksum.getValue()).put(body).flip();
+      while (buffer.hasRemaining()) {
+        segment.channel.write(buffer, segment.size + buffer.position());
+      }
+
+      position = segment.base + segment.size;
+      segment.size += HEADER_SIZE + body.length;
+      recordEnd = segment.end();
+      end = recordEnd;
+    } catch (IOException e) {
+      throw StorageErrors.failed(directory, "append", e);
+    } finally {
+      appendLock.unlock();
+    }
+
+    if (sync) {
+      sync(recordEnd);
+    }
+
+    return position;
+  }
+
+  /**
+   * Reads the complete records after {@code from}, at most about {@code maxBytes} unless a single
+   * record is larger. Records of the next segment are returned by the next call.
+   */
+  List<Record> read(long from, int maxBytes) {
+    var entry = segments.floorEntry(from);
+    if (entry == null) {
+      throw StorageErrors.failed(
+          directory, "read position " + from + " before the journal start", null);
+    }
+
+    var segment = entry.getValue();
+    var limit = Math.min(end, segment.end());
+    if (from >= limit) {
+      var next = segments.higherEntry(segment.base);
+      return next == null || from < segment.end() ? List.of() : read(next.getKey(), maxBytes);
+    }
+
+    var offset = from - segment.base;
+    var chunk = ByteBuffer.allocate((int) Math.min(maxBytes, limit - from));
+    var records = new ArrayList<Record>();
+    var checksum = new CRC32();
+
+    try {
+      readFully(segment.channel, chunk, offset);
+
+      while (chunk.remaining() >= HEADER_SIZE) {
+        var start = chunk.position();
+        var length = chunk.getInt(start);
+        var stored = chunk.getInt(start + 4);
+
+        if (chunk.remaining() < HEADER_SIZE + length) {
+          if (records.isEmpty()) {
+            chunk = ByteBuffer.allocate(HEADER_SIZE + length);
+            readFully(segment.channel, chunk, offset);
+            continue;
+          }
+          break;
+        }
+
+        checksum.reset();
+        checksum.update(chunk.array(), start + HEADER_SIZE, length);
+        if ((int) checksum.getValue() != stored) {
+          throw StorageErrors.failed(directory, "read corrupted record at " + (from + start), null);
+        }
+
+        var position = from + start;
+        var next = position + HEADER_SIZE + length;
+        records.add(new Record(position, next, chunk.array(), start + HEADER_SIZE, length));
+        chunk.position(start + HEADER_SIZE + length);
+      }
+    } catch (IOException e) {
+      throw StorageErrors.failed(directory, "read", e);
+    }
+
+    return records;
+  }
+
+  /** Deletes the segments whose records all lie before {@code position}. */
+  void deleteBefore(long position) {
+    for (var segment : segments.values()) {
+      var next = segments.higherKey(segment.base);
+      if (next == null || next > position) {
+        return;
+      }
+
+      try {
+        segments.remove(segment.base);
+        segment.channel.close();
+        Files.deleteIfExists(segment.file);
+      } catch (IOException e) {
+        throw StorageErrors.failed(directory, "delete segment " + segment.file, e);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    for (var segment : segments.values()) {
+      try {
+        segment.channel.force(true);
+        segment.channel.close();
+      } catch (IOException e) {
+        throw StorageErrors.failed(directory, "close", e);
+      }
+    }
+  }
+
+  private void sync(long position) {
+    synchronized (syncLock) {
+      if (durable >= position) {
+        return;
+      }
+
+      var target = end;
+      var first = segments.floorKey(durable);
+
+      for (var segment : segments.tailMap(first == null ? start() : first).values()) {
+        try {
+          segment.channel.force(false);
+        } catch (ClosedChannelException e) {
+          // deleted after all of its records were relayed
+        } catch (IOException e) {
+          throw StorageErrors.failed(directory, "sync", e);
+        }
+      }
+
+      durable = target;
+    }
+  }
+
+  private Segment roll(Segment current) throws IOException {
+    current.channel.force(false);
+
+    var base = current.end();
+    var segment = open(fileOf(base), base);
+    segments.put(base, segment);
+
+    return segment;
+  }
+
+  private void recover(Segment segment) throws IOException {
+    var size = segment.channel.size();
+    var header = ByteBuffer.allocate(HEADER_SIZE);
+    var checksum = new CRC32();
+    var valid = 0L;
+
+    while (valid + HEADER_SIZE <= size) {
+      header.clear();
+      readFully(segment.channel, header, valid);
+      var length = header.getInt(0);
+
+      if (length < 0 || valid + HEADER_SIZE + length > size) {
+        break;
+      }
+
+      var body = ByteBuffer.allocate(length);
+      readFully(segment.channel, body, valid + HEADER_SIZE);
+      checksum.reset();
+      checksum.update(body.array());
+
+      if ((int) checksum.getValue() != header.getInt(4)) {
+        break;
+      }
+
+      valid += HEADER_SIZE + length;
+    }
+
+    if (valid < size) {
+      segment.channel.truncate(valid);
+      segment.channel.force(true);
+    }
+    segment.size = valid;
+  }
+
+  private ByteBuffer bufferOf(int size) {
+    if (appendBuffer.capacity() < size) {
+      appendBuffer = ByteBuffer.allocate(Math.max(size, appendBuffer.capacity() * 2));
+    }
+
+    return appendBuffer.clear();
+  }
+
+  private Segment open(Path file, long base) throws IOException {
+    var channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    return new Segment(file, base, channel, channel.size());
+  }
+
+  private Path fileOf(long base) {
+    return directory.resolve(String.format("%020d", base) + SUFFIX);
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long offset)
+      throws IOException {
+    buffer.clear();
+
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position()) < 0) {
+        throw new IOException("unexpected end of journal segment");
+      }
+    }
+
+    buffer.flip();
+  }
+
+  static final class Record {
+    final long position;
+    final long next;
+    final byte[] buffer;
+    final int offset;
+    final int length;
+
+    private Record(long position, long next, byte[] buffer, int offset, int length) {
+      this.position = position;
+      this.next = next;
+      this.buffer = buffer;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  private static final class Segment {
+    private final Path file;
+    private final long base;
+    private final FileChannel channel;
+    private volatile long size;
+
+    private Segment(Path file, long base, FileChannel channel, long size) {
+      this.file = file;
+      this.base = base;
+      this.channel = channel;
+      this.size = size;
+    }
+
+    private long end() {
+      return base + size;
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.sclable.domain.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Aggregate of a record whose save has an unknown outcome, passed to {@link
+ * Outbox#resolve(String, java.util.function.Predicate)}. Carries the version and the {@link
+ * com.sclable.domain.Entity#fingerprint() fingerprint} the aggregate had when its events were
+ * recorded, i.e. the state the save was about to store.
+ */
+@Getter
+@AllArgsConstructor
+public class UnresolvedSave {
+  private final UUID aggregateId;
+  private final long version;
+  private final long fingerprint;
+}
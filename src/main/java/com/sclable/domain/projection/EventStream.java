@@ -0,0 +1,17 @@
+package com.sclable.domain.projection;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/** Ordered, replayable source of events, e.g. an event store table or a log topic. */
+@FunctionalInterface
+public interface EventStream {
+  /**
+   * @param after position of the last event already read, -1 to read from the start
+   * @param limit maximum number of events to return
+   * @return events with a position greater than {@code after} in ascending position order
+   */
+  @NotNull
+  List<RecordedEvent> read(long after, int limit);
+}
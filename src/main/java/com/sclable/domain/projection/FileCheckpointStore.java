@@ -0,0 +1,86 @@
+package com.sclable.domain.projection;
+
+import com.sclable.domain.StorageErrors;
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import jakarta.validation.constraints.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Stores the position up to which a projection has handled a stream in one small file per
+ * projection. A checkpoint is written to a temporary file, forced to the device and atomically
+ * renamed, so a crash leaves either the old or the new checkpoint behind. Blank names and names
+ * containing a path are rejected with {@link ERR#CHECKPOINT_NAME_INVALID}.
+ */
+public class FileCheckpointStore {
+  static final String SUFFIX = ".checkpoint";
+
+  private final Path directory;
+
+  public FileCheckpointStore(@NotNull Path directory) {
+    this.directory = directory;
+
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw StorageErrors.failed(directory, "create checkpoint directory", e);
+    }
+  }
+
+  /** @return stored position or -1 if the projection has no checkpoint yet */
+  public long load(@NotNull String projection) {
+    var file = fileOf(projection);
+
+    if (!Files.exists(file)) {
+      return -1;
+    }
+
+    try {
+      return Long.parseLong(Files.readString(file, StandardCharsets.UTF_8).trim());
+    } catch (IOException | NumberFormatException e) {
+      throw StorageErrors.failed(file, "read checkpoint", e);
+    }
+  }
+
+  public void store(@NotNull String projection, long position) {
+    var file = fileOf(projection);
+    var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+    try (var channel =
+        FileChannel.open(
+            temporary,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(Long.toString(position).getBytes(StandardCharsets.UTF_8)));
+      channel.force(true);
+    } catch (IOException e) {
+      throw StorageErrors.failed(file, "write checkpoint", e);
+    }
+
+    try {
+      Files.move(
+          temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw StorageErrors.failed(file, "replace checkpoint", e);
+    }
+  }
+
+  private Path fileOf(String projection) {
+    if (projection.isBlank() || projection.indexOf('/') >= 0 || projection.indexOf('\\') >= 0) {
+      throw new DomainException(
+          ERR.CHECKPOINT_NAME_INVALID.parameters(Parameter.of("name", projection)));
+    }
+
+    return directory.resolve(projection + SUFFIX);
+  }
+}
@@ -0,0 +1,362 @@
+package com.sclable.domain.projection;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.Arguments;
+import com.sclable.domain.Projection;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import com.sclable.domain.exception.DomainException;
+import jakarta.validation.constraints.NotNull;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps {@link Projection}s up to date by feeding them the events of an {@link EventStream}
+ * incrementally. Each projection has a durable checkpoint, the position of the last event it
+ * handled, so after a restart it continues where it stopped instead of being rebuilt.
+ *
+ * <p>Events are read in batches and spread over a fixed number of partitions by the hash of their
+ * {@link AggregateId}. Partitions run in parallel, each on its own thread, so events of one
+ * aggregate are always applied in stream order while events of different aggregates may be applied
+ * concurrently; projections therefore have to be thread safe. Checkpoints are advanced only after
+ * every partition handled the whole batch. A failing batch is retried, so handlers see events at
+ * least once and should be idempotent.
+ *
+ * <p>{@link #rebuild(Supplier, ForkJoinPool)} replays the whole stream into a fresh shadow instance
+ * of a projection on a fork-join pool while the current instance keeps serving reads, and swaps the
+ * shadow in once it caught up with the stream.
+ *
+ * @example var runtime = new ProjectionRuntime(eventStore::read, Path.of("checkpoints"), 4);
+ *     runtime.register(orderSummaries); runtime.start(Duration.ofMillis(200));
+ */
+public class ProjectionRuntime implements AutoCloseable {
+  public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+  private final EventStream stream;
+  private final FileCheckpointStore checkpoints;
+  private final List<ExecutorService> partitions = new ArrayList<>();
+  private final int batchSize;
+  private final Map<String, Registration> registrations = new LinkedHashMap<>();
+  private volatile Thread poller;
+  private volatile boolean closed;
+
+  public ProjectionRuntime(
+      @NotNull EventStream stream, @NotNull Path checkpointDirectory, int partitions) {
+    this(stream, new FileCheckpointStore(checkpointDirectory), partitions, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * @param stream source of the events
+   * @param checkpoints store of the projection checkpoints
+   * @param partitions number of threads events are spread over by aggregate
+   * @param batchSize maximum number of events read and handled per batch
+   */
+  public ProjectionRuntime(
+      @NotNull EventStream stream,
+      @NotNull FileCheckpointStore checkpoints,
+      int partitions,
+      int batchSize) {
+    this.stream = stream;
+    this.checkpoints = checkpoints;
+    this.batchSize = Arguments.positive("batchSize", batchSize);
+
+    for (var i = 0; i < Arguments.positive("partitions", partitions); i++) {
+      var name = "projection-partition-" + i;
+      this.partitions.add(
+          Executors.newSingleThreadExecutor(
+              runnable -> {
+                var thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+              }));
+    }
+  }
+
+  /** Registers a projection, which continues after its stored checkpoint. */
+  public synchronized void register(@NotNull Projection projection) {
+    var name = projection.getName();
+    registrations.put(name, new Registration(projection, checkpoints.load(name)));
+  }
+
+  /** @return position of the last event the projection handled or -1 */
+  public synchronized long getCheckpoint(@NotNull String projection) {
+    var registration = registrations.get(projection);
+
+    return registration == null ? checkpoints.load(projection) : registration.checkpoint;
+  }
+
+  /** @return the registered instance of the projection, null if there is none */
+  public synchronized Projection getProjection(@NotNull String projection) {
+    var registration = registrations.get(projection);
+
+    return registration == null ? null : registration.projection;
+  }
+
+  /** Rebuilds a projection on the common pool, see {@link #rebuild(Supplier, ForkJoinPool)}. */
+  public <P extends Projection> @NotNull P rebuild(@NotNull Supplier<P> factory) {
+    return rebuild(factory, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Replays the whole stream into a new instance of a projection, e.g. after its handlers changed.
+   * The history is read in large batches whose events are split by aggregate over as many fork-join
+   * tasks as the pool is parallel, so the rebuild time shrinks with the number of cores. The
+   * registered instance keeps being updated and read meanwhile. Once a batch of the replay is not
+   * full, the shadow is close to the end of the stream. It then reads one more batch and catches up
+   * with the checkpoint of the registered instance while polling is held back, and replaces that
+   * instance together with its checkpoint. Later events are handled by the next poll.
+   *
+   * @param factory creates the empty shadow instance of the projection
+   * @param pool pool the partitions of each batch are handled on
+   * @return the rebuilt projection, which is registered now
+   * @throws DomainException {@link ERR#PROJECTION_FAILED} if a handler failed, the registered
+   *     instance stays in place in that case
+   */
+  public <P extends Projection> @NotNull P rebuild(
+      @NotNull Supplier<P> factory, @NotNull ForkJoinPool pool) {
+    var shadow = factory.get();
+    var batch = (long) batchSize * pool.getParallelism();
+    var limit = (int) Math.min(batch, Integer.MAX_VALUE);
+    var position = replay(shadow, -1, limit, pool, Long.MAX_VALUE);
+
+    synchronized (this) {
+      var registered = registrations.get(shadow.getName());
+      var target = registered == null ? position : registered.checkpoint;
+      position = replay(shadow, position, limit, pool, target);
+
+      checkpoints.store(shadow.getName(), position);
+      registrations.put(shadow.getName(), new Registration(shadow, position));
+    }
+
+    return shadow;
+  }
+
+  /**
+   * Reads and handles one batch of events after the lowest checkpoint of all projections.
+   *
+   * @return number of events read, 0 if all projections are up to date
+   * @throws DomainException {@link ERR#PROJECTION_FAILED} if a handler failed, no checkpoint is
+   *     advanced in that case
+   */
+  public synchronized int poll() {
+    if (registrations.isEmpty()) {
+      return 0;
+    }
+
+    var after =
+        registrations.values().stream().mapToLong(registration -> registration.checkpoint).min();
+    var events = stream.read(after.getAsLong(), batchSize);
+
+    if (events.isEmpty()) {
+      return 0;
+    }
+
+    var last = events.get(events.size() - 1).getPosition();
+    handle(events, last);
+
+    for (var registration : registrations.values()) {
+      if (registration.checkpoint < last) {
+        checkpoints.store(registration.projection.getName(), last);
+        registration.checkpoint = last;
+      }
+    }
+
+    return events.size();
+  }
+
+  /**
+   * Polls until all projections reached the end of the stream.
+   *
+   * @return number of events read
+   */
+  public long catchUp() {
+    var total = 0L;
+
+    for (var read = poll(); read > 0; read = poll()) {
+      total += read;
+    }
+
+    return total;
+  }
+
+  /**
+   * Starts polling in the background. A failed batch is retried after {@code pollInterval}.
+   *
+   * @param pollInterval pause after the stream was exhausted or a batch failed
+   */
+  public synchronized void start(@NotNull Duration pollInterval) {
+    if (poller != null) {
+      return;
+    }
+
+    poller = new Thread(() -> run(pollInterval.toMillis()), "projection-runtime");
+    poller.setDaemon(true);
+    poller.start();
+  }
+
+  /** Stops polling and the partition threads. Checkpoints of completed batches are kept. */
+  @Override
+  public void close() {
+    closed = true;
+
+    var thread = poller;
+    if (thread != null) {
+      thread.interrupt();
+
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    partitions.forEach(ExecutorService::shutdown);
+  }
+
+  private void run(long pollIntervalMillis) {
+    while (!closed) {
+      try {
+        if (poll() == 0) {
+          TimeUnit.MILLISECONDS.sleep(pollIntervalMillis);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        try {
+          TimeUnit.MILLISECONDS.sleep(pollIntervalMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Replays at least one batch and continues until a batch is not full, i.e. the end of the stream
+   * is near, or the position reached {@code until}.
+   */
+  private long replay(Projection shadow, long after, int limit, ForkJoinPool pool, long until) {
+    var position = after;
+
+    while (true) {
+      var events = stream.read(position, limit);
+
+      if (events.isEmpty()) {
+        break;
+      }
+
+      position = events.get(events.size() - 1).getPosition();
+
+      var work = new ArrayList<List<RecordedEvent>>();
+      for (var i = 0; i < pool.getParallelism(); i++) {
+        work.add(new ArrayList<>());
+      }
+      for (var recorded : events) {
+        if (shadow.handles(recorded.getEvent())) {
+          work.get(partitionOf(recorded.getAggregateId(), work.size())).add(recorded);
+        }
+      }
+
+      var tasks =
+          work.stream()
+              .filter(partition -> !partition.isEmpty())
+              .map(partition -> pool.submit(() -> partition.forEach(e -> apply(shadow, e))))
+              .collect(Collectors.toList());
+
+      try {
+        tasks.forEach(ForkJoinTask::join);
+      } catch (RuntimeException e) {
+        tasks.forEach(task -> task.cancel(false));
+        throw projectionFailed(shadow.getName(), position, e);
+      }
+
+      if (events.size() < limit || position >= until) {
+        break;
+      }
+    }
+
+    return position;
+  }
+
+  private static void apply(Projection projection, RecordedEvent recorded) {
+    projection.apply(recorded.getEvent());
+  }
+
+  private void handle(List<RecordedEvent> events, long last) {
+    var work = new ArrayList<List<Runnable>>();
+    partitions.forEach(partition -> work.add(new ArrayList<>()));
+
+    for (var recorded : events) {
+      var partition = work.get(partitionOf(recorded.getAggregateId(), work.size()));
+
+      for (var registration : registrations.values()) {
+        var projection = registration.projection;
+
+        if (recorded.getPosition() > registration.checkpoint
+            && projection.handles(recorded.getEvent())) {
+          partition.add(() -> projection.apply(recorded.getEvent()));
+        }
+      }
+    }
+
+    var futures = new ArrayList<CompletableFuture<Void>>();
+    for (var i = 0; i < work.size(); i++) {
+      var tasks = work.get(i);
+
+      if (!tasks.isEmpty()) {
+        futures.add(
+            CompletableFuture.runAsync(() -> tasks.forEach(Runnable::run), partitions.get(i)));
+      }
+    }
+
+    try {
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    } catch (CompletionException e) {
+      throw projectionFailed(String.join(", ", registrations.keySet()), last, e.getCause());
+    }
+  }
+
+  private static DomainException projectionFailed(String projections, long position, Throwable e) {
+    return new DomainException(
+        ERR.PROJECTION_FAILED.parameters(
+            Parameter.of("projections", projections), Parameter.of("position", position)),
+        e);
+  }
+
+  private static int partitionOf(AggregateId aggregateId, int partitions) {
+    if (aggregateId == null) {
+      return 0;
+    }
+
+    var uuid = aggregateId.getId();
+    var hash = uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+
+    return Math.floorMod(hash ^ (hash >>> 32), partitions);
+  }
+
+  private static final class Registration {
+    private final Projection projection;
+    private long checkpoint;
+
+    private Registration(Projection projection, long checkpoint) {
+      this.projection = projection;
+      this.checkpoint = checkpoint;
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.sclable.domain.projection;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.Event;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** Event read from an {@link EventStream}, together with its position and source aggregate. */
+@Getter
+@AllArgsConstructor
+public class RecordedEvent {
+  /** Position in the stream, strictly increasing. */
+  private final long position;
+
+  private final AggregateId aggregateId;
+  private final Event<?, ?> event;
+}
@@ -0,0 +1,64 @@
+package com.sclable.domain.repository;
+
+import com.sclable.domain.AggregateRoot;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+
+import java.util.function.Function;
+
+/**
+ * Declares a secondary index over an attribute of an aggregate. Hash indexes answer equality
+ * lookups in O(1), sorted indexes additionally answer range queries in O(log n). A unique index
+ * rejects saving a second aggregate with the same key. Aggregates whose key is null are not
+ * indexed.
+ *
+ * @example static final AggregateIndex<Customer, String> BY_EMAIL =
+ *     AggregateIndex.unique("email", Customer::getEmail);
+ * @param <AR> indexed aggregate type
+ * @param <K> type of the indexed attribute
+ */
+@Getter
+public final class AggregateIndex<AR extends AggregateRoot<?>, K> {
+  private final String name;
+  private final Function<AR, K> keyExtractor;
+  private final boolean unique;
+  private final boolean sorted;
+
+  private AggregateIndex(
+      String name, Function<AR, K> keyExtractor, boolean unique, boolean sorted) {
+    this.name = name;
+    this.keyExtractor = keyExtractor;
+    this.unique = unique;
+    this.sorted = sorted;
+  }
+
+  public static <AR extends AggregateRoot<?>, K> AggregateIndex<AR, K> unique(
+      @NotNull String name, @NotNull Function<AR, K> keyExtractor) {
+    return new AggregateIndex<>(name, keyExtractor, true, false);
+  }
+
+  public static <AR extends AggregateRoot<?>, K> AggregateIndex<AR, K> nonUnique(
+      @NotNull String name, @NotNull Function<AR, K> keyExtractor) {
+    return new AggregateIndex<>(name, keyExtractor, false, false);
+  }
+
+  public static <AR extends AggregateRoot<?>, K extends Comparable<? super K>>
+      AggregateIndex<AR, K> uniqueSorted(
+          @NotNull String name, @NotNull Function<AR, K> keyExtractor) {
+    return new AggregateIndex<>(name, keyExtractor, true, true);
+  }
+
+  public static <AR extends AggregateRoot<?>, K extends Comparable<? super K>>
+      AggregateIndex<AR, K> sorted(@NotNull String name, @NotNull Function<AR, K> keyExtractor) {
+    return new AggregateIndex<>(name, keyExtractor, false, true);
+  }
+
+  K keyOf(AR aggregateRoot) {
+    return keyExtractor.apply(aggregateRoot);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,96 @@
+package com.sclable.domain.repository;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRepository;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.AsyncAggregateRepository;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs a blocking {@link AggregateRepository} on an executor and exposes it as {@link
+ * AsyncAggregateRepository}. Without an explicit executor {@link
+ * RepositoryExecutors#newBlockingIoExecutor(int)} is used, which means one virtual thread per call
+ * on JDKs that support them.
+ *
+ * @example var orders = new AsyncAggregateRepositoryAdapter<>(orderRepository); var loads =
+ *     ids.stream().map(orders::find).collect(Collectors.toList());
+ */
+public class AsyncAggregateRepositoryAdapter<ID extends AggregateId, AR extends AggregateRoot<ID>>
+    implements AsyncAggregateRepository<ID, AR>, AutoCloseable {
+  private static final int DEFAULT_PLATFORM_PARALLELISM =
+      Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+
+  private final AggregateRepository<ID, AR> delegate;
+  private final Executor executor;
+  private final boolean ownsExecutor;
+
+  public AsyncAggregateRepositoryAdapter(@NotNull AggregateRepository<ID, AR> delegate) {
+    this(
+        delegate, RepositoryExecutors.newBlockingIoExecutor(DEFAULT_PLATFORM_PARALLELISM), true);
+  }
+
+  /**
+   * @param delegate blocking repository
+   * @param executor executor the blocking calls run on, it is not shut down by {@link #close()}
+   */
+  public AsyncAggregateRepositoryAdapter(
+      @NotNull AggregateRepository<ID, AR> delegate, @NotNull Executor executor) {
+    this(delegate, executor, false);
+  }
+
+  private AsyncAggregateRepositoryAdapter(
+      AggregateRepository<ID, AR> delegate, Executor executor, boolean ownsExecutor) {
+    this.delegate = delegate;
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+  }
+
+  @Override
+  public @NotNull CompletableFuture<AR> save(@NotNull AR aggregateRoot) {
+    return CompletableFuture.supplyAsync(() -> delegate.save(aggregateRoot), executor);
+  }
+
+  @Override
+  public @NotNull CompletableFuture<List<AR>> saveAll(@NotNull List<AR> aggregateRoots) {
+    return CompletableFuture.supplyAsync(() -> delegate.saveAll(aggregateRoots), executor);
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Optional<AR>> find(@NotNull ID id) {
+    return CompletableFuture.supplyAsync(() -> delegate.find(id), executor);
+  }
+
+  @Override
+  public @NotNull CompletableFuture<List<AR>> findMany(@NotNull List<ID> ids) {
+    return CompletableFuture.supplyAsync(() -> delegate.findMany(ids), executor);
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Void> delete(@NotNull AR aggregateRoot) {
+    return CompletableFuture.runAsync(() -> delegate.delete(aggregateRoot), executor);
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Void> delete(@NotNull ID id) {
+    return CompletableFuture.runAsync(() -> delegate.delete(id), executor);
+  }
+
+  @Override
+  public @NotNull CompletableFuture<Long> count() {
+    return CompletableFuture.supplyAsync(delegate::count, executor);
+  }
+
+  /** Shuts down the executor if it was created by this adapter. */
+  @Override
+  public void close() {
+    if (ownsExecutor) {
+      ((ExecutorService) executor).shutdown();
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.sclable.domain.repository;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRepository;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.Arguments;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import com.sclable.domain.exception.DomainException;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Loads aggregates with request coalescing. Concurrent loads of the same {@link AggregateId} share
+ * one in-flight request (single-flight), and distinct ids requested within a short batch window
+ * are merged into one {@link AggregateRepository#findMany(List)} call.
+ *
+ * <p>All callers waiting for the same id receive the same aggregate instance, so a caller that
+ * modifies the loaded aggregate has to work on a copy of it.
+ *
+ * @example var loader = new BatchingAggregateLoader<>(orderRepository); var order =
+ *     loader.find(orderId).orElseThrow(AggregateRoot.notFound(orderId.getId()));
+ */
+public class BatchingAggregateLoader<ID extends AggregateId, AR extends AggregateRoot<ID>>
+    implements AutoCloseable {
+  public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+  public static final Duration DEFAULT_BATCH_WINDOW = Duration.ofNanos(100_000);
+
+  private final AggregateRepository<ID, AR> delegate;
+  private final ConcurrentHashMap<ID, CompletableFuture<Optional<AR>>> inFlight =
+      new ConcurrentHashMap<>();
+  private final MicroBatcher<ID> batcher;
+
+  public BatchingAggregateLoader(@NotNull AggregateRepository<ID, AR> delegate) {
+    this(delegate, DEFAULT_MAX_BATCH_SIZE, DEFAULT_BATCH_WINDOW);
+  }
+
+  /**
+   * @param delegate repository the merged findMany calls go to
+   * @param maxBatchSize maximum number of ids loaded with one findMany
+   * @param batchWindow time to wait for further ids after the first id of a batch was requested
+   */
+  public BatchingAggregateLoader(
+      @NotNull AggregateRepository<ID, AR> delegate, int maxBatchSize, Duration batchWindow) {
+    this.delegate = delegate;
+    this.batcher =
+        new MicroBatcher<>(
+            "aggregate-loader-" + Integer.toHexString(System.identityHashCode(this)),
+            Arguments.positive("maxBatchSize", maxBatchSize),
+            Arguments.notNegative("batchWindow", batchWindow),
+            this::loadBatch);
+  }
+
+  /**
+   * @param id id of the aggregate to load
+   * @return future completed with the aggregate, or an empty optional if it does not exist
+   */
+  public @NotNull CompletableFuture<Optional<AR>> load(@NotNull ID id) {
+    var future = new CompletableFuture<Optional<AR>>();
+    var existing = inFlight.putIfAbsent(id, future);
+
+    if (existing != null) {
+      return existing;
+    }
+
+    if (!batcher.submit(id)) {
+      inFlight.remove(id, future);
+      throw new DomainException(
+          ERR.REPOSITORY_CLOSED.parameters(
+              Parameter.of("repository", getClass().getSimpleName())));
+    }
+
+    return future;
+  }
+
+  public @NotNull Optional<AR> find(@NotNull ID id) {
+    return Futures.await(load(id));
+  }
+
+  public @NotNull List<AR> findMany(@NotNull List<ID> ids) {
+    var futures = ids.stream().map(this::load).collect(Collectors.toList());
+
+    return futures.stream()
+        .map(Futures::await)
+        .flatMap(Optional::stream)
+        .collect(Collectors.toList());
+  }
+
+  /** @return number of ids currently being loaded or waiting for a batch */
+  public int inFlight() {
+    return inFlight.size();
+  }
+
+  /** Loads all queued ids and stops batching. The backing repository is not closed. */
+  @Override
+  public void close() {
+    batcher.close();
+  }
+
+  private void loadBatch(List<ID> ids) {
+    try {
+      var loaded = new HashMap<ID, AR>();
+      delegate
+          .findMany(ids)
+          .stream()
+          .filter(Objects::nonNull)
+          .forEach(aggregateRoot -> loaded.put(aggregateRoot.getId(), aggregateRoot));
+
+      ids.forEach(id -> inFlight.remove(id).complete(Optional.ofNullable(loaded.get(id))));
+    } catch (RuntimeException | Error e) {
+      ids.forEach(
+          id -> {
+            var future = inFlight.remove(id);
+
+            if (future != null) {
+              future.completeExceptionally(e);
+            }
+          });
+    }
+  }
+}
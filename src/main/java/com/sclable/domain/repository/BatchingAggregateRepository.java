@@ -0,0 +1,241 @@
+package com.sclable.domain.repository;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRepository;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.Arguments;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import com.sclable.domain.exception.DomainException;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Group commit decorator for an {@link AggregateRepository}. Concurrent {@link #save(AggregateRoot)}
+ * calls are queued and handed to the backing repository as one {@link
+ * AggregateRepository#saveAll(List)} per batch window, so many request threads share a single
+ * write and flush. Repeated saves of the same {@link AggregateId} inside one batch are coalesced:
+ * only the last saved state is written and every caller receives the saved instance. A {@link
+ * #saveAll(List)} is queued as one unit and written with its own {@link
+ * AggregateRepository#saveAll(List)} call, in order with the surrounding saves of its batch.
+ *
+ * <p>Saves with a related aggregate and all read and delete operations are passed through to the
+ * backing repository unchanged.
+ *
+ * @example var repository = new BatchingAggregateRepository<>(backingRepository, 256,
+ *     Duration.ofMillis(2)); repository.saveAsync(order).thenAccept(saved -> ...);
+ */
+public class BatchingAggregateRepository<ID extends AggregateId, AR extends AggregateRoot<ID>>
+    implements AggregateRepository<ID, AR>, AutoCloseable {
+  public static final int DEFAULT_MAX_BATCH_SIZE = 512;
+  public static final Duration DEFAULT_BATCH_WINDOW = Duration.ZERO;
+
+  private final AggregateRepository<ID, AR> delegate;
+  private final MicroBatcher<PendingSave<ID, AR>> batcher;
+
+  public BatchingAggregateRepository(@NotNull AggregateRepository<ID, AR> delegate) {
+    this(delegate, DEFAULT_MAX_BATCH_SIZE, DEFAULT_BATCH_WINDOW);
+  }
+
+  /**
+   * @param delegate backing repository receiving one saveAll per batch
+   * @param maxBatchSize maximum number of queued saves written in one batch, a saveAll counting
+   *     as one
+   * @param batchWindow time to wait for further saves after the first save of a batch arrived,
+   *     {@link Duration#ZERO} to write whatever queued up during the previous write
+   */
+  public BatchingAggregateRepository(
+      @NotNull AggregateRepository<ID, AR> delegate, int maxBatchSize, Duration batchWindow) {
+    this.delegate = delegate;
+    this.batcher =
+        new MicroBatcher<>(
+            "batching-repository-" + Integer.toHexString(System.identityHashCode(this)),
+            Arguments.positive("maxBatchSize", maxBatchSize),
+            Arguments.notNegative("batchWindow", batchWindow),
+            this::write);
+  }
+
+  /**
+   * Queues the aggregate for the next batch.
+   *
+   * @param aggregateRoot aggregate to save
+   * @return future completed with the saved aggregate once its batch is committed, or
+   *     exceptionally with the exception the backing repository threw for the batch
+   */
+  public @NotNull CompletableFuture<AR> saveAsync(@NotNull AR aggregateRoot) {
+    var future = new CompletableFuture<AR>();
+
+    submit(new PendingSave<>(List.of(aggregateRoot), true))
+        .whenComplete(
+            (saved, e) -> {
+              if (e == null) {
+                future.complete(saved.get(0));
+              } else {
+                future.completeExceptionally(e);
+              }
+            });
+
+    return future;
+  }
+
+  /** @return number of saves waiting for the next batch */
+  public int pendingSaves() {
+    return batcher.pending();
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot) {
+    return Futures.await(saveAsync(aggregateRoot));
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot, AggregateRoot<?> related) {
+    return delegate.save(aggregateRoot, related);
+  }
+
+  @Override
+  public @NotNull List<AR> saveAll(@NotNull List<AR> aggregateRoots) {
+    return Futures.await(submit(new PendingSave<>(List.copyOf(aggregateRoots), false)));
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateRoot<?> related) {
+    return delegate.saveMany(aggregateRoots, related);
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateId relatedId) {
+    return delegate.saveMany(aggregateRoots, relatedId);
+  }
+
+  @Override
+  public @NotNull Optional<AR> find(@NotNull ID id) {
+    return delegate.find(id);
+  }
+
+  @Override
+  public List<AR> findMany(List<ID> ids) {
+    return delegate.findMany(ids);
+  }
+
+  @Override
+  public @NotNull List<AR> findAll() {
+    return delegate.findAll();
+  }
+
+  @Override
+  public boolean supportsKeysetPaging() {
+    return delegate.supportsKeysetPaging();
+  }
+
+  @Override
+  public @NotNull List<AR> findPage(ID after, int limit) {
+    return delegate.findPage(after, limit);
+  }
+
+  @Override
+  public @NotNull List<ID> findIdPage(ID after, int limit) {
+    return delegate.findIdPage(after, limit);
+  }
+
+  @Override
+  public void delete(@NotNull AR aggregateRoot) {
+    delegate.delete(aggregateRoot);
+  }
+
+  @Override
+  public void delete(@NotNull ID id) {
+    delegate.delete(id);
+  }
+
+  @Override
+  public Long count() {
+    return delegate.count();
+  }
+
+  /** Writes all queued saves and stops batching. The backing repository is not closed. */
+  @Override
+  public void close() {
+    batcher.close();
+  }
+
+  private CompletableFuture<List<AR>> submit(PendingSave<ID, AR> pending) {
+    if (!batcher.submit(pending)) {
+      throw new DomainException(
+          ERR.REPOSITORY_CLOSED.parameters(
+              Parameter.of("repository", getClass().getSimpleName())));
+    }
+
+    return pending.future;
+  }
+
+  private void write(List<PendingSave<ID, AR>> batch) {
+    var singles = new ArrayList<PendingSave<ID, AR>>();
+
+    for (var pending : batch) {
+      if (pending.single) {
+        singles.add(pending);
+      } else {
+        writeSingles(singles);
+        singles.clear();
+        writeAll(pending);
+      }
+    }
+
+    writeSingles(singles);
+  }
+
+  private void writeSingles(List<PendingSave<ID, AR>> singles) {
+    if (singles.isEmpty()) {
+      return;
+    }
+
+    var coalesced = new LinkedHashMap<ID, AR>();
+    singles.forEach(pending -> coalesced.put(pending.id(), pending.aggregateRoots.get(0)));
+
+    try {
+      var saved = delegate.saveAll(new ArrayList<>(coalesced.values()));
+
+      var savedById = new HashMap<ID, AR>();
+      saved.forEach(aggregateRoot -> savedById.put(aggregateRoot.getId(), aggregateRoot));
+
+      singles.forEach(
+          pending ->
+              pending.future.complete(
+                  List.of(savedById.getOrDefault(pending.id(), coalesced.get(pending.id())))));
+    } catch (RuntimeException | Error e) {
+      singles.forEach(pending -> pending.future.completeExceptionally(e));
+    }
+  }
+
+  private void writeAll(PendingSave<ID, AR> pending) {
+    try {
+      pending.future.complete(delegate.saveAll(pending.aggregateRoots));
+    } catch (RuntimeException | Error e) {
+      pending.future.completeExceptionally(e);
+    }
+  }
+
+  /** Queued unit: a single save, coalesced with others of its batch, or a whole saveAll. */
+  private static final class PendingSave<ID extends AggregateId, AR extends AggregateRoot<ID>> {
+    private final List<AR> aggregateRoots;
+    private final boolean single;
+    private final CompletableFuture<List<AR>> future = new CompletableFuture<>();
+
+    private PendingSave(List<AR> aggregateRoots, boolean single) {
+      this.aggregateRoots = aggregateRoots;
+      this.single = single;
+    }
+
+    private ID id() {
+      return aggregateRoots.get(0).getId();
+    }
+  }
+}
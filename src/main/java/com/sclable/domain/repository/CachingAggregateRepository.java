@@ -0,0 +1,292 @@
+package com.sclable.domain.repository;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRepository;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.Arguments;
+import com.sclable.domain.codec.StateCodec;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import com.sclable.domain.exception.DomainException;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through and write-through cache in front of an {@link AggregateRepository}. Loaded and saved
+ * aggregates are kept encoded by a {@link StateCodec}, so every caller receives its own isolated
+ * instance and modifying a returned aggregate never corrupts the cached state.
+ *
+ * <p>The cache is bounded either by the number of aggregates or by the serialized size in bytes and
+ * evicts with a frequency-aware W-TinyLFU policy. Entries are versioned by {@link
+ * AggregateRoot#getVersion()}: an older version never replaces a newer cached one, {@link
+ * #invalidate(AggregateId, long)} drops an entry whose version differs from a known current
+ * version, and an optional version probe validates every hit against the backing store.
+ *
+ * @example var repository = CachingAggregateRepository.boundedBySize(orderRepository, 10_000);
+ */
+public class CachingAggregateRepository<ID extends AggregateId, AR extends AggregateRoot<ID>>
+    implements AggregateRepository<ID, AR> {
+  private static final StateCodec STATE_CODEC = new StateCodec();
+
+  private final AggregateRepository<ID, AR> delegate;
+  private final TinyLfuCache<ID, CachedAggregate> cache;
+  private final Function<ID, Optional<Long>> versionProbe;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param delegate backing repository
+   * @param maximumWeight maximum total weight of all cached aggregates
+   * @param weighedBySize true to weigh entries by their serialized size in bytes, false to count
+   *     entries
+   * @param versionProbe looks up the current version of an aggregate in the backing store, e.g. by
+   *     a cheap version-only query, or null to trust cached entries until they are invalidated
+   */
+  public CachingAggregateRepository(
+      @NotNull AggregateRepository<ID, AR> delegate,
+      long maximumWeight,
+      boolean weighedBySize,
+      Function<ID, Optional<Long>> versionProbe) {
+    this.delegate = delegate;
+    this.cache =
+        new TinyLfuCache<>(
+            Arguments.positive("maximumWeight", maximumWeight),
+            weighedBySize ? cached -> cached.state.length : cached -> 1);
+    this.versionProbe = versionProbe;
+  }
+
+  public static <ID extends AggregateId, AR extends AggregateRoot<ID>>
+      CachingAggregateRepository<ID, AR> boundedBySize(
+          @NotNull AggregateRepository<ID, AR> delegate, long maximumSize) {
+    return new CachingAggregateRepository<>(delegate, maximumSize, false, null);
+  }
+
+  public static <ID extends AggregateId, AR extends AggregateRoot<ID>>
+      CachingAggregateRepository<ID, AR> boundedByBytes(
+          @NotNull AggregateRepository<ID, AR> delegate, long maximumBytes) {
+    return new CachingAggregateRepository<>(delegate, maximumBytes, true, null);
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot) {
+    return cached(delegate.save(aggregateRoot));
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot, AggregateRoot<?> related) {
+    return cached(delegate.save(aggregateRoot, related));
+  }
+
+  @Override
+  public @NotNull List<AR> saveAll(@NotNull List<AR> aggregateRoots) {
+    return cachedAll(delegate.saveAll(aggregateRoots));
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateRoot<?> related) {
+    return cachedAll(delegate.saveMany(aggregateRoots, related));
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateId relatedId) {
+    return cachedAll(delegate.saveMany(aggregateRoots, relatedId));
+  }
+
+  @Override
+  public @NotNull Optional<AR> find(@NotNull ID id) {
+    var cached = lookup(id);
+
+    if (cached != null) {
+      return Optional.of(restore(cached));
+    }
+
+    return delegate.find(id).map(this::cached);
+  }
+
+  @Override
+  public List<AR> findMany(List<ID> ids) {
+    var found = new HashMap<ID, AR>();
+    var missing = new ArrayList<ID>();
+
+    ids.forEach(
+        id -> {
+          var cached = lookup(id);
+
+          if (cached != null) {
+            found.put(id, restore(cached));
+          } else {
+            missing.add(id);
+          }
+        });
+
+    if (!missing.isEmpty()) {
+      delegate.findMany(missing).forEach(loaded -> found.put(loaded.getId(), cached(loaded)));
+    }
+
+    return ids.stream()
+        .distinct()
+        .map(found::get)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public @NotNull List<AR> findAll() {
+    return delegate.findAll();
+  }
+
+  @Override
+  public boolean supportsKeysetPaging() {
+    return delegate.supportsKeysetPaging();
+  }
+
+  @Override
+  public @NotNull List<AR> findPage(ID after, int limit) {
+    return delegate.findPage(after, limit);
+  }
+
+  @Override
+  public @NotNull List<ID> findIdPage(ID after, int limit) {
+    return delegate.findIdPage(after, limit);
+  }
+
+  @Override
+  public void delete(@NotNull AR aggregateRoot) {
+    delegate.delete(aggregateRoot);
+    invalidate(aggregateRoot.getId());
+  }
+
+  @Override
+  public void delete(@NotNull ID id) {
+    delegate.delete(id);
+    invalidate(id);
+  }
+
+  @Override
+  public Long count() {
+    return delegate.count();
+  }
+
+  /** Removes the aggregate from the cache. */
+  public void invalidate(@NotNull ID id) {
+    cache.remove(requireKey(id));
+  }
+
+  /**
+   * Removes the aggregate from the cache unless the cached version equals {@code currentVersion}.
+   * Use it to react on change notifications from other writers.
+   */
+  public void invalidate(@NotNull ID id, long currentVersion) {
+    var cached = cache.peek(requireKey(id));
+
+    if (cached != null && cached.version != currentVersion) {
+      cache.remove(id);
+    }
+  }
+
+  public void invalidateAll() {
+    cache.clear();
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /** @return number of cached aggregates */
+  public int size() {
+    return cache.size();
+  }
+
+  private CachedAggregate lookup(ID id) {
+    var cached = cache.get(requireKey(id));
+
+    if (cached != null && versionProbe != null) {
+      var currentVersion = versionProbe.apply(id);
+
+      if (currentVersion.isEmpty() || currentVersion.get() != cached.version) {
+        cache.remove(id);
+        cached = null;
+      }
+    }
+
+    if (cached == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+
+    return cached;
+  }
+
+  private List<AR> cachedAll(List<AR> aggregateRoots) {
+    return aggregateRoots.stream().map(this::cached).collect(Collectors.toList());
+  }
+
+  private AR cached(AR aggregateRoot) {
+    if (aggregateRoot == null || aggregateRoot.getId() == null) {
+      throw new DomainException(ERR.RETRIEVE_CACHE_KEY_FAILED);
+    }
+
+    var id = aggregateRoot.getId();
+    var candidate = new CachedAggregate(aggregateRoot.getVersion(), serialize(aggregateRoot));
+
+    synchronized (cache) {
+      var current = cache.peek(id);
+
+      if (current == null || current.version <= candidate.version) {
+        cache.put(id, candidate);
+      }
+    }
+
+    return restore(candidate);
+  }
+
+  private ID requireKey(ID id) {
+    if (id == null) {
+      throw new DomainException(ERR.CACHE_KEY_MISSING);
+    }
+
+    return id;
+  }
+
+  private byte[] serialize(AR aggregateRoot) {
+    try {
+      return STATE_CODEC.encode(aggregateRoot);
+    } catch (DomainException e) {
+      throw new DomainException(
+          ERR.RETRIEVE_CACHED_AGGREGATE_FAILED.parameters(
+              Parameter.of("id", aggregateRoot.getId())),
+          e);
+    }
+  }
+
+  private AR restore(CachedAggregate cached) {
+    try {
+      return STATE_CODEC.decode(cached.state);
+    } catch (DomainException | ClassCastException e) {
+      throw new DomainException(ERR.RETRIEVE_CACHED_AGGREGATE_FAILED.toError(), e);
+    }
+  }
+
+  private static final class CachedAggregate {
+    private final long version;
+    private final byte[] state;
+
+    private CachedAggregate(long version, byte[] state) {
+      this.version = version;
+      this.state = state;
+    }
+  }
+}
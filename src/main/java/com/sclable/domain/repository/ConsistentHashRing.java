@@ -0,0 +1,54 @@
+package com.sclable.domain.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Immutable consistent hash ring assigning UUIDs to shards. Every shard is placed on the ring with
+ * a number of virtual nodes derived from its position in the shard list, so appending a shard only
+ * takes over roughly {@code 1/n} of the keys and leaves all other assignments unchanged.
+ */
+final class ConsistentHashRing<S> {
+  private final int virtualNodes;
+  private final List<S> shards;
+  private final TreeMap<Long, S> ring = new TreeMap<>();
+
+  ConsistentHashRing(List<S> shards, int virtualNodes) {
+    this.virtualNodes = virtualNodes;
+    this.shards = List.copyOf(shards);
+
+    for (var ordinal = 0; ordinal < this.shards.size(); ordinal++) {
+      for (var node = 0; node < virtualNodes; node++) {
+        ring.put(mix(((long) ordinal << 32) | node), this.shards.get(ordinal));
+      }
+    }
+  }
+
+  ConsistentHashRing<S> with(S shard) {
+    var extended = new ArrayList<>(shards);
+    extended.add(shard);
+
+    return new ConsistentHashRing<>(extended, virtualNodes);
+  }
+
+  S shardOf(UUID id) {
+    var hash = mix(id.getMostSignificantBits() ^ Long.rotateLeft(id.getLeastSignificantBits(), 32));
+    Map.Entry<Long, S> entry = ring.ceilingEntry(hash);
+
+    return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+  }
+
+  List<S> shards() {
+    return shards;
+  }
+
+  private static long mix(long value) {
+    var h = value * 0x9e3779b97f4a7c15L;
+    h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+    h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+    return h ^ (h >>> 31);
+  }
+}
@@ -0,0 +1,587 @@
+package com.sclable.domain.repository;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRepository;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.StorageErrors;
+import jakarta.validation.constraints.NotNull;
+import org.apache.commons.lang3.SerializationUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded {@link AggregateRepository} persisting the current state of aggregates in a local
+ * directory, without any external database.
+ *
+ * <p>The store is log structured: every save appends a checksummed record to a single data file,
+ * which therefore doubles as write-ahead log, and every delete appends a tombstone. An in-memory
+ * index sorted by {@link AggregateId} maps each aggregate to its latest record, so lookups need one
+ * positional read and {@link #findPage(AggregateId, int)} streams in id order without loading
+ * everything. A batch passed to {@link #saveAll(List)} is written with a single write and fsync,
+ * put a {@link BatchingAggregateRepository} in front to group concurrent saves.
+ *
+ * <p>On startup the data file is scanned and a torn record left by a crash is truncated. Once
+ * overwritten and deleted records make up more than half of the file, a background compaction
+ * copies the live records to a new file and atomically replaces the old one.
+ *
+ * @example var orders = new FileAggregateRepository<OrderId, Order>(Path.of("data/orders"),
+ *     OrderId::new);
+ */
+public class FileAggregateRepository<ID extends AggregateId, AR extends AggregateRoot<ID>>
+    implements AggregateRepository<ID, AR>, AutoCloseable {
+  static final String DATA_FILE = "aggregates.log";
+  static final String COMPACTION_FILE = "aggregates.log.compacting";
+
+  private static final int HEADER_SIZE = 33;
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+  private static final double COMPACTION_GARBAGE_RATIO = 0.5;
+  private static final long COMPACTION_MIN_BYTES = 4 * 1024 * 1024;
+
+  private final Path dataFile;
+  private final Path compactionFile;
+  private final Function<UUID, ID> idFactory;
+  private final Function<AR, byte[]> serializer;
+  private final Function<byte[], AR> deserializer;
+  private final boolean syncOnWrite;
+
+  private final ReentrantLock appendLock = new ReentrantLock();
+  private final ReadWriteLock fileLock = new ReentrantReadWriteLock();
+  private final AtomicBoolean compacting = new AtomicBoolean();
+  private final ExecutorService compactor =
+      Executors.newSingleThreadExecutor(RepositoryExecutors.daemonThreadFactory("compaction-"));
+
+  private volatile ConcurrentSkipListMap<ID, Location> index = new ConcurrentSkipListMap<>();
+  private volatile FileChannel channel;
+  private long endOffset;
+  private long garbageBytes;
+
+  /**
+   * Opens the store in {@code directory} using Java serialization and an fsync per write.
+   *
+   * @param directory directory holding the data file, created if missing
+   * @param idFactory creates an aggregate id from its UUID
+   */
+  public FileAggregateRepository(@NotNull Path directory, @NotNull Function<UUID, ID> idFactory) {
+    this(directory, idFactory, SerializationUtils::serialize, SerializationUtils::deserialize, true);
+  }
+
+  /**
+   * @param directory directory holding the data file, created if missing
+   * @param idFactory creates an aggregate id from its UUID
+   * @param serializer encodes the aggregate state
+   * @param deserializer decodes the aggregate state
+   * @param syncOnWrite force every write to the device before returning; false trades
+   *     durability of the latest writes on power loss for throughput
+   */
+  public FileAggregateRepository(
+      @NotNull Path directory,
+      @NotNull Function<UUID, ID> idFactory,
+      @NotNull Function<AR, byte[]> serializer,
+      @NotNull Function<byte[], AR> deserializer,
+      boolean syncOnWrite) {
+    this.dataFile = directory.resolve(DATA_FILE);
+    this.compactionFile = directory.resolve(COMPACTION_FILE);
+    this.idFactory = idFactory;
+    this.serializer = serializer;
+    this.deserializer = deserializer;
+    this.syncOnWrite = syncOnWrite;
+
+    try {
+      Files.createDirectories(directory);
+      Files.deleteIfExists(compactionFile);
+      channel =
+          FileChannel.open(
+              dataFile,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      recover();
+    } catch (IOException e) {
+      throw StorageErrors.failed(dataFile, "open", e);
+    }
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot) {
+    append(List.of(aggregateRoot), List.of());
+    return aggregateRoot;
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot, AggregateRoot<?> related) {
+    return save(aggregateRoot);
+  }
+
+  @Override
+  public @NotNull List<AR> saveAll(@NotNull List<AR> aggregateRoots) {
+    append(aggregateRoots, List.of());
+    return aggregateRoots;
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateRoot<?> related) {
+    return saveAll(aggregateRoots);
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateId relatedId) {
+    return saveAll(aggregateRoots);
+  }
+
+  @Override
+  public @NotNull Optional<AR> find(@NotNull ID id) {
+    fileLock.readLock().lock();
+
+    try {
+      return Optional.ofNullable(index.get(id)).map(this::read);
+    } finally {
+      fileLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<AR> findMany(List<ID> ids) {
+    fileLock.readLock().lock();
+
+    try {
+      return ids.stream()
+          .distinct()
+          .map(index::get)
+          .filter(Objects::nonNull)
+          .map(this::read)
+          .collect(Collectors.toList());
+    } finally {
+      fileLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public @NotNull List<AR> findAll() {
+    return findPage(null, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public boolean supportsKeysetPaging() {
+    return true;
+  }
+
+  @Override
+  public @NotNull List<AR> findPage(ID after, int limit) {
+    fileLock.readLock().lock();
+
+    try {
+      return page(after).values().stream()
+          .limit(limit)
+          .map(this::read)
+          .collect(Collectors.toList());
+    } finally {
+      fileLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public @NotNull List<ID> findIdPage(ID after, int limit) {
+    return page(after).keySet().stream().limit(limit).collect(Collectors.toList());
+  }
+
+  /**
+   * Looks up the stored version without reading the aggregate, e.g. as version probe of a {@link
+   * CachingAggregateRepository}.
+   */
+  public @NotNull Optional<Long> findVersion(@NotNull ID id) {
+    return Optional.ofNullable(index.get(id)).map(location -> location.version);
+  }
+
+  @Override
+  public void delete(@NotNull AR aggregateRoot) {
+    delete(aggregateRoot.getId());
+  }
+
+  @Override
+  public void delete(@NotNull ID id) {
+    append(List.of(), List.of(id));
+  }
+
+  @Override
+  public Long count() {
+    return (long) index.size();
+  }
+
+  /** Copies all live records to a new data file and replaces the old one. */
+  public void compact() {
+    if (!compacting.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      rewrite();
+    } catch (IOException e) {
+      throw StorageErrors.failed(dataFile, "compact", e);
+    } finally {
+      compacting.set(false);
+    }
+  }
+
+  /** @return size of the data file in bytes */
+  public long size() {
+    appendLock.lock();
+
+    try {
+      return endOffset;
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /** Waits for a running compaction and closes the data file. */
+  @Override
+  public void close() {
+    compactor.shutdown();
+
+    try {
+      compactor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    appendLock.lock();
+    fileLock.writeLock().lock();
+
+    try {
+      channel.force(true);
+      channel.close();
+    } catch (IOException e) {
+      throw StorageErrors.failed(dataFile, "close", e);
+    } finally {
+      fileLock.writeLock().unlock();
+      appendLock.unlock();
+    }
+  }
+
+  private Map<ID, Location> page(ID after) {
+    return after == null ? index : index.tailMap(after, false);
+  }
+
+  private void append(List<AR> aggregateRoots, List<ID> deletedIds) {
+    var records = new ArrayList<ByteBuffer>();
+    aggregateRoots.forEach(
+        aggregateRoot ->
+            records.add(
+                encode(
+                    PUT,
+                    aggregateRoot.getId().getId(),
+                    aggregateRoot.getVersion(),
+                    serializer.apply(aggregateRoot))));
+    deletedIds.forEach(id -> records.add(encode(DELETE, id.getId(), 0, new byte[0])));
+
+    var batch = ByteBuffer.allocate(records.stream().mapToInt(ByteBuffer::remaining).sum());
+    records.forEach(batch::put);
+    batch.flip();
+
+    appendLock.lock();
+    fileLock.readLock().lock();
+
+    try {
+      var offset = endOffset;
+      while (batch.hasRemaining()) {
+        offset += channel.write(batch, offset);
+      }
+
+      if (syncOnWrite) {
+        channel.force(false);
+      }
+
+      var recordOffset = endOffset;
+      for (var i = 0; i < records.size(); i++) {
+        var size = records.get(i).limit();
+
+        if (i < aggregateRoots.size()) {
+          var aggregateRoot = aggregateRoots.get(i);
+          var location = new Location(recordOffset, size, aggregateRoot.getVersion());
+          garbageBytes += sizeOf(index.put(aggregateRoot.getId(), location));
+        } else {
+          garbageBytes += sizeOf(index.remove(deletedIds.get(i - aggregateRoots.size()))) + size;
+        }
+
+        recordOffset += size;
+      }
+
+      endOffset = offset;
+    } catch (IOException e) {
+      throw StorageErrors.failed(dataFile, "write", e);
+    } finally {
+      fileLock.readLock().unlock();
+      appendLock.unlock();
+    }
+
+    scheduleCompaction();
+  }
+
+  private void scheduleCompaction() {
+    appendLock.lock();
+
+    try {
+      if (endOffset < COMPACTION_MIN_BYTES
+          || garbageBytes < endOffset * COMPACTION_GARBAGE_RATIO
+          || compacting.get()
+          || compactor.isShutdown()) {
+        return;
+      }
+    } finally {
+      appendLock.unlock();
+    }
+
+    compactor.execute(this::compact);
+  }
+
+  private AR read(Location location) {
+    var payload = ByteBuffer.allocate(location.size - HEADER_SIZE);
+
+    try {
+      readFully(channel, payload, location.offset + HEADER_SIZE);
+    } catch (IOException e) {
+      throw StorageErrors.failed(dataFile, "read", e);
+    }
+
+    return deserializer.apply(payload.array());
+  }
+
+  private void recover() throws IOException {
+    var recovered = new ConcurrentSkipListMap<ID, Location>();
+    var size = channel.size();
+    var garbage = new long[1];
+
+    var validEnd =
+        scan(
+            channel,
+            0,
+            size,
+            (type, id, location) -> garbage[0] += apply(recovered, type, id, location));
+
+    if (validEnd < size) {
+      channel.truncate(validEnd);
+      channel.force(true);
+    }
+
+    index = recovered;
+    endOffset = validEnd;
+    garbageBytes = garbage[0];
+  }
+
+  private void rewrite() throws IOException {
+    long snapshotEnd;
+
+    appendLock.lock();
+    try {
+      snapshotEnd = endOffset;
+    } finally {
+      appendLock.unlock();
+    }
+
+    var source = channel;
+    var target =
+        FileChannel.open(
+            compactionFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    var compacted = new ConcurrentSkipListMap<ID, Location>();
+    var targetOffset = 0L;
+
+    try {
+      for (var entry : index.entrySet()) {
+        var location = entry.getValue();
+        if (location.offset >= snapshotEnd) {
+          continue;
+        }
+
+        copy(source, location.offset, location.size, target, targetOffset);
+        compacted.put(
+            entry.getKey(), new Location(targetOffset, location.size, location.version));
+        targetOffset += location.size;
+      }
+
+      appendLock.lock();
+      fileLock.writeLock().lock();
+
+      try {
+        var tailSize = endOffset - snapshotEnd;
+        copy(source, snapshotEnd, tailSize, target, targetOffset);
+
+        var garbage = new long[1];
+        scan(
+            target,
+            targetOffset,
+            targetOffset + tailSize,
+            (type, id, location) -> garbage[0] += apply(compacted, type, id, location));
+
+        target.force(true);
+        Files.move(
+            compactionFile,
+            dataFile,
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+        source.close();
+
+        channel = target;
+        index = compacted;
+        endOffset = targetOffset + tailSize;
+        garbageBytes = garbage[0];
+      } finally {
+        fileLock.writeLock().unlock();
+        appendLock.unlock();
+      }
+    } catch (IOException | RuntimeException e) {
+      if (channel != target) {
+        target.close();
+        Files.deleteIfExists(compactionFile);
+      }
+
+      throw e;
+    }
+  }
+
+  /**
+   * Applies a record to an index.
+   *
+   * @return number of bytes that became garbage
+   */
+  private long apply(Map<ID, Location> target, byte type, ID id, Location location) {
+    if (type == PUT) {
+      return sizeOf(target.put(id, location));
+    }
+
+    return sizeOf(target.remove(id)) + location.size;
+  }
+
+  /**
+   * Visits all valid records between {@code from} and {@code to}.
+   *
+   * @return offset after the last valid record
+   */
+  private long scan(FileChannel source, long from, long to, RecordVisitor<ID> visitor)
+      throws IOException {
+    var header = ByteBuffer.allocate(HEADER_SIZE);
+    var offset = from;
+
+    while (offset + HEADER_SIZE <= to) {
+      header.clear();
+      readFully(source, header, offset);
+      header.flip();
+
+      var checksum = header.getInt();
+      var type = header.get();
+      var id = new UUID(header.getLong(), header.getLong());
+      var version = header.getLong();
+      var length = header.getInt();
+
+      if ((type != PUT && type != DELETE) || length < 0 || offset + HEADER_SIZE + length > to) {
+        break;
+      }
+
+      var payload = ByteBuffer.allocate(length);
+      readFully(source, payload, offset + HEADER_SIZE);
+
+      if (checksum != checksum(header.array(), HEADER_SIZE, payload.array())) {
+        break;
+      }
+
+      visitor.visit(type, idFactory.apply(id), new Location(offset, HEADER_SIZE + length, version));
+      offset += HEADER_SIZE + length;
+    }
+
+    return offset;
+  }
+
+  private static ByteBuffer encode(byte type, UUID id, long version, byte[] payload) {
+    var record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+    record.putInt(0);
+    record.put(type);
+    record.putLong(id.getMostSignificantBits());
+    record.putLong(id.getLeastSignificantBits());
+    record.putLong(version);
+    record.putInt(payload.length);
+    record.put(payload);
+    record.putInt(0, checksum(record.array(), record.capacity(), null));
+    record.flip();
+
+    return record;
+  }
+
+  private static int checksum(byte[] record, int length, byte[] payload) {
+    var crc = new CRC32();
+    crc.update(record, Integer.BYTES, length - Integer.BYTES);
+
+    if (payload != null) {
+      crc.update(payload);
+    }
+
+    return (int) crc.getValue();
+  }
+
+  private static void copy(
+      FileChannel source, long position, long size, FileChannel target, long targetPosition)
+      throws IOException {
+    var copied = 0L;
+
+    while (copied < size) {
+      target.position(targetPosition + copied);
+      copied += source.transferTo(position + copied, size - copied, target);
+    }
+  }
+
+  private static void readFully(FileChannel source, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (source.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of file at " + position);
+      }
+    }
+  }
+
+  private static long sizeOf(Location location) {
+    return location == null ? 0 : location.size;
+  }
+
+  @FunctionalInterface
+  private interface RecordVisitor<ID> {
+    void visit(byte type, ID id, Location location);
+  }
+
+  private static final class Location {
+    private final long offset;
+    private final int size;
+    private final long version;
+
+    private Location(long offset, int size, long version) {
+      this.offset = offset;
+      this.size = size;
+      this.version = version;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.sclable.domain.repository;
+
+/**
+ * Count-min sketch with four 4-bit counters per key, used to estimate how often a key was accessed
+ * recently. All counters are halved once the number of increments reaches ten times the expected
+ * size, so the estimate follows the current access pattern instead of the whole history.
+ */
+final class FrequencySketch {
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAXIMUM_COUNT = 15;
+  private static final long MAXIMUM_TABLE_SIZE = 1 << 20;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int additions;
+
+  FrequencySketch(long expectedSize) {
+    var bounded = Math.max(15, Math.min(expectedSize, MAXIMUM_TABLE_SIZE - 1));
+    var size = 1 << (64 - Long.numberOfLeadingZeros(bounded));
+    this.table = new long[size];
+    this.tableMask = size - 1;
+    this.sampleSize = (int) (10 * bounded);
+  }
+
+  int frequency(Object key) {
+    var hash = spread(key.hashCode());
+    var frequency = MAXIMUM_COUNT;
+
+    for (var depth = 0; depth < SEEDS.length; depth++) {
+      var counterHash = counterHash(hash, depth);
+      var count = (int) ((table[index(counterHash)] >>> offset(counterHash)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+
+    return frequency;
+  }
+
+  void increment(Object key) {
+    var hash = spread(key.hashCode());
+    var added = false;
+
+    for (var depth = 0; depth < SEEDS.length; depth++) {
+      var counterHash = counterHash(hash, depth);
+      var index = index(counterHash);
+      var offset = offset(counterHash);
+
+      if (((table[index] >>> offset) & 0xfL) < MAXIMUM_COUNT) {
+        table[index] += 1L << offset;
+        added = true;
+      }
+    }
+
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  private void reset() {
+    for (var i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+
+    additions /= 2;
+  }
+
+  private int index(long counterHash) {
+    return (int) (counterHash >>> 32) & tableMask;
+  }
+
+  private int offset(long counterHash) {
+    return (int) (counterHash & 15) << 2;
+  }
+
+  private static long counterHash(int hash, int depth) {
+    var h = (hash ^ SEEDS[depth]) * 0x9e3779b97f4a7c15L;
+    h = (h ^ (h >>> 32)) * 0xbf58476d1ce4e5b9L;
+    return h ^ (h >>> 29);
+  }
+
+  private static int spread(int hash) {
+    var h = hash * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,29 @@
+package com.sclable.domain.repository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+final class Futures {
+  private Futures() {}
+
+  /**
+   * Waits for a future and rethrows the original exception instead of a {@link
+   * CompletionException}, so blocking callers see the same {@link
+   * com.sclable.domain.exception.DomainException} the backing repository threw.
+   */
+  static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,446 @@
+package com.sclable.domain.repository;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRepository;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import com.sclable.domain.exception.DomainException.Parameter;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Maintains in-memory secondary indexes for an {@link AggregateRepository}, so aggregates can be
+ * looked up by attributes other than their id without a {@link #findAll()} scan. Indexes are built
+ * once from the backing repository when the decorator is created and are kept up to date on every
+ * save and delete that goes through it.
+ *
+ * <p>Unique indexes are checked before the aggregate is handed to the backing repository; a
+ * conflicting key fails with {@link ERR#INDEX_KEY_NOT_UNIQUE}. Lookups resolve the matching ids in
+ * the index and load the aggregates with one {@link #findMany(List)}.
+ *
+ * <p>Saves and deletes are serialized across the call to the backing repository per aggregate and
+ * per unique key, on a fixed number of lock stripes. A failed write can therefore roll its index
+ * entries back without undoing a concurrent write, and a save waits for a pending save holding the
+ * same unique key instead of being rejected by a key that may still be rolled back.
+ *
+ * @example var customers = new IndexedAggregateRepository<>(customerRepository, BY_EMAIL,
+ *     BY_CITY); customers.findOneBy(BY_EMAIL, "jane@example.com");
+ */
+public class IndexedAggregateRepository<ID extends AggregateId, AR extends AggregateRoot<ID>>
+    implements AggregateRepository<ID, AR> {
+  private static final int REBUILD_FETCH_SIZE = 1_000;
+  private static final int WRITE_STRIPES = 256;
+
+  private final AggregateRepository<ID, AR> delegate;
+  private final List<AggregateIndex<AR, ?>> definitions;
+  private final List<Map<Object, Set<ID>>> indexes = new ArrayList<>();
+  private final Map<ID, Object[]> indexedKeys = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final ReentrantLock[] writeStripes = new ReentrantLock[WRITE_STRIPES];
+
+  @SafeVarargs
+  public IndexedAggregateRepository(
+      @NotNull AggregateRepository<ID, AR> delegate, AggregateIndex<AR, ?>... indexes) {
+    var definitions = new ArrayList<AggregateIndex<AR, ?>>();
+
+    for (var index : indexes) {
+      definitions.add(index);
+      this.indexes.add(index.isSorted() ? new TreeMap<>() : new HashMap<>());
+    }
+
+    this.delegate = delegate;
+    this.definitions = List.copyOf(definitions);
+    Arrays.setAll(writeStripes, stripe -> new ReentrantLock());
+
+    rebuild();
+  }
+
+  /** Drops all index entries and indexes every aggregate of the backing repository again. */
+  public void rebuild() {
+    lock.writeLock().lock();
+
+    try {
+      indexes.forEach(Map::clear);
+      indexedKeys.clear();
+      delegate.streamAll(REBUILD_FETCH_SIZE).forEach(this::index);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** @return ids of all aggregates whose attribute equals {@code key} */
+  public <K> List<ID> findIdsBy(@NotNull AggregateIndex<AR, K> index, @NotNull K key) {
+    var entries = entriesOf(index);
+
+    return read(() -> new ArrayList<>(entries.getOrDefault(key, Collections.emptySet())));
+  }
+
+  /** @return all aggregates whose attribute equals {@code key} */
+  public <K> List<AR> findBy(@NotNull AggregateIndex<AR, K> index, @NotNull K key) {
+    return load(findIdsBy(index, key));
+  }
+
+  /** @return the aggregate whose attribute equals {@code key}, usually used with unique indexes */
+  public <K> Optional<AR> findOneBy(@NotNull AggregateIndex<AR, K> index, @NotNull K key) {
+    return findBy(index, key).stream().findFirst();
+  }
+
+  /**
+   * Finds aggregates by a range of keys of a sorted index.
+   *
+   * @param from lowest key (inclusive) or null for no lower bound
+   * @param to highest key (exclusive) or null for no upper bound
+   * @return matching aggregates ordered by key
+   */
+  @SuppressWarnings("unchecked")
+  public <K extends Comparable<? super K>> List<AR> findRange(
+      @NotNull AggregateIndex<AR, K> index, K from, K to) {
+    if (!index.isSorted()) {
+      throw new DomainException(
+          ERR.INDEX_NOT_SORTED.parameters(Parameter.of("index", index.getName())));
+    }
+
+    var entries = (NavigableMap<Object, Set<ID>>) entriesOf(index);
+    var ids =
+        read(
+            () -> {
+              NavigableMap<Object, Set<ID>> range = entries;
+              if (from != null) {
+                range = range.tailMap(from, true);
+              }
+              if (to != null) {
+                range = range.headMap(to, false);
+              }
+
+              return range.values().stream()
+                  .flatMap(Collection::stream)
+                  .collect(Collectors.toList());
+            });
+
+    return load(ids);
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot) {
+    return indexed(List.of(aggregateRoot), () -> delegate.save(aggregateRoot));
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot, AggregateRoot<?> related) {
+    return indexed(List.of(aggregateRoot), () -> delegate.save(aggregateRoot, related));
+  }
+
+  @Override
+  public @NotNull List<AR> saveAll(@NotNull List<AR> aggregateRoots) {
+    return indexed(aggregateRoots, () -> delegate.saveAll(aggregateRoots));
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateRoot<?> related) {
+    return indexed(aggregateRoots, () -> delegate.saveMany(aggregateRoots, related));
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateId relatedId) {
+    return indexed(aggregateRoots, () -> delegate.saveMany(aggregateRoots, relatedId));
+  }
+
+  @Override
+  public @NotNull Optional<AR> find(@NotNull ID id) {
+    return delegate.find(id);
+  }
+
+  @Override
+  public List<AR> findMany(List<ID> ids) {
+    return delegate.findMany(ids);
+  }
+
+  @Override
+  public @NotNull List<AR> findAll() {
+    return delegate.findAll();
+  }
+
+  @Override
+  public boolean supportsKeysetPaging() {
+    return delegate.supportsKeysetPaging();
+  }
+
+  @Override
+  public @NotNull List<AR> findPage(ID after, int limit) {
+    return delegate.findPage(after, limit);
+  }
+
+  @Override
+  public @NotNull List<ID> findIdPage(ID after, int limit) {
+    return delegate.findIdPage(after, limit);
+  }
+
+  @Override
+  public void delete(@NotNull AR aggregateRoot) {
+    delete(aggregateRoot.getId());
+  }
+
+  @Override
+  public void delete(@NotNull ID id) {
+    var locked = lockWrites(List.of(id), List.of());
+
+    try {
+      var previous = write(() -> replaceKeys(id, null));
+
+      try {
+        delegate.delete(id);
+      } catch (RuntimeException e) {
+        write(() -> replaceKeys(id, previous, false));
+        throw e;
+      }
+    } finally {
+      locked.forEach(ReentrantLock::unlock);
+    }
+  }
+
+  @Override
+  public Long count() {
+    return delegate.count();
+  }
+
+  private <T> T indexed(List<AR> aggregateRoots, Supplier<T> save) {
+    var ids = aggregateRoots.stream().map(AggregateRoot::getId).collect(Collectors.toList());
+    var newKeys = aggregateRoots.stream().map(this::keysOf).collect(Collectors.toList());
+    var locked = lockWrites(ids, newKeys);
+
+    try {
+      var previous = write(() -> indexAll(aggregateRoots, newKeys));
+
+      try {
+        return save.get();
+      } catch (RuntimeException e) {
+        write(() -> restore(aggregateRoots, previous));
+        throw e;
+      }
+    } finally {
+      locked.forEach(ReentrantLock::unlock);
+    }
+  }
+
+  /**
+   * Locks the stripes of the ids and of their current and new unique keys in ascending order. The
+   * current keys are read before locking, so locking is repeated if a concurrent write changed
+   * them in between.
+   *
+   * @return locked stripes to unlock once the write completed
+   */
+  private List<ReentrantLock> lockWrites(List<ID> ids, List<Object[]> newKeys) {
+    while (true) {
+      var current = read(() -> ids.stream().map(indexedKeys::get).collect(Collectors.toList()));
+      var stripes = new TreeSet<Integer>();
+      ids.forEach(id -> stripes.add(stripeOf(id.hashCode())));
+      current.forEach(keys -> addUniqueKeyStripes(stripes, keys));
+      newKeys.forEach(keys -> addUniqueKeyStripes(stripes, keys));
+
+      var locked = new ArrayList<ReentrantLock>();
+      stripes.forEach(
+          stripe -> {
+            writeStripes[stripe].lock();
+            locked.add(writeStripes[stripe]);
+          });
+
+      var unchanged =
+          read(
+              () ->
+                  IntStream.range(0, ids.size())
+                      .allMatch(i -> indexedKeys.get(ids.get(i)) == current.get(i)));
+      if (unchanged) {
+        return locked;
+      }
+
+      locked.forEach(ReentrantLock::unlock);
+    }
+  }
+
+  private void addUniqueKeyStripes(Set<Integer> stripes, Object[] keys) {
+    for (var i = 0; keys != null && i < keys.length; i++) {
+      if (definitions.get(i).isUnique() && keys[i] != null) {
+        stripes.add(stripeOf(31 * i + keys[i].hashCode()));
+      }
+    }
+  }
+
+  private static int stripeOf(int hash) {
+    return (hash ^ (hash >>> 16)) & (WRITE_STRIPES - 1);
+  }
+
+  private List<Object[]> indexAll(List<AR> aggregateRoots, List<Object[]> keys) {
+    var previous = new ArrayList<Object[]>();
+
+    try {
+      for (var i = 0; i < aggregateRoots.size(); i++) {
+        previous.add(replaceKeys(aggregateRoots.get(i).getId(), keys.get(i)));
+      }
+    } catch (RuntimeException e) {
+      restore(aggregateRoots.subList(0, previous.size()), previous);
+      throw e;
+    }
+
+    return previous;
+  }
+
+  private Void restore(List<AR> aggregateRoots, List<Object[]> previous) {
+    for (var i = previous.size() - 1; i >= 0; i--) {
+      replaceKeys(aggregateRoots.get(i).getId(), previous.get(i), false);
+    }
+
+    return null;
+  }
+
+  private Object[] index(AR aggregateRoot) {
+    return replaceKeys(aggregateRoot.getId(), keysOf(aggregateRoot));
+  }
+
+  private Object[] keysOf(AR aggregateRoot) {
+    var keys = new Object[definitions.size()];
+
+    for (var i = 0; i < keys.length; i++) {
+      keys[i] = keyOf(definitions.get(i), aggregateRoot);
+    }
+
+    return keys;
+  }
+
+  /**
+   * Replaces the index entries of an aggregate. Unique constraints are checked for all indexes
+   * before anything is changed.
+   *
+   * @param keys new keys per index or null to remove the aggregate from all indexes
+   * @return previous keys or null if the aggregate was not indexed
+   */
+  private Object[] replaceKeys(ID id, Object[] keys) {
+    return replaceKeys(id, keys, true);
+  }
+
+  /** @param checkUnique false when rolling back to keys that were consistent before */
+  private Object[] replaceKeys(ID id, Object[] keys, boolean checkUnique) {
+    var previous = indexedKeys.get(id);
+
+    if (keys != null && checkUnique) {
+      ensureUnique(id, keys);
+    }
+
+    for (var i = 0; i < definitions.size(); i++) {
+      var oldKey = previous == null ? null : previous[i];
+      var newKey = keys == null ? null : keys[i];
+
+      if (Objects.equals(oldKey, newKey)) {
+        continue;
+      }
+
+      var entries = indexes.get(i);
+      if (oldKey != null) {
+        var ids = entries.get(oldKey);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+          entries.remove(oldKey);
+        }
+      }
+      if (newKey != null) {
+        entries.computeIfAbsent(newKey, key -> new LinkedHashSet<>()).add(id);
+      }
+    }
+
+    if (keys == null) {
+      indexedKeys.remove(id);
+    } else {
+      indexedKeys.put(id, keys);
+    }
+
+    return previous;
+  }
+
+  private void ensureUnique(ID id, Object[] keys) {
+    for (var i = 0; i < definitions.size(); i++) {
+      if (!definitions.get(i).isUnique() || keys[i] == null) {
+        continue;
+      }
+
+      var holders = indexes.get(i).getOrDefault(keys[i], Collections.emptySet());
+      var conflict = holders.stream().filter(holder -> !holder.equals(id)).findFirst();
+
+      if (conflict.isPresent()) {
+        throw new DomainException(
+            ERR.INDEX_KEY_NOT_UNIQUE.parameters(
+                Parameter.of("index", definitions.get(i).getName()),
+                Parameter.of("key", keys[i]),
+                Parameter.of("id", conflict.get().getId())));
+      }
+    }
+  }
+
+  private List<AR> load(List<ID> ids) {
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+
+    var loaded = new HashMap<ID, AR>();
+    delegate
+        .findMany(ids)
+        .forEach(aggregateRoot -> loaded.put(aggregateRoot.getId(), aggregateRoot));
+
+    return ids.stream().map(loaded::get).filter(Objects::nonNull).collect(Collectors.toList());
+  }
+
+  private Map<Object, Set<ID>> entriesOf(AggregateIndex<AR, ?> index) {
+    var position = definitions.indexOf(index);
+
+    if (position < 0) {
+      throw new DomainException(
+          ERR.INDEX_NOT_REGISTERED.parameters(Parameter.of("index", index.getName())));
+    }
+
+    return indexes.get(position);
+  }
+
+  private static <AR extends AggregateRoot<?>, K> Object keyOf(
+      AggregateIndex<AR, K> index, AR aggregateRoot) {
+    return index.keyOf(aggregateRoot);
+  }
+
+  private <T> T read(Supplier<T> reader) {
+    lock.readLock().lock();
+
+    try {
+      return reader.get();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private <T> T write(Supplier<T> writer) {
+    lock.writeLock().lock();
+
+    try {
+      return writer.get();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.sclable.domain.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects items submitted by many threads and hands them to a handler in batches. A batch is
+ * closed as soon as it holds {@code maxBatchSize} items or {@code maxDelay} has passed since its
+ * first item arrived. With a zero delay a batch contains whatever queued up while the previous
+ * batch was being handled.
+ *
+ * <p>The handler runs on a single worker thread and is responsible for completing any futures
+ * attached to the items, also in case of failure.
+ */
+final class MicroBatcher<T> implements AutoCloseable {
+  private static final long IDLE_POLL_MILLIS = 100;
+
+  private final BlockingQueue<T> queue = new LinkedBlockingQueue<>();
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final Consumer<List<T>> handler;
+  private final Thread worker;
+  private volatile boolean closed;
+
+  MicroBatcher(String name, int maxBatchSize, Duration maxDelay, Consumer<List<T>> handler) {
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelay.toNanos();
+    this.handler = handler;
+    this.worker = new Thread(this::run, name);
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  /**
+   * Queues an item for the next batch.
+   *
+   * @param item item to queue
+   * @return false if the batcher is closed and the item was not accepted
+   */
+  synchronized boolean submit(T item) {
+    if (closed) {
+      return false;
+    }
+
+    queue.add(item);
+    return true;
+  }
+
+  int pending() {
+    return queue.size();
+  }
+
+  /** Stops accepting items, hands all queued items to the handler and waits for the worker. */
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+    }
+
+    try {
+      worker.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    while (!closed || !queue.isEmpty()) {
+      try {
+        var first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+        if (first != null) {
+          handler.accept(collectBatch(first));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        // the handler owns error reporting, keep the worker alive for the next batch
+      }
+    }
+  }
+
+  private List<T> collectBatch(T first) throws InterruptedException {
+    var batch = new ArrayList<T>();
+    batch.add(first);
+
+    var deadline = System.nanoTime() + maxDelayNanos;
+
+    while (batch.size() < maxBatchSize) {
+      queue.drainTo(batch, maxBatchSize - batch.size());
+
+      var remaining = deadline - System.nanoTime();
+      if (batch.size() >= maxBatchSize || remaining <= 0) {
+        break;
+      }
+
+      var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+      if (next == null) {
+        break;
+      }
+
+      batch.add(next);
+    }
+
+    return batch;
+  }
+}
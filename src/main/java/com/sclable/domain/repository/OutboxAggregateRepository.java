@@ -0,0 +1,147 @@
+package com.sclable.domain.repository;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRepository;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.outbox.Outbox;
+import com.sclable.domain.outbox.UnresolvedSave;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Records the domain events of every saved aggregate in an {@link Outbox}, so they are published
+ * if and only if the save succeeded. Reads and deletes go straight to the backing repository.
+ *
+ * <p>Saves interrupted by a crash are resolved on construction, saves whose outcome could not be
+ * recorded by {@link #resolveInterrupted()}: an aggregate counts as saved if the backing repository
+ * holds it with the {@link AggregateRoot#fingerprint() content} it had when its events were
+ * recorded and at least its version then. A save that raised events without changing the
+ * aggregate cannot be told apart from one that did not run; resolve such records with {@link
+ * Outbox#resolve(String, java.util.function.Predicate)} directly.
+ *
+ * @example var orders = new OutboxAggregateRepository<>(orderRepository, outbox, OrderId::new,
+ *     Order.class);
+ */
+public class OutboxAggregateRepository<ID extends AggregateId, AR extends AggregateRoot<ID>>
+    implements AggregateRepository<ID, AR> {
+  private final AggregateRepository<ID, AR> delegate;
+  private final Outbox outbox;
+  private final String source;
+  private final Function<UUID, ID> idFactory;
+
+  /**
+   * @param delegate backing repository
+   * @param outbox outbox recording the domain events
+   * @param idFactory creates an aggregate id from its UUID
+   * @param type type of the aggregates, its name identifies their records in the outbox
+   */
+  public OutboxAggregateRepository(
+      @NotNull AggregateRepository<ID, AR> delegate,
+      @NotNull Outbox outbox,
+      @NotNull Function<UUID, ID> idFactory,
+      @NotNull Class<AR> type) {
+    this.delegate = delegate;
+    this.outbox = outbox;
+    this.source = type.getName();
+    this.idFactory = idFactory;
+
+    resolveInterrupted();
+  }
+
+  /**
+   * Resolves the records of this aggregate type held back by the outbox, e.g. after a commit
+   * marker could not be written.
+   *
+   * @return number of resolved records
+   */
+  public int resolveInterrupted() {
+    return outbox.resolve(source, this::wasSaved);
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot) {
+    return outbox.record(source, List.of(aggregateRoot), () -> delegate.save(aggregateRoot));
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot, AggregateRoot<?> related) {
+    return outbox.record(
+        source, List.of(aggregateRoot), () -> delegate.save(aggregateRoot, related));
+  }
+
+  @Override
+  public @NotNull List<AR> saveAll(@NotNull List<AR> aggregateRoots) {
+    return outbox.record(source, aggregateRoots, () -> delegate.saveAll(aggregateRoots));
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateRoot<?> related) {
+    return outbox.record(
+        source, aggregateRoots, () -> delegate.saveMany(aggregateRoots, related));
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateId relatedId) {
+    return outbox.record(
+        source, aggregateRoots, () -> delegate.saveMany(aggregateRoots, relatedId));
+  }
+
+  @Override
+  public @NotNull Optional<AR> find(@NotNull ID id) {
+    return delegate.find(id);
+  }
+
+  @Override
+  public List<AR> findMany(List<ID> ids) {
+    return delegate.findMany(ids);
+  }
+
+  @Override
+  public @NotNull List<AR> findAll() {
+    return delegate.findAll();
+  }
+
+  @Override
+  public boolean supportsKeysetPaging() {
+    return delegate.supportsKeysetPaging();
+  }
+
+  @Override
+  public @NotNull List<AR> findPage(ID after, int limit) {
+    return delegate.findPage(after, limit);
+  }
+
+  @Override
+  public @NotNull List<ID> findIdPage(ID after, int limit) {
+    return delegate.findIdPage(after, limit);
+  }
+
+  @Override
+  public void delete(@NotNull AR aggregateRoot) {
+    delegate.delete(aggregateRoot);
+  }
+
+  @Override
+  public void delete(@NotNull ID id) {
+    delegate.delete(id);
+  }
+
+  @Override
+  public Long count() {
+    return delegate.count();
+  }
+
+  private boolean wasSaved(UnresolvedSave save) {
+    return delegate
+        .find(idFactory.apply(save.getAggregateId()))
+        .map(
+            stored ->
+                stored.fingerprint() == save.getFingerprint()
+                    && stored.getVersion() >= save.getVersion())
+        .orElse(false);
+  }
+}
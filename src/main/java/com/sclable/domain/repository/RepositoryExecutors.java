@@ -0,0 +1,56 @@
+package com.sclable.domain.repository;
+
+import com.sclable.domain.Arguments;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors suited to run blocking repository calls. The library is compiled for Java 11, so
+ * virtual threads are looked up at runtime: on a JDK that provides {@code
+ * Executors.newVirtualThreadPerTaskExecutor()} every task gets its own virtual thread, on older
+ * JDKs a bounded pool of daemon platform threads is used instead.
+ */
+public final class RepositoryExecutors {
+  private RepositoryExecutors() {}
+
+  /**
+   * @param parallelism number of platform threads used if virtual threads are not available
+   * @return virtual thread per task executor or a fixed platform thread pool as fallback
+   */
+  public static ExecutorService newBlockingIoExecutor(int parallelism) {
+    return newVirtualThreadPerTaskExecutor()
+        .orElseGet(
+            () ->
+                Executors.newFixedThreadPool(
+                    Arguments.positive("parallelism", parallelism),
+                    daemonThreadFactory("repository-io-")));
+  }
+
+  /** @return virtual thread per task executor if the running JDK supports virtual threads */
+  public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+    try {
+      var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return Optional.of((ExecutorService) factory.invoke(null));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return Optional.empty();
+    } catch (InvocationTargetException e) {
+      // virtual threads are a disabled preview feature on JDK 19 and 20
+      return Optional.empty();
+    }
+  }
+
+  static ThreadFactory daemonThreadFactory(String prefix) {
+    var counter = new AtomicInteger();
+
+    return runnable -> {
+      var thread = new Thread(runnable, prefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,300 @@
+package com.sclable.domain.repository;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRepository;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.Arguments;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads aggregates over several backing repositories by consistent hashing of their {@link
+ * AggregateId}. Single aggregate operations go straight to the owning shard; bulk operations
+ * ({@link #findMany(List)}, {@link #saveAll(List)}, {@link #findAll()}, {@link #count()} and
+ * paging) are scattered to the shards in parallel and their results gathered.
+ *
+ * <p>{@link #addShard(AggregateRepository)} moves only the aggregates the new shard takes over.
+ * Writes wait while a shard is being added, reads keep being served by the previous owners until
+ * the moved aggregates are in place.
+ *
+ * @example var orders = new ShardedAggregateRepository<>(List.of(shard0, shard1, shard2));
+ */
+public class ShardedAggregateRepository<ID extends AggregateId, AR extends AggregateRoot<ID>>
+    implements AggregateRepository<ID, AR>, AutoCloseable {
+  public static final int DEFAULT_VIRTUAL_NODES = 128;
+  private static final int REBALANCE_FETCH_SIZE = 500;
+
+  private final Executor executor;
+  private final boolean ownsExecutor;
+  private final ReadWriteLock rebalanceLock = new ReentrantReadWriteLock();
+  private volatile ConsistentHashRing<AggregateRepository<ID, AR>> ring;
+
+  public ShardedAggregateRepository(@NotNull List<? extends AggregateRepository<ID, AR>> shards) {
+    this(
+        shards,
+        DEFAULT_VIRTUAL_NODES,
+        RepositoryExecutors.newBlockingIoExecutor(Math.max(shards.size(), 1)),
+        true);
+  }
+
+  /**
+   * @param shards backing repositories, the order determines the ring positions and has to stay
+   *     the same whenever the sharded repository is created again
+   * @param virtualNodes ring positions per shard, more positions spread keys more evenly
+   * @param executor executor the scattered calls run on, it is not shut down by {@link #close()}
+   */
+  public ShardedAggregateRepository(
+      @NotNull List<? extends AggregateRepository<ID, AR>> shards,
+      int virtualNodes,
+      @NotNull Executor executor) {
+    this(shards, virtualNodes, executor, false);
+  }
+
+  private ShardedAggregateRepository(
+      List<? extends AggregateRepository<ID, AR>> shards,
+      int virtualNodes,
+      Executor executor,
+      boolean ownsExecutor) {
+    Arguments.positive("shards", shards.size());
+    this.ring =
+        new ConsistentHashRing<>(
+            new ArrayList<>(shards), Arguments.positive("virtualNodes", virtualNodes));
+    this.executor = executor;
+    this.ownsExecutor = ownsExecutor;
+  }
+
+  /**
+   * Adds a shard and moves the aggregates it takes over from the existing shards.
+   *
+   * @param shard new, empty backing repository
+   * @return number of moved aggregates
+   */
+  public long addShard(@NotNull AggregateRepository<ID, AR> shard) {
+    rebalanceLock.writeLock().lock();
+
+    try {
+      var current = ring;
+      var extended = current.with(shard);
+      var moved = new HashMap<AggregateRepository<ID, AR>, List<ID>>();
+
+      for (var source : current.shards()) {
+        var ids =
+            source
+                .streamAllIds(REBALANCE_FETCH_SIZE)
+                .filter(id -> extended.shardOf(id.getId()) == shard)
+                .collect(Collectors.toList());
+
+        for (var from = 0; from < ids.size(); from += REBALANCE_FETCH_SIZE) {
+          var page = ids.subList(from, Math.min(from + REBALANCE_FETCH_SIZE, ids.size()));
+          shard.saveAll(source.findMany(page));
+        }
+
+        moved.put(source, ids);
+      }
+
+      ring = extended;
+      moved.forEach((source, ids) -> ids.forEach(source::delete));
+
+      return moved.values().stream().mapToLong(List::size).sum();
+    } finally {
+      rebalanceLock.writeLock().unlock();
+    }
+  }
+
+  /** @return backing repositories in ring order */
+  public List<AggregateRepository<ID, AR>> getShards() {
+    return ring.shards();
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot) {
+    return write(() -> shardOf(aggregateRoot.getId()).save(aggregateRoot));
+  }
+
+  @Override
+  public @NotNull AR save(@NotNull AR aggregateRoot, AggregateRoot<?> related) {
+    return write(() -> shardOf(aggregateRoot.getId()).save(aggregateRoot, related));
+  }
+
+  @Override
+  public @NotNull List<AR> saveAll(@NotNull List<AR> aggregateRoots) {
+    return write(() -> saveScattered(aggregateRoots, AggregateRepository::saveAll));
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateRoot<?> related) {
+    return write(
+        () ->
+            saveScattered(aggregateRoots, (shard, batch) -> shard.saveMany(batch, related)));
+  }
+
+  @Override
+  public @NotNull List<AR> saveMany(@NotNull List<AR> aggregateRoots, AggregateId relatedId) {
+    return write(
+        () ->
+            saveScattered(aggregateRoots, (shard, batch) -> shard.saveMany(batch, relatedId)));
+  }
+
+  @Override
+  public @NotNull Optional<AR> find(@NotNull ID id) {
+    return shardOf(id).find(id);
+  }
+
+  @Override
+  public List<AR> findMany(List<ID> ids) {
+    var loaded = new HashMap<ID, AR>();
+    scatter(groupByShard(ids, Function.identity()), AggregateRepository::findMany)
+        .forEach(aggregateRoot -> loaded.put(aggregateRoot.getId(), aggregateRoot));
+
+    return ids.stream()
+        .distinct()
+        .map(loaded::get)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public @NotNull List<AR> findAll() {
+    return gather(AggregateRepository::findAll).stream()
+        .flatMap(List::stream)
+        .collect(Collectors.toList());
+  }
+
+  /** @return true if all shards support keyset paging, so every page merges one page per shard */
+  @Override
+  public boolean supportsKeysetPaging() {
+    return ring.shards().stream().allMatch(AggregateRepository::supportsKeysetPaging);
+  }
+
+  @Override
+  public @NotNull List<AR> findPage(ID after, int limit) {
+    return gather(shard -> shard.findPage(after, limit)).stream()
+        .flatMap(List::stream)
+        .sorted(Comparator.comparing(AggregateRoot::getId))
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public @NotNull List<ID> findIdPage(ID after, int limit) {
+    return gather(shard -> shard.findIdPage(after, limit)).stream()
+        .flatMap(List::stream)
+        .sorted()
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public void delete(@NotNull AR aggregateRoot) {
+    write(
+        () -> {
+          shardOf(aggregateRoot.getId()).delete(aggregateRoot);
+          return null;
+        });
+  }
+
+  @Override
+  public void delete(@NotNull ID id) {
+    write(
+        () -> {
+          shardOf(id).delete(id);
+          return null;
+        });
+  }
+
+  @Override
+  public Long count() {
+    return gather(AggregateRepository::count).stream().mapToLong(Long::longValue).sum();
+  }
+
+  /** Shuts down the executor if it was created by this repository. */
+  @Override
+  public void close() {
+    if (ownsExecutor) {
+      ((ExecutorService) executor).shutdown();
+    }
+  }
+
+  private AggregateRepository<ID, AR> shardOf(ID id) {
+    return ring.shardOf(id.getId());
+  }
+
+  private List<AR> saveScattered(
+      List<AR> aggregateRoots,
+      BiFunction<AggregateRepository<ID, AR>, List<AR>, List<AR>> save) {
+    var saved = new HashMap<ID, AR>();
+    scatter(groupByShard(aggregateRoots, AggregateRoot::getId), save)
+        .forEach(aggregateRoot -> saved.put(aggregateRoot.getId(), aggregateRoot));
+
+    return aggregateRoots.stream()
+        .map(aggregateRoot -> saved.getOrDefault(aggregateRoot.getId(), aggregateRoot))
+        .collect(Collectors.toList());
+  }
+
+  private <T> Map<AggregateRepository<ID, AR>, List<T>> groupByShard(
+      List<T> elements, Function<T, ID> idOf) {
+    var current = ring;
+    var groups = new LinkedHashMap<AggregateRepository<ID, AR>, List<T>>();
+    elements.forEach(
+        element ->
+            groups
+                .computeIfAbsent(
+                    current.shardOf(idOf.apply(element).getId()), shard -> new ArrayList<>())
+                .add(element));
+
+    return groups;
+  }
+
+  private <T> List<AR> scatter(
+      Map<AggregateRepository<ID, AR>, List<T>> groups,
+      BiFunction<AggregateRepository<ID, AR>, List<T>, List<AR>> operation) {
+    var futures =
+        groups.entrySet().stream()
+            .map(
+                group ->
+                    CompletableFuture.supplyAsync(
+                        () -> operation.apply(group.getKey(), group.getValue()), executor))
+            .collect(Collectors.toList());
+
+    return futures.stream()
+        .map(Futures::await)
+        .flatMap(List::stream)
+        .collect(Collectors.toList());
+  }
+
+  private <T> List<T> gather(Function<AggregateRepository<ID, AR>, T> operation) {
+    var futures =
+        ring.shards().stream()
+            .map(shard -> CompletableFuture.supplyAsync(() -> operation.apply(shard), executor))
+            .collect(Collectors.toList());
+
+    return futures.stream().map(Futures::await).collect(Collectors.toList());
+  }
+
+  private <T> T write(Supplier<T> operation) {
+    rebalanceLock.readLock().lock();
+
+    try {
+      return operation.get();
+    } finally {
+      rebalanceLock.readLock().unlock();
+    }
+  }
+}
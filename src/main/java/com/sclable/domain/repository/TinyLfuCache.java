@@ -0,0 +1,231 @@
+package com.sclable.domain.repository;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded cache with a W-TinyLFU eviction policy. New entries enter a small LRU admission window.
+ * Entries leaving the window compete with the least recently used entry of the main region and are
+ * only admitted if their estimated access frequency is higher, which keeps one-off scans from
+ * flushing frequently used entries. The main region is a segmented LRU: entries hit a second time
+ * are promoted from probation to the protected segment.
+ *
+ * <p>Capacity is expressed in weight units; with a weigher returning 1 the cache is bounded by the
+ * number of entries. All operations are guarded by the cache's monitor.
+ */
+final class TinyLfuCache<K, V> {
+  private static final double WINDOW_RATIO = 0.01;
+  private static final double PROTECTED_RATIO = 0.8;
+
+  private final long maximumWeight;
+  private final long windowMaximum;
+  private final long protectedMaximum;
+  private final ToLongFunction<V> weigher;
+  private final FrequencySketch sketch;
+
+  private final Map<K, Node<K, V>> data = new HashMap<>();
+  private final LinkedHashMap<K, Node<K, V>> window = new LinkedHashMap<>();
+  private final LinkedHashMap<K, Node<K, V>> probation = new LinkedHashMap<>();
+  private final LinkedHashMap<K, Node<K, V>> protectedSegment = new LinkedHashMap<>();
+  private long windowWeight;
+  private long probationWeight;
+  private long protectedWeight;
+
+  TinyLfuCache(long maximumWeight, ToLongFunction<V> weigher) {
+    this.maximumWeight = maximumWeight;
+    this.windowMaximum = Math.max(1, (long) (maximumWeight * WINDOW_RATIO));
+    this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_RATIO);
+    this.weigher = weigher;
+    this.sketch = new FrequencySketch(maximumWeight);
+  }
+
+  /** Counts a hit as access; a miss is counted by the {@link #put(Object, Object)} that follows. */
+  synchronized V get(K key) {
+    var node = data.get(key);
+    if (node == null) {
+      return null;
+    }
+
+    sketch.increment(key);
+    onHit(node);
+    return node.value;
+  }
+
+  synchronized V peek(K key) {
+    var node = data.get(key);
+    return node == null ? null : node.value;
+  }
+
+  synchronized void put(K key, V value) {
+    sketch.increment(key);
+
+    var node = data.get(key);
+    if (node != null) {
+      unlink(node);
+      node.value = value;
+      node.weight = weigher.applyAsLong(value);
+      link(node);
+      onHit(node);
+    } else {
+      node = new Node<>(key, value, weigher.applyAsLong(value));
+      data.put(key, node);
+      link(node);
+    }
+
+    evict();
+  }
+
+  synchronized void remove(K key) {
+    var node = data.remove(key);
+
+    if (node != null) {
+      unlink(node);
+    }
+  }
+
+  synchronized void clear() {
+    data.clear();
+    window.clear();
+    probation.clear();
+    protectedSegment.clear();
+    windowWeight = 0;
+    probationWeight = 0;
+    protectedWeight = 0;
+  }
+
+  synchronized int size() {
+    return data.size();
+  }
+
+  synchronized long weight() {
+    return windowWeight + probationWeight + protectedWeight;
+  }
+
+  private void onHit(Node<K, V> node) {
+    unlink(node);
+
+    if (node.segment == Segment.PROBATION) {
+      node.segment = Segment.PROTECTED;
+      link(node);
+      demoteProtectedOverflow();
+    } else {
+      link(node);
+    }
+  }
+
+  private void demoteProtectedOverflow() {
+    while (protectedWeight > protectedMaximum && protectedSegment.size() > 1) {
+      var demoted = first(protectedSegment);
+      unlink(demoted);
+      demoted.segment = Segment.PROBATION;
+      link(demoted);
+    }
+  }
+
+  private void evict() {
+    while (windowWeight > windowMaximum && !window.isEmpty()) {
+      var candidate = first(window);
+      unlink(candidate);
+      admit(candidate);
+    }
+
+    while (weight() > maximumWeight && !data.isEmpty()) {
+      var victim = victim();
+      if (victim == null) {
+        victim = first(window);
+      }
+      evict(victim);
+    }
+  }
+
+  private void admit(Node<K, V> candidate) {
+    var mainMaximum = maximumWeight - windowMaximum;
+
+    while (probationWeight + protectedWeight + candidate.weight > mainMaximum) {
+      var victim = victim();
+
+      if (victim == null || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+        data.remove(candidate.key);
+        return;
+      }
+
+      evict(victim);
+    }
+
+    candidate.segment = Segment.PROBATION;
+    link(candidate);
+  }
+
+  private Node<K, V> victim() {
+    if (!probation.isEmpty()) {
+      return first(probation);
+    }
+
+    return protectedSegment.isEmpty() ? null : first(protectedSegment);
+  }
+
+  private void evict(Node<K, V> node) {
+    unlink(node);
+    data.remove(node.key);
+  }
+
+  private void link(Node<K, V> node) {
+    segment(node.segment).put(node.key, node);
+    addWeight(node.segment, node.weight);
+  }
+
+  private void unlink(Node<K, V> node) {
+    if (segment(node.segment).remove(node.key) != null) {
+      addWeight(node.segment, -node.weight);
+    }
+  }
+
+  private LinkedHashMap<K, Node<K, V>> segment(Segment segment) {
+    switch (segment) {
+      case PROBATION:
+        return probation;
+      case PROTECTED:
+        return protectedSegment;
+      default:
+        return window;
+    }
+  }
+
+  private void addWeight(Segment segment, long weight) {
+    switch (segment) {
+      case PROBATION:
+        probationWeight += weight;
+        break;
+      case PROTECTED:
+        protectedWeight += weight;
+        break;
+      default:
+        windowWeight += weight;
+    }
+  }
+
+  private static <K, V> Node<K, V> first(LinkedHashMap<K, Node<K, V>> segment) {
+    return segment.values().iterator().next();
+  }
+
+  private enum Segment {
+    WINDOW,
+    PROBATION,
+    PROTECTED
+  }
+
+  private static final class Node<K, V> {
+    private final K key;
+    private V value;
+    private long weight;
+    private Segment segment = Segment.WINDOW;
+
+    private Node(K key, V value, long weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+}
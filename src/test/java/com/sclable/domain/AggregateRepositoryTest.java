@@ -0,0 +1,169 @@
+package com.sclable.domain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class AggregateRepositoryTest {
+  @Test
+  void streamAllWalksAllPagesInIdOrder() {
+    var repository = new PagedRepository();
+    for (var i = 0; i < 25; i++) {
+      repository.save(new TestAggregate());
+    }
+
+    var streamed = repository.streamAll(10).map(TestAggregate::getId).collect(Collectors.toList());
+
+    assertEquals(new ArrayList<>(repository.aggregates.keySet()), streamed);
+    assertEquals(3, repository.pageLoads);
+  }
+
+  @Test
+  void streamAllIdsIsLazy() {
+    var repository = new PagedRepository();
+    for (var i = 0; i < 25; i++) {
+      repository.save(new TestAggregate());
+    }
+
+    assertEquals(5, repository.streamAllIds(5).limit(5).count());
+    assertEquals(1, repository.pageLoads);
+  }
+
+  @Test
+  void streamAllWithoutNativePagingLoadsAllAggregatesOnce() {
+    var repository = new UnpagedRepository();
+    for (var i = 0; i < 25; i++) {
+      repository.save(new TestAggregate());
+    }
+
+    var streamed = repository.streamAllIds(10).collect(Collectors.toList());
+
+    assertEquals(new ArrayList<>(repository.aggregates.keySet()), streamed);
+    assertEquals(1, repository.findAllCalls);
+  }
+
+  @Test
+  void defaultFindPageUsesKeysetOrder() {
+    var repository = new PagedRepository();
+    for (var i = 0; i < 5; i++) {
+      repository.save(new TestAggregate());
+    }
+
+    var ids = new ArrayList<>(repository.aggregates.keySet());
+    var page = repository.defaultFindPage(ids.get(1), 2);
+
+    assertEquals(ids.subList(2, 4), page.stream().map(TestAggregate::getId).collect(Collectors.toList()));
+  }
+
+  @Test
+  void aggregateIdsAreComparedUnsigned() {
+    var low = new TestId(new UUID(0x7fffffffffffffffL, 0));
+    var high = new TestId(new UUID(0x8000000000000000L, 0));
+
+    assertTrue(low.compareTo(high) < 0);
+  }
+
+  private static class TestId extends AggregateId {
+    public TestId() {}
+
+    public TestId(UUID id) {
+      super(id);
+    }
+  }
+
+  private static class TestAggregate extends AggregateRoot<TestId> {
+    public TestAggregate() {
+      super(new TestId());
+    }
+  }
+
+  private static class PagedRepository extends UnpagedRepository {
+    private int pageLoads;
+
+    @Override
+    public boolean supportsKeysetPaging() {
+      return true;
+    }
+
+    @Override
+    public List<TestAggregate> findPage(TestId after, int limit) {
+      pageLoads++;
+      var tail = after == null ? aggregates : aggregates.tailMap(after, false);
+      return tail.values().stream().limit(limit).collect(Collectors.toList());
+    }
+
+    List<TestAggregate> defaultFindPage(TestId after, int limit) {
+      return super.findPage(after, limit);
+    }
+  }
+
+  private static class UnpagedRepository implements AggregateRepository<TestId, TestAggregate> {
+    final TreeMap<TestId, TestAggregate> aggregates = new TreeMap<>();
+    private int findAllCalls;
+
+    @Override
+    public TestAggregate save(TestAggregate aggregateRoot) {
+      aggregates.put(aggregateRoot.getId(), aggregateRoot);
+      return aggregateRoot;
+    }
+
+    @Override
+    public TestAggregate save(TestAggregate aggregateRoot, AggregateRoot<?> related) {
+      return save(aggregateRoot);
+    }
+
+    @Override
+    public List<TestAggregate> saveAll(List<TestAggregate> aggregateRoots) {
+      aggregateRoots.forEach(this::save);
+      return aggregateRoots;
+    }
+
+    @Override
+    public List<TestAggregate> saveMany(
+        List<TestAggregate> aggregateRoots, AggregateRoot<?> related) {
+      return saveAll(aggregateRoots);
+    }
+
+    @Override
+    public List<TestAggregate> saveMany(List<TestAggregate> aggregateRoots, AggregateId relatedId) {
+      return saveAll(aggregateRoots);
+    }
+
+    @Override
+    public Optional<TestAggregate> find(TestId id) {
+      return Optional.ofNullable(aggregates.get(id));
+    }
+
+    @Override
+    public List<TestAggregate> findMany(List<TestId> ids) {
+      return ids.stream().map(aggregates::get).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<TestAggregate> findAll() {
+      findAllCalls++;
+      return new ArrayList<>(aggregates.values());
+    }
+
+    @Override
+    public void delete(TestAggregate aggregateRoot) {
+      aggregates.remove(aggregateRoot.getId());
+    }
+
+    @Override
+    public void delete(TestId id) {
+      aggregates.remove(id);
+    }
+
+    @Override
+    public Long count() {
+      return (long) aggregates.size();
+    }
+  }
+}
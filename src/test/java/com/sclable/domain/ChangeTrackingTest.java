@@ -0,0 +1,275 @@
+package com.sclable.domain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.exception.DomainException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.jupiter.api.Test;
+
+class ChangeTrackingTest {
+  @Test
+  void entitiesRecordNetChanges() {
+    var kept = new Item(new ItemId());
+    var removed = new Item(new ItemId());
+    var items = new Items();
+    items.addAll(Set.of(kept, removed));
+    items.markClean();
+
+    var added = new Item(new ItemId());
+    var transientItem = new Item(new ItemId());
+    var replacement = new Item(kept.getId());
+    items.add(added);
+    items.add(transientItem);
+    items.remove(transientItem);
+    items.remove(removed);
+    items.replace(replacement);
+
+    var changes = items.getChanges();
+    assertEquals(List.of(added), changes.getAdded());
+    assertEquals(List.of(removed), changes.getRemoved());
+    assertSame(replacement, changes.getReplaced().get(0));
+
+    items.markClean();
+    assertFalse(items.isDirty());
+  }
+
+  @Test
+  void removingAndAddingAgainIsReplacement() {
+    var ids = new ItemIds();
+    var id = new ItemId();
+    ids.add(id);
+    ids.markClean();
+
+    ids.remove(id);
+    ids.add(new ItemId(id.getId()));
+
+    assertTrue(ids.getChanges().getAdded().isEmpty());
+    assertTrue(ids.getChanges().getRemoved().isEmpty());
+    assertEquals(1, ids.getChanges().getReplaced().size());
+  }
+
+  @Test
+  void sortingIsRecordedAsReorder() {
+    var items = new OrderedItems();
+    items.add(new Item(new ItemId()));
+    items.add(new Item(new ItemId()));
+    items.markClean();
+
+    items.sort((left, right) -> right.getId().getId().compareTo(left.getId().getId()));
+
+    assertTrue(items.getChanges().isReordered());
+    assertTrue(items.getChanges().getRemoved().isEmpty());
+  }
+
+  @Test
+  void replacingKeepsPositionInOrderedEntities() {
+    var first = new Item(new ItemId());
+    var second = new Item(new ItemId());
+    var items = new OrderedItems();
+    items.add(first);
+    items.add(second);
+    items.markClean();
+
+    var replacement = new Item(first.getId());
+    items.replace(replacement);
+
+    assertSame(replacement, items.getAllSorted().get(0));
+    assertSame(second, items.getAllSorted().get(1));
+    assertFalse(items.getChanges().isReordered());
+    assertThrows(DomainException.class, () -> items.replace(null));
+  }
+
+  @Test
+  void entityExposesChangedCollections() {
+    var order = new Order(new ItemId());
+    order.items.add(new Item(new ItemId()));
+
+    assertEquals(Set.of("items"), order.getCollectionChanges().keySet());
+
+    order.markCollectionsClean();
+    assertFalse(order.hasCollectionChanges());
+
+    order.items.add(new Item(new ItemId()));
+    var deserialized = SerializationUtils.clone(order);
+    assertFalse(deserialized.hasCollectionChanges());
+  }
+
+  @Test
+  void fingerprintIsOrderIndependentAndIncremental() {
+    var first = new Item(new ItemId());
+    var second = new Item(new ItemId());
+    var items = new Items();
+    var reversed = new Items();
+    items.add(first);
+    items.add(second);
+    reversed.add(second);
+    reversed.add(first);
+
+    assertEquals(items.fingerprint(), reversed.fingerprint());
+    assertTrue(items.equals(reversed));
+
+    reversed.remove(first);
+    reversed.add(new Item(new ItemId()));
+
+    assertNotEquals(items.fingerprint(), reversed.fingerprint());
+    assertFalse(items.equals(reversed));
+
+    items.getAll().remove(second);
+    assertEquals(Fingerprint.of(items.getAll(), Item::getId).value(), items.fingerprint());
+  }
+
+  @Test
+  void entityFingerprintFollowsCollections() {
+    var order = new Order(new ItemId());
+    var empty = order.fingerprint();
+
+    order.items.add(new Item(new ItemId()));
+    var withItem = order.fingerprint();
+    assertNotEquals(empty, withItem);
+
+    order.related.add(new ItemId());
+    assertNotEquals(withItem, order.fingerprint());
+    assertEquals(order.fingerprint(), SerializationUtils.clone(order).fingerprint());
+  }
+
+  @Test
+  void entityFingerprintFollowsContentOfChildren() {
+    var item = new Item(new ItemId());
+    var order = new Order(new ItemId());
+    order.items.add(item);
+    var before = order.fingerprint();
+
+    var replacement = new Item(item.getId());
+    replacement.name = "changed";
+    order.items.replace(replacement);
+    var replaced = order.fingerprint();
+    assertNotEquals(before, replaced);
+
+    replacement.name = "changed again";
+    assertEquals(replaced, order.fingerprint());
+
+    order.items.replace(replacement);
+    assertNotEquals(replaced, order.fingerprint());
+  }
+
+  @Test
+  void fingerprintIsEqualAcrossJvms() {
+    var item = new Item(new ItemId(new UUID(1, 2)));
+    item.name = "name";
+
+    assertEquals(8178549644439589424L, item.fingerprint());
+
+    item.status = Status.SHIPPED;
+    assertNotEquals(8178549644439589424L, item.fingerprint());
+  }
+
+  @Test
+  void fingerprintFollowsModificationsOfBackingSetKeepingSize() {
+    var items = new Items();
+    items.add(new Item(new ItemId()));
+    var before = items.fingerprint();
+
+    var all = items.getAll();
+    all.clear();
+    all.add(new Item(new ItemId()));
+
+    assertNotEquals(before, items.fingerprint());
+    assertEquals(Fingerprint.of(items.getAll(), Item::getId).value(), items.fingerprint());
+  }
+
+  @Test
+  void lazyCollectionsLoadOnFirstAccessOnly() {
+    var item = new Item(new ItemId());
+    var loads = new int[1];
+    var order = new Order(new ItemId());
+    order.items.loadLazily(
+        () -> {
+          loads[0]++;
+          return List.of(item);
+        });
+
+    assertFalse(order.items.isLoaded());
+    order.markCollectionsClean();
+    assertEquals(0, loads[0]);
+
+    var copy = SerializationUtils.clone(order);
+    assertEquals(1, loads[0]);
+    assertTrue(copy.items.contains(item));
+    assertTrue(order.items.contains(item.getId()));
+    assertFalse(order.items.isDirty());
+    assertEquals(1, loads[0]);
+  }
+
+  @Test
+  void lazyCollectionsWithStoredFingerprintAreNotLoadedForFingerprint() {
+    var order = new Order(new ItemId());
+    order.items.add(new Item(new ItemId()));
+    order.related.add(new ItemId());
+    var items = List.copyOf(order.items.getAll());
+    var related = List.copyOf(order.related.getAll());
+    var expected = order.fingerprint();
+    var loads = new int[1];
+
+    var loaded = new Order(order.getId());
+    loaded.items.loadLazily(
+        () -> {
+          loads[0]++;
+          return items;
+        },
+        order.items.contentFingerprint());
+    loaded.related.loadLazily(
+        () -> {
+          loads[0]++;
+          return related;
+        },
+        order.related.fingerprint());
+
+    assertEquals(expected, loaded.fingerprint());
+    assertEquals(0, loads[0]);
+
+    loaded.items.getAll();
+    loaded.related.getAll();
+    assertEquals(expected, loaded.fingerprint());
+    assertEquals(2, loads[0]);
+  }
+
+  private static class ItemId extends EntityId {
+    public ItemId() {}
+
+    public ItemId(UUID id) {
+      super(id);
+    }
+  }
+
+  private enum Status {
+    OPEN,
+    SHIPPED
+  }
+
+  private static class Item extends Entity<ItemId> {
+    private String name;
+    private Status status = Status.OPEN;
+
+    public Item(ItemId id) {
+      super(id);
+    }
+  }
+
+  private static class Items extends Entities<ItemId, Item> {}
+
+  private static class OrderedItems extends OrderedEntities<ItemId, Item> {}
+
+  private static class ItemIds extends EntityIds<ItemId> {}
+
+  private static class Order extends Entity<ItemId> {
+    private final Items items = new Items();
+    private final ItemIds related = new ItemIds();
+
+    public Order(ItemId id) {
+      super(id);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package com.sclable.domain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class DomainEventCollectorTest {
+  private abstract static class LineEvent implements DomainEventMessage {
+    final String line;
+    final int quantity;
+
+    LineEvent(String line, int quantity) {
+      this.line = line;
+      this.quantity = quantity;
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName() + " " + line + " " + quantity;
+    }
+  }
+
+  private static class LineAdded extends LineEvent {
+    LineAdded(String line) {
+      super(line, 0);
+    }
+  }
+
+  private static class LineRemoved extends LineEvent {
+    LineRemoved(String line) {
+      super(line, 0);
+    }
+  }
+
+  private static class QuantityChanged extends LineEvent {
+    QuantityChanged(String line, int quantity) {
+      super(line, quantity);
+    }
+  }
+
+  private static class PriceChanged extends LineEvent {
+    PriceChanged(String line, int price) {
+      super(line, price);
+    }
+  }
+
+  private static List<String> describe(List<LineEvent> events) {
+    return events.stream().map(LineEvent::toString).collect(Collectors.toList());
+  }
+
+  @Test
+  void lastEventPerKeyWinsAtItsLatestPosition() {
+    var collector =
+        new DomainEventCollector<LineEvent>()
+            .coalesceLastWins(QuantityChanged.class, event -> event.line);
+
+    collector.add(new LineAdded("a"));
+    for (var quantity = 1; quantity <= 500; quantity++) {
+      collector.add(new QuantityChanged("a", quantity));
+      collector.add(new QuantityChanged("b", -quantity));
+    }
+    collector.add(new LineAdded("c"));
+    collector.add(new QuantityChanged("b", 7));
+
+    assertEquals(
+        List.of("LineAdded a 0", "QuantityChanged a 500", "LineAdded c 0", "QuantityChanged b 7"),
+        describe(collector.getEvents()));
+  }
+
+  @Test
+  void eventsOfAKeyAreMerged() {
+    var collector =
+        new DomainEventCollector<LineEvent>()
+            .coalesceMerging(
+                QuantityChanged.class,
+                event -> event.line,
+                (previous, next) ->
+                    new QuantityChanged(next.line, previous.quantity + next.quantity));
+
+    for (var i = 0; i < 10; i++) {
+      collector.add(new QuantityChanged("a", 2));
+    }
+    collector.add(new QuantityChanged("b", 1));
+
+    assertEquals(
+        List.of("QuantityChanged a 20", "QuantityChanged b 1"), describe(collector.getEvents()));
+  }
+
+  @Test
+  void cancellingPairsAreDropped() {
+    var collector =
+        new DomainEventCollector<LineEvent>()
+            .coalesceCancelling(
+                LineAdded.class, event -> event.line, LineRemoved.class, event -> event.line);
+
+    collector.add(new LineAdded("a"));
+    collector.add(new LineAdded("b"));
+    collector.add(new LineRemoved("a"));
+    collector.add(new LineRemoved("c"));
+
+    assertEquals(List.of("LineAdded b 0", "LineRemoved c 0"), describe(collector.getEvents()));
+  }
+
+  @Test
+  void coalescingContinuesAfterEventsWereReadAndStopsAtClear() {
+    var collector =
+        new DomainEventCollector<LineEvent>()
+            .coalesceLastWins(QuantityChanged.class, event -> event.line)
+            .coalesceCancelling(
+                LineAdded.class,
+                event -> event.line,
+                LineRemoved.class,
+                event -> event.line,
+                QuantityChanged.class);
+
+    collector.add(new LineAdded("a"));
+    collector.add(new QuantityChanged("a", 1));
+    collector.add(new QuantityChanged("a", 2));
+    var read = collector.getEvents();
+    assertEquals(2, read.size());
+
+    collector.add(new QuantityChanged("a", 3));
+    collector.add(new QuantityChanged("b", 1));
+    collector.add(new LineRemoved("a"));
+    assertEquals(List.of("QuantityChanged b 1"), describe(collector.getEvents()));
+    assertEquals(List.of("QuantityChanged b 1"), describe(read));
+    assertThrows(UnsupportedOperationException.class, () -> read.add(new LineAdded("x")));
+
+    collector.clear();
+    collector.add(new QuantityChanged("a", 4));
+    collector.add(new LineRemoved("a"));
+    assertEquals(
+        List.of("QuantityChanged a 4", "LineRemoved a 0"), describe(collector.getEvents()));
+  }
+
+  @Test
+  void cancellingDropsOnlyLaterEventsOfDependentRules() {
+    var collector =
+        new DomainEventCollector<LineEvent>()
+            .coalesceLastWins(QuantityChanged.class, event -> event.line)
+            .coalesceLastWins(PriceChanged.class, event -> event.line)
+            .coalesceCancelling(
+                LineAdded.class,
+                event -> event.line,
+                LineRemoved.class,
+                event -> event.line,
+                QuantityChanged.class);
+
+    collector.add(new QuantityChanged("a", 1));
+    collector.add(new LineAdded("a"));
+    collector.add(new PriceChanged("a", 5));
+    var read = collector.getEvents();
+    collector.add(new LineRemoved("a"));
+
+    assertEquals(List.of("QuantityChanged a 1", "PriceChanged a 5"), describe(read));
+  }
+
+  @Test
+  void eventsWithoutRulesAreKeptAsAdded() {
+    var collector = new DomainEventCollector<LineEvent>();
+
+    collector.add(new QuantityChanged("a", 1));
+    collector.add(new QuantityChanged("a", 1));
+
+    assertEquals(2, collector.getEvents().size());
+  }
+}
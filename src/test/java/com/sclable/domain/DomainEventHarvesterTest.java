@@ -0,0 +1,122 @@
+package com.sclable.domain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DomainEventHarvesterTest {
+  @TempDir Path spillDirectory;
+
+  private static class Named implements DomainEventMessage {
+    private final String name;
+
+    private Named(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class SourceId extends EntityId {}
+
+  private static class Source extends AbstractDomainObject<SourceId, Named> {
+    private Source(String... events) {
+      super(new SourceId());
+
+      for (var event : events) {
+        addDomainEvent(new Named(event));
+      }
+    }
+  }
+
+  private class SpillingSource extends Source {
+    private SpillingSource(String... events) {
+      super(events);
+    }
+
+    @Override
+    protected EventCollector<Named> createCollector() {
+      return new SpillingDomainEventCollector<>(1, spillDirectory);
+    }
+  }
+
+  private static List<String> names(List<DomainEventMessage> events) {
+    return events.stream().map(event -> ((Named) event).name).collect(Collectors.toList());
+  }
+
+  @Test
+  void eventsOfAllSourcesAreHarvestedInOrder() {
+    var first = new Source("a1", "a2");
+    var second = new Source();
+    var third = new Source("c1");
+
+    var events = DomainEventHarvester.harvest(List.of(first, second, "not a domain object", third));
+
+    assertEquals(List.of("a1", "a2", "c1"), names(events));
+    assertTrue(first.getDomainEvents().isEmpty());
+    assertTrue(third.getDomainEvents().isEmpty());
+  }
+
+  @Test
+  void eventsArePublishedAsOneBatch() {
+    var batches = new ArrayList<List<DomainEventMessage>>();
+    var sources = List.of(new Source("a"), new Source("b", "c"));
+
+    assertEquals(3, DomainEventHarvester.publish(sources, batches::add));
+    assertEquals(0, DomainEventHarvester.publish(sources, batches::add));
+
+    assertEquals(1, batches.size());
+    assertEquals(List.of("a", "b", "c"), names(batches.get(0)));
+  }
+
+  @Test
+  void eventsStayWhenPublishingFails() {
+    var source = new Source("a");
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            DomainEventHarvester.publish(
+                List.of(source),
+                events -> {
+                  throw new IllegalStateException("broker down");
+                }));
+
+    assertEquals(1, source.getDomainEvents().size());
+  }
+
+  @Test
+  void clearingUnusedCollectorDoesNotFail() {
+    var source = new Source();
+
+    assertDoesNotThrow(source::clearDomainEvents);
+  }
+
+  @Test
+  void publishedBatchOutlivesClearingTheSources() {
+    var batches = new ArrayList<List<DomainEventMessage>>();
+    var source = new Source("a");
+
+    DomainEventHarvester.publish(List.of(source), batches::add);
+    source.addDomainEvent(new Named("b"));
+
+    assertEquals(List.of("a"), names(batches.get(0)));
+  }
+
+  @Test
+  void spilledEventsAreStreamedFromTheirSources() {
+    var published = new ArrayList<String>();
+    var sources = List.of(new SpillingSource("a1", "a2", "a3"), new Source("b"));
+
+    var count =
+        DomainEventHarvester.publishStreaming(
+            sources, events -> events.forEach(event -> published.add(((Named) event).name)));
+
+    assertEquals(4, count);
+    assertEquals(List.of("a1", "a2", "a3", "b"), published);
+    assertTrue(sources.get(0).getDomainEvents().isEmpty());
+  }
+}
@@ -0,0 +1,105 @@
+package com.sclable.domain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.jupiter.api.Test;
+
+class EntityDiffUtilsTest {
+  static class LineId extends EntityId {
+    public LineId() {
+      super(UUID.randomUUID());
+    }
+  }
+
+  static class Line extends Entity<LineId> {
+    @Getter @Setter private int quantity;
+
+    public Line(int quantity) {
+      super(new LineId());
+      this.quantity = quantity;
+    }
+  }
+
+  static class Lines extends Entities<LineId, Line> {}
+
+  @EqualsAndHashCode(callSuper = false)
+  static class Tag extends ValueObject {
+    private final String value;
+
+    Tag(String value) {
+      this.value = value;
+    }
+  }
+
+  static class Tags extends ValueObjects<Tag> {}
+
+  static class OrderId extends AggregateId {
+    public OrderId() {
+      super(UUID.randomUUID());
+    }
+  }
+
+  static class Order extends AggregateRoot<OrderId> {
+    @Getter @Setter private String customer = "jane";
+    private final Lines lines = new Lines();
+    private final Tags tags = new Tags();
+
+    public Order() {
+      super(new OrderId());
+    }
+  }
+
+  @Test
+  void entitiesDiffReportsAddedRemovedAndChanged() {
+    var kept = new Line(1);
+    var changed = new Line(2);
+    var removed = new Line(3);
+    var before = new Lines();
+    before.addAll(Set.of(kept, changed, removed));
+
+    var after = before.copy();
+    copyOf(after, changed).setQuantity(5);
+    after.remove(copyOf(after, removed));
+    var added = new Line(4);
+    after.add(added);
+
+    var diff = EntityDiffUtils.diff(before, after);
+
+    assertEquals(Set.of(added.getId()), diff.getAdded().keySet());
+    assertEquals(Set.of(removed.getId()), diff.getRemoved().keySet());
+    assertEquals(Set.of(changed.getId()), diff.getChanged().keySet());
+    assertEquals(5, diff.getChanged().get(changed.getId()).getAfter().getQuantity());
+  }
+
+  private static Line copyOf(Entities<LineId, Line> lines, Line original) {
+    return lines.find(line -> line.getOriginalId().equals(original.getId())).orElseThrow();
+  }
+
+  @Test
+  void aggregateIsDiffedAgainstItsCopy() {
+    var order = new Order();
+    order.lines.add(new Line(1));
+    order.tags.add(new Tag("new"));
+
+    var copy = order.<Order>copy();
+    assertTrue(EntityDiffUtils.diff(order, copy).isEmpty());
+
+    copy.setCustomer("john");
+    copy.tags.remove(new Tag("new"));
+    copy.tags.add(new Tag("vip"));
+
+    var diff = EntityDiffUtils.diff(order, copy);
+
+    assertEquals(Set.of("customer"), diff.getChangedFields());
+    assertEquals(Set.of("tags"), diff.getCollections().keySet());
+    var tags = diff.getCollections().get("tags");
+    assertEquals(List.of(new Tag("vip")), List.copyOf(tags.getAdded().values()));
+    assertEquals(List.of(new Tag("new")), List.copyOf(tags.getRemoved().values()));
+  }
+}
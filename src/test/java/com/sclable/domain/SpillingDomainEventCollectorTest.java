@@ -0,0 +1,105 @@
+package com.sclable.domain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpillingDomainEventCollectorTest {
+  @TempDir Path spillDirectory;
+
+  private static class RowImported implements DomainEventMessage {
+    private final int row;
+
+    private RowImported(int row) {
+      this.row = row;
+    }
+  }
+
+  private static class ImportId extends EntityId {}
+
+  private class Import extends AbstractDomainObject<ImportId, RowImported> {
+    private Import() {
+      super(new ImportId());
+    }
+
+    @Override
+    protected EventCollector<RowImported> createCollector() {
+      return new SpillingDomainEventCollector<>(100, spillDirectory);
+    }
+  }
+
+  private static List<Integer> rows(List<RowImported> events) {
+    return events.stream().map(event -> event.row).collect(Collectors.toList());
+  }
+
+  @Test
+  void eventsBeyondTheMemoryLimitAreSpilledInOrder() {
+    var collector = new SpillingDomainEventCollector<RowImported>(10, spillDirectory);
+    IntStream.range(0, 25).forEach(row -> collector.add(new RowImported(row)));
+
+    var events = collector.getEvents();
+
+    assertEquals(15, collector.getSpilledCount());
+    assertEquals(25, events.size());
+    assertEquals(IntStream.range(0, 25).boxed().collect(Collectors.toList()), rows(events));
+    assertEquals(3, events.get(3).row);
+    assertEquals(17, events.get(17).row);
+    assertThrows(IndexOutOfBoundsException.class, () -> events.get(25));
+    assertThrows(UnsupportedOperationException.class, () -> events.add(new RowImported(25)));
+  }
+
+  @Test
+  void clearDeletesTheSpillFile() throws Exception {
+    var collector = new SpillingDomainEventCollector<RowImported>(0, spillDirectory);
+    IntStream.range(0, 50_000).forEach(row -> collector.add(new RowImported(row)));
+
+    collector.clear();
+
+    assertTrue(collector.getEvents().isEmpty());
+    try (var files = Files.list(spillDirectory)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  @Test
+  void unreachableCollectorDeletesTheSpillFile() throws Exception {
+    collectAndDrop(50_000);
+    assertEquals(1, spillFiles());
+
+    for (var i = 0; i < 50 && spillFiles() > 0; i++) {
+      System.gc();
+      Thread.sleep(20);
+    }
+
+    assertEquals(0, spillFiles());
+  }
+
+  private void collectAndDrop(int rows) {
+    var bulk = new Import();
+    IntStream.range(0, rows).forEach(row -> bulk.addDomainEvent(new RowImported(row)));
+  }
+
+  private long spillFiles() throws Exception {
+    try (var files = Files.list(spillDirectory)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  void domainObjectsCanCollectWithASpillingCollector() {
+    var bulk = new Import();
+    IntStream.range(0, 1_000).forEach(row -> bulk.addDomainEvent(new RowImported(row)));
+
+    var events = bulk.getDomainEvents();
+
+    assertEquals(1_000, events.size());
+    assertEquals(999, rows(events).get(999));
+    assertThrows(UnsupportedOperationException.class, () -> events.add(new RowImported(0)));
+  }
+}
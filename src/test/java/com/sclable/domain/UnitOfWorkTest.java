@@ -0,0 +1,190 @@
+package com.sclable.domain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class UnitOfWorkTest {
+  @Test
+  void repeatedLookupsHitTheIdentityMap() {
+    var repository = new TestRepository();
+    var existing = repository.save(new TestAggregate());
+    var unitOfWork = new UnitOfWork();
+
+    var first = unitOfWork.find(repository, existing.getId()).orElseThrow();
+    var second = unitOfWork.find(repository, existing.getId()).orElseThrow();
+    var many = unitOfWork.findMany(repository, List.of(existing.getId()));
+
+    assertSame(first, second);
+    assertSame(first, many.get(0));
+    assertEquals(1, repository.finds);
+  }
+
+  @Test
+  void commitWritesChangesInOneBatchAndPublishesEvents() {
+    var repository = new TestRepository();
+    var existing = repository.save(new TestAggregate());
+    var removed = repository.save(new TestAggregate());
+    var published = new ArrayList<List<DomainEventMessage>>();
+    var unitOfWork = new UnitOfWork(published::add);
+
+    var created = new TestAggregate();
+    created.addDomainEvent(new TestEvent("created"));
+    unitOfWork.registerNew(repository, created);
+
+    var loaded = unitOfWork.find(repository, existing.getId()).orElseThrow();
+    loaded.addDomainEvent(new TestEvent("changed"));
+    unitOfWork.registerDirty(repository, loaded);
+    unitOfWork.registerDirty(repository, loaded);
+    unitOfWork.registerDeleted(repository, removed);
+
+    unitOfWork.commit();
+
+    assertEquals(1, repository.saveAllCalls);
+    assertEquals(Set.of(created.getId(), existing.getId()), repository.aggregates.keySet());
+    assertEquals(
+        List.of("created", "changed"),
+        published.get(0).stream()
+            .map(event -> ((TestEvent) event).name)
+            .collect(Collectors.toList()));
+    assertTrue(created.getDomainEvents().isEmpty());
+    assertFalse(unitOfWork.hasChanges());
+    assertTrue(unitOfWork.find(repository, removed.getId()).isEmpty());
+  }
+
+  @Test
+  void deletingNewAggregateForgetsIt() {
+    var repository = new TestRepository();
+    var published = new ArrayList<List<DomainEventMessage>>();
+    var unitOfWork = new UnitOfWork(published::add);
+
+    var created = new TestAggregate();
+    created.addDomainEvent(new TestEvent("created"));
+    unitOfWork.registerNew(repository, created);
+    unitOfWork.registerDeleted(repository, created);
+
+    unitOfWork.commit();
+
+    assertEquals(0, repository.saveAllCalls);
+    assertTrue(repository.aggregates.isEmpty());
+    assertTrue(published.isEmpty());
+  }
+
+  private static class TestId extends AggregateId {
+    public TestId() {}
+  }
+
+  private static class TestEvent implements DomainEventMessage {
+    private final String name;
+
+    private TestEvent(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class TestAggregate extends AggregateRoot<TestId>
+      implements DomainObject<TestId, DomainEventMessage> {
+    private final transient DomainEventCollector<DomainEventMessage> collector =
+        new DomainEventCollector<>();
+
+    public TestAggregate() {
+      super(new TestId());
+    }
+
+    @Override
+    public UUID getIdAsUUID() {
+      return getId().getId();
+    }
+
+    @Override
+    public void addDomainEvent(DomainEventMessage message) {
+      collector.add(message);
+    }
+
+    @Override
+    public List<DomainEventMessage> getDomainEvents() {
+      return collector.getEvents();
+    }
+
+    @Override
+    public void clearDomainEvents() {
+      collector.clear();
+    }
+  }
+
+  private static class TestRepository implements AggregateRepository<TestId, TestAggregate> {
+    private final Map<TestId, TestAggregate> aggregates = new LinkedHashMap<>();
+    private int finds;
+    private int saveAllCalls;
+
+    @Override
+    public TestAggregate save(TestAggregate aggregateRoot) {
+      aggregates.put(aggregateRoot.getId(), aggregateRoot);
+      return aggregateRoot;
+    }
+
+    @Override
+    public TestAggregate save(TestAggregate aggregateRoot, AggregateRoot<?> related) {
+      return save(aggregateRoot);
+    }
+
+    @Override
+    public List<TestAggregate> saveAll(List<TestAggregate> aggregateRoots) {
+      saveAllCalls++;
+      aggregateRoots.forEach(this::save);
+      return aggregateRoots;
+    }
+
+    @Override
+    public List<TestAggregate> saveMany(
+        List<TestAggregate> aggregateRoots, AggregateRoot<?> related) {
+      return saveAll(aggregateRoots);
+    }
+
+    @Override
+    public List<TestAggregate> saveMany(List<TestAggregate> aggregateRoots, AggregateId relatedId) {
+      return saveAll(aggregateRoots);
+    }
+
+    @Override
+    public Optional<TestAggregate> find(TestId id) {
+      finds++;
+      return Optional.ofNullable(aggregates.get(id));
+    }
+
+    @Override
+    public List<TestAggregate> findMany(List<TestId> ids) {
+      finds++;
+      return ids.stream().map(aggregates::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<TestAggregate> findAll() {
+      return new ArrayList<>(aggregates.values());
+    }
+
+    @Override
+    public void delete(TestAggregate aggregateRoot) {
+      delete(aggregateRoot.getId());
+    }
+
+    @Override
+    public void delete(TestId id) {
+      aggregates.remove(id);
+    }
+
+    @Override
+    public Long count() {
+      return (long) aggregates.size();
+    }
+  }
+}
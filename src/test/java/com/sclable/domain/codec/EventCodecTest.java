@@ -0,0 +1,227 @@
+package com.sclable.domain.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.DomainEvent;
+import com.sclable.domain.DomainEventMessage;
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class EventCodecTest {
+  enum OrderEvent {
+    PLACED,
+    CANCELLED
+  }
+
+  enum Channel {
+    WEB,
+    STORE
+  }
+
+  private static class OrderId extends AggregateId {
+    OrderId() {}
+
+    OrderId(UUID id) {
+      super(id);
+    }
+  }
+
+  private static class OrderPlaced implements Serializable {
+    private final OrderId orderId;
+    private final String customer;
+    private final long total;
+    private final Channel channel;
+
+    OrderPlaced(OrderId orderId, String customer, long total, Channel channel) {
+      this.orderId = orderId;
+      this.customer = customer;
+      this.total = total;
+      this.channel = channel;
+    }
+  }
+
+  private static class OrderShipped implements DomainEventMessage {
+    private final OrderId orderId;
+    private final int parcels;
+
+    OrderShipped(OrderId orderId, int parcels) {
+      this.orderId = orderId;
+      this.parcels = parcels;
+    }
+  }
+
+  private static final BinaryCodec<OrderPlaced> ORDER_PLACED =
+      new BinaryCodec<>() {
+        @Override
+        public void write(OrderPlaced value, BinaryWriter out) {
+          out.writeId(value.orderId)
+              .writeString(value.customer)
+              .writeVarLong(value.total)
+              .writeEnum(value.channel);
+        }
+
+        @Override
+        public OrderPlaced read(BinaryReader in) {
+          return new OrderPlaced(
+              in.readId(OrderId::new),
+              in.readString(),
+              in.readVarLong(),
+              in.readEnum(Channel.class));
+        }
+      };
+
+  private static final BinaryCodec<OrderShipped> ORDER_SHIPPED =
+      new BinaryCodec<>() {
+        @Override
+        public void write(OrderShipped value, BinaryWriter out) {
+          out.writeId(value.orderId).writeVarInt(value.parcels);
+        }
+
+        @Override
+        public OrderShipped read(BinaryReader in) {
+          return new OrderShipped(in.readId(OrderId::new), in.readVarInt());
+        }
+      };
+
+  private static EventCodec codec() {
+    return new EventCodec()
+        .registerEvent(1, OrderEvent.PLACED, 1, ORDER_PLACED)
+        .registerEvent(2, OrderEvent.CANCELLED, 1, ORDER_PLACED)
+        .registerMessage(3, OrderShipped.class, 1, ORDER_SHIPPED);
+  }
+
+  @Test
+  void eventsAndMessagesRoundTrip() {
+    var codec = codec();
+    var orderId = new OrderId();
+    var placed = new OrderPlaced(orderId, "J\u00fcrgen M\u00fcller", -1_234, Channel.STORE);
+
+    DomainEvent<OrderEvent, OrderPlaced> event =
+        codec.decodeEvent(codec.encode(new DomainEvent<>(OrderEvent.PLACED, placed)));
+    OrderShipped shipped = codec.decodeMessage(codec.encode(new OrderShipped(orderId, 3)));
+    DomainEvent<OrderEvent, OrderPlaced> empty =
+        codec.decodeEvent(codec.encode(new DomainEvent<>(OrderEvent.CANCELLED, null)));
+
+    assertEquals(OrderEvent.PLACED, event.getEventType());
+    assertEquals(orderId, event.getPayload().orderId);
+    assertEquals("J\u00fcrgen M\u00fcller", event.getPayload().customer);
+    assertEquals(-1_234, event.getPayload().total);
+    assertEquals(Channel.STORE, event.getPayload().channel);
+    assertEquals(orderId, shipped.orderId);
+    assertEquals(3, shipped.parcels);
+    assertEquals(OrderEvent.CANCELLED, empty.getEventType());
+    assertNull(empty.getPayload());
+  }
+
+  @Test
+  void encodedEventsCanBeConcatenated() {
+    var codec = codec();
+    var out = new BinaryWriter();
+    var orderId = new OrderId();
+
+    for (var parcels = 0; parcels < 200; parcels++) {
+      codec.encode(new OrderShipped(orderId, parcels), out);
+    }
+
+    var in = new BinaryReader(out.toByteArray());
+    for (var parcels = 0; parcels < 200; parcels++) {
+      OrderShipped shipped = codec.decodeMessage(in);
+      assertEquals(parcels, shipped.parcels);
+    }
+    assertEquals(0, in.remaining());
+  }
+
+  @Test
+  void olderVersionsAreUpcast() {
+    var orderId = new OrderId();
+    var version1 =
+        new EventCodec()
+            .registerEvent(
+                1,
+                OrderEvent.PLACED,
+                1,
+                new BinaryCodec<OrderPlaced>() {
+                  @Override
+                  public void write(OrderPlaced value, BinaryWriter out) {
+                    out.writeId(value.orderId).writeVarLong(value.total);
+                  }
+
+                  @Override
+                  public OrderPlaced read(BinaryReader in) {
+                    throw new UnsupportedOperationException();
+                  }
+                });
+    var stored =
+        version1.encode(
+            new DomainEvent<>(OrderEvent.PLACED, new OrderPlaced(orderId, null, 42, null)));
+
+    var version3 =
+        new EventCodec()
+            .registerEvent(1, OrderEvent.PLACED, 3, ORDER_PLACED)
+            .registerUpcaster(
+                1,
+                1,
+                (in, out) -> {
+                  out.writeUuid(in.readUuid()).writeString("unknown");
+                  out.writeVarLong(in.readVarLong());
+                })
+            .registerUpcaster(
+                1,
+                2,
+                (in, out) -> {
+                  out.writeUuid(in.readUuid()).writeString(in.readString());
+                  out.writeVarLong(in.readVarLong()).writeEnum(Channel.WEB);
+                });
+
+    DomainEvent<OrderEvent, OrderPlaced> event = version3.decodeEvent(stored);
+
+    assertEquals(orderId, event.getPayload().orderId);
+    assertEquals("unknown", event.getPayload().customer);
+    assertEquals(42, event.getPayload().total);
+    assertEquals(Channel.WEB, event.getPayload().channel);
+  }
+
+  @Test
+  void encodingIsSeveralTimesSmallerThanJavaSerialization() throws Exception {
+    var placed = new OrderPlaced(new OrderId(), "customer", 4_200, Channel.WEB);
+    var serialized = new ByteArrayOutputStream();
+    try (var out = new ObjectOutputStream(serialized)) {
+      out.writeObject(OrderEvent.PLACED);
+      out.writeObject(placed);
+    }
+
+    var encoded = codec().encode(new DomainEvent<>(OrderEvent.PLACED, placed));
+
+    assertTrue(encoded.length * 5 < serialized.size(), encoded.length + " bytes");
+  }
+
+  @Test
+  void unknownTypesAndTruncatedInputAreRejected() {
+    var codec = codec();
+    var bytes = codec.encode(new OrderShipped(new OrderId(), 1));
+
+    var unknown =
+        assertThrows(
+            DomainException.class,
+            () -> new EventCodec().encode(new DomainEvent<>(OrderEvent.PLACED, null)));
+    var truncated =
+        assertThrows(
+            DomainException.class,
+            () -> codec.decodeMessage(Arrays.copyOf(bytes, bytes.length - 1)));
+    var duplicate =
+        assertThrows(
+            DomainException.class,
+            () -> codec.registerMessage(4, OrderShipped.class, 1, ORDER_SHIPPED));
+
+    assertEquals(ERR.CODEC_NOT_REGISTERED, unknown.getErrorCode());
+    assertEquals(ERR.CODEC_MALFORMED_INPUT, truncated.getErrorCode());
+    assertEquals(ERR.CODEC_ALREADY_REGISTERED, duplicate.getErrorCode());
+  }
+}
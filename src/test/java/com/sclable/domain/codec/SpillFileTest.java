@@ -0,0 +1,72 @@
+package com.sclable.domain.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpillFileTest {
+  @TempDir Path directory;
+
+  @Test
+  void valuesArePolledInAppendOrderAcrossBlocks() {
+    try (var spill = new SpillFile<List<String>>(directory)) {
+      for (var i = 0; i < 50_000; i++) {
+        spill.append(List.of("value", String.valueOf(i)));
+      }
+
+      assertEquals(50_000, spill.size());
+      for (var i = 0; i < 50_000; i++) {
+        assertEquals(String.valueOf(i), spill.poll().get(1));
+      }
+      assertNull(spill.poll());
+      assertTrue(spill.isEmpty());
+    }
+  }
+
+  @Test
+  void iterationDoesNotConsumeAndSeesUnflushedValues() {
+    try (var spill = new SpillFile<String>(directory)) {
+      spill.append("a");
+      spill.append("b");
+      spill.append("c");
+      assertEquals("a", spill.poll());
+
+      var iterated = new ArrayList<String>();
+      spill.forEach(iterated::add);
+
+      assertEquals(List.of("b", "c"), iterated);
+      assertEquals(2, spill.size());
+    }
+  }
+
+  @Test
+  void largeValuesAreReadBack() {
+    try (var spill = new SpillFile<byte[]>(directory)) {
+      var large = new byte[200_000];
+      large[199_999] = 7;
+      spill.append(new byte[] {1});
+      spill.append(large);
+
+      assertArrayEquals(new byte[] {1}, spill.poll());
+      assertArrayEquals(large, spill.poll());
+    }
+  }
+
+  @Test
+  void closeDeletesTheFile() throws Exception {
+    var spill = new SpillFile<String>(directory);
+    for (var i = 0; i < 20_000; i++) {
+      spill.append("value " + i);
+    }
+    spill.close();
+
+    try (var files = Files.list(directory)) {
+      assertEquals(0, files.count());
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package com.sclable.domain.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.DomainEventMessage;
+import com.sclable.domain.DomainObject;
+import com.sclable.domain.Entities;
+import com.sclable.domain.Entity;
+import com.sclable.domain.EntityId;
+import com.sclable.domain.EntityIds;
+import com.sclable.domain.ValueObject;
+import com.sclable.domain.ValueObjects;
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.exception.DomainException.ERR;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.jupiter.api.Test;
+
+class StateCodecTest {
+  enum Status {
+    OPEN,
+    SHIPPED
+  }
+
+  private static class OrderId extends AggregateId {}
+
+  private static class LineId extends EntityId {}
+
+  private static class Line extends Entity<LineId> {
+    private final String product;
+    private final int quantity;
+    private final BigDecimal price;
+
+    Line(String product, int quantity, BigDecimal price) {
+      super(new LineId());
+      this.product = product;
+      this.quantity = quantity;
+      this.price = price;
+    }
+  }
+
+  private static class Lines extends Entities<LineId, Line> {}
+
+  private static class LineIds extends EntityIds<LineId> {}
+
+  private static class Tag extends ValueObject {
+    private final String name;
+
+    Tag(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Tag && ((Tag) other).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+      return name.hashCode();
+    }
+  }
+
+  private static class Tags extends ValueObjects<Tag> {}
+
+  private static class Shipped implements DomainEventMessage {}
+
+  private static class Order extends AggregateRoot<OrderId>
+      implements DomainObject<OrderId, Shipped> {
+    private final Lines lines = new Lines();
+    private final LineIds gifts = new LineIds();
+    private final Tags tags = new Tags();
+    private final Map<String, Long> counters = new TreeMap<>();
+    private final List<Object> notes = new ArrayList<>();
+    private Status status = Status.OPEN;
+    private Instant placedAt = Instant.ofEpochSecond(1_700_000_000, 123);
+    private LocalDate deliveryDate = LocalDate.of(2024, 2, 29);
+    private double discount = 0.25;
+    private char priority = 'A';
+    private Order parent;
+    private transient List<Shipped> events = new ArrayList<>();
+
+    Order() {
+      super(new OrderId(), 7);
+    }
+
+    @Override
+    public UUID getIdAsUUID() {
+      return getId().getId();
+    }
+
+    @Override
+    public void addDomainEvent(Shipped message) {
+      events.add(message);
+    }
+
+    @Override
+    public List<Shipped> getDomainEvents() {
+      return events;
+    }
+
+    @Override
+    public void clearDomainEvents() {
+      events.clear();
+    }
+  }
+
+  private static Order order() {
+    var order = new Order();
+    var line = new Line("book", 2, new BigDecimal("12.50"));
+    order.lines.add(line);
+    order.lines.add(new Line("pen", 10, null));
+    order.gifts.add(line.getId());
+    order.tags.add(new Tag("express"));
+    order.counters.put("views", 42L);
+    order.notes.addAll(List.of("fragile", 3, true, UUID.randomUUID(), new byte[] {1, 2}));
+    order.addDomainEvent(new Shipped());
+
+    return order;
+  }
+
+  @Test
+  void aggregateStateRoundTrips() {
+    var order = order();
+    order.parent = new Order();
+
+    Order decoded = new StateCodec().decode(new StateCodec().encode(order));
+
+    assertEquals(order.getId(), decoded.getId());
+    assertEquals(7, decoded.getVersion());
+    assertEquals(order.lines.getIds().size(), decoded.lines.getIds().size());
+    assertTrue(decoded.lines.getIds().containsAll(order.lines.getIds()));
+    var book =
+        decoded.lines.getAll().stream().filter(line -> line.quantity == 2).findFirst().get();
+    assertEquals("book", book.product);
+    assertEquals(new BigDecimal("12.50"), book.price);
+    assertEquals(order.gifts.getAll(), decoded.gifts.getAll());
+    assertEquals(order.tags.getAll(), decoded.tags.getAll());
+    assertEquals(order.counters, decoded.counters);
+    assertInstanceOf(TreeMap.class, decoded.counters);
+    assertEquals(order.notes.subList(0, 4), decoded.notes.subList(0, 4));
+    assertArrayEquals(new byte[] {1, 2}, (byte[]) decoded.notes.get(4));
+    assertEquals(Status.OPEN, decoded.status);
+    assertEquals(order.placedAt, decoded.placedAt);
+    assertEquals(order.deliveryDate, decoded.deliveryDate);
+    assertEquals(0.25, decoded.discount);
+    assertEquals('A', decoded.priority);
+    assertEquals(order.parent.getId(), decoded.parent.getId());
+    assertEquals(order.fingerprint(), decoded.fingerprint());
+    assertNull(decoded.events);
+    assertFalse(decoded.lines.isDirty());
+  }
+
+  @Test
+  void sharedReferencesAndCyclesArePreserved() {
+    var order = new Order();
+    var child = new Order();
+    child.parent = order;
+    order.parent = child;
+    order.notes.add(child);
+
+    Order copy = new StateCodec().copy(order);
+
+    assertNotSame(order, copy);
+    assertSame(copy, copy.parent.parent);
+    assertSame(copy.parent, copy.notes.get(0));
+  }
+
+  @Test
+  void lazilyLoadedCollectionsAreLoadedBeforeEncoding() {
+    var order = new Order();
+    var line = new Line("lamp", 1, BigDecimal.ONE);
+    order.lines.loadLazily(() -> List.of(line));
+
+    Order decoded = new StateCodec().copy(order);
+
+    assertTrue(decoded.lines.isLoaded());
+    assertEquals(List.of(line.getId()), decoded.lines.getIds());
+  }
+
+  @Test
+  void encodingIsMuchSmallerThanJavaSerialization() {
+    var order = order();
+    order.notes.clear();
+    for (var i = 0; i < 50; i++) {
+      order.lines.add(new Line("product " + i, i, BigDecimal.valueOf(i, 2)));
+    }
+
+    var encoded = new StateCodec().encode(order);
+    var serialized = SerializationUtils.serialize(order);
+
+    assertTrue(encoded.length * 2 < serialized.length, encoded.length + " bytes");
+  }
+
+  @Test
+  void malformedStateIsRejected() {
+    var codec = new StateCodec();
+    var encoded = codec.encode(order());
+
+    var truncated =
+        assertThrows(
+            DomainException.class,
+            () -> codec.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+    var notSerializable = assertThrows(DomainException.class, () -> codec.encode(new Object()));
+
+    assertEquals(ERR.CODEC_MALFORMED_INPUT, truncated.getErrorCode());
+    assertEquals(ERR.CODEC_NOT_REGISTERED, notSerializable.getErrorCode());
+    assertEquals(Set.of(), codec.copy(Set.of()));
+  }
+}
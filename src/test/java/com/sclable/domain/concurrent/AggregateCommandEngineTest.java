@@ -0,0 +1,193 @@
+package com.sclable.domain.concurrent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRepository;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.exception.DomainException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class AggregateCommandEngineTest {
+  @Test
+  void commandsForHotAggregateAreBatchedIntoFewSaves() throws Exception {
+    var repository = new CounterRepository();
+    var counter = repository.save(new Counter());
+
+    try (var engine = new AggregateCommandEngine<>(repository, 4, 100_000, 100)) {
+      var futures = new ArrayList<CompletableFuture<Long>>();
+      for (var i = 0; i < 10_000; i++) {
+        futures.add(engine.submit(counter.getId(), Counter::increment));
+      }
+
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+          .get(10, TimeUnit.SECONDS);
+    }
+
+    assertEquals(10_000, repository.aggregates.get(counter.getId()).value);
+    assertEquals(1, repository.findManyCalls.get());
+    assertTrue(repository.saveAllCalls.get() < 10_000);
+  }
+
+  @Test
+  void unknownAggregateFailsCommand() {
+    try (var engine = new AggregateCommandEngine<>(new CounterRepository(), 2, 10, 10)) {
+      var future = engine.submit(new CounterId(), Counter::increment);
+
+      var exception = assertThrows(CompletionException.class, future::join);
+      assertTrue(exception.getCause() instanceof DomainException);
+    }
+  }
+
+  @Test
+  void fullQueueRejectsCommands() throws Exception {
+    var repository = new CounterRepository();
+    var counter = repository.save(new Counter());
+    var blocked = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+
+    try (var engine = new AggregateCommandEngine<>(repository, 1, 2, 10, 1)) {
+      engine.submit(
+          counter.getId(),
+          aggregate -> {
+            blocked.countDown();
+            await(release);
+            return aggregate.increment();
+          });
+      blocked.await();
+      engine.submit(counter.getId(), Counter::increment);
+      engine.submit(counter.getId(), Counter::increment);
+
+      assertEquals(2, engine.queueDepth());
+      assertThrows(
+          DomainException.class,
+          () -> engine.submit(counter.getId(), Counter::increment, Duration.ofMillis(10)));
+
+      release.countDown();
+    }
+
+    assertEquals(3, repository.aggregates.get(counter.getId()).value);
+  }
+
+  @Test
+  void errorInCommandFailsOnlyItsFuture() throws Exception {
+    var repository = new CounterRepository();
+    var counter = repository.save(new Counter());
+
+    try (var engine = new AggregateCommandEngine<>(repository, 1, 10, 10)) {
+      var failed =
+          engine.submit(
+              counter.getId(),
+              aggregate -> {
+                throw new AssertionError("broken command");
+              });
+
+      var exception = assertThrows(CompletionException.class, failed::join);
+      assertTrue(exception.getCause() instanceof AssertionError);
+      assertEquals(1L, engine.submit(counter.getId(), Counter::increment).get(1, TimeUnit.SECONDS));
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class CounterId extends AggregateId {}
+
+  private static class Counter extends AggregateRoot<CounterId> {
+    private long value;
+
+    Counter() {
+      super(new CounterId());
+    }
+
+    long increment() {
+      return ++value;
+    }
+  }
+
+  private static class CounterRepository implements AggregateRepository<CounterId, Counter> {
+    private final Map<CounterId, Counter> aggregates = new ConcurrentHashMap<>();
+    private final AtomicInteger saveAllCalls = new AtomicInteger();
+    private final AtomicInteger findManyCalls = new AtomicInteger();
+
+    @Override
+    public Counter save(Counter aggregateRoot) {
+      aggregates.put(aggregateRoot.getId(), aggregateRoot);
+      return aggregateRoot;
+    }
+
+    @Override
+    public Counter save(Counter aggregateRoot, AggregateRoot<?> related) {
+      return save(aggregateRoot);
+    }
+
+    @Override
+    public List<Counter> saveAll(List<Counter> aggregateRoots) {
+      saveAllCalls.incrementAndGet();
+      aggregateRoots.forEach(this::save);
+      return aggregateRoots;
+    }
+
+    @Override
+    public List<Counter> saveMany(List<Counter> aggregateRoots, AggregateRoot<?> related) {
+      return saveAll(aggregateRoots);
+    }
+
+    @Override
+    public List<Counter> saveMany(List<Counter> aggregateRoots, AggregateId relatedId) {
+      return saveAll(aggregateRoots);
+    }
+
+    @Override
+    public Optional<Counter> find(CounterId id) {
+      return Optional.ofNullable(aggregates.get(id));
+    }
+
+    @Override
+    public List<Counter> findMany(List<CounterId> ids) {
+      findManyCalls.incrementAndGet();
+      return ids.stream()
+          .map(aggregates::get)
+          .filter(Objects::nonNull)
+          .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Counter> findAll() {
+      return new ArrayList<>(aggregates.values());
+    }
+
+    @Override
+    public void delete(Counter aggregateRoot) {
+      delete(aggregateRoot.getId());
+    }
+
+    @Override
+    public void delete(CounterId id) {
+      aggregates.remove(id);
+    }
+
+    @Override
+    public Long count() {
+      return (long) aggregates.size();
+    }
+  }
+}
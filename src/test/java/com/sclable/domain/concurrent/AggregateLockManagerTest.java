@@ -0,0 +1,114 @@
+package com.sclable.domain.concurrent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.exception.DomainException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class AggregateLockManagerTest {
+  private static class AccountId extends AggregateId {}
+
+  @Test
+  void opposingTransfersDoNotDeadlock() throws Exception {
+    var locks = new AggregateLockManager(64, false);
+    var first = new AccountId();
+    var second = new AccountId();
+    var balances = new long[] {1_000, 1_000};
+    var executor = Executors.newFixedThreadPool(8);
+
+    try {
+      var transfers =
+          IntStream.range(0, 2_000)
+              .mapToObj(
+                  i ->
+                      CompletableFuture.runAsync(
+                          () -> {
+                            var from = i % 2;
+                            var ids = from == 0 ? List.of(first, second) : List.of(second, first);
+                            try (var lock = locks.lock(List.of(), ids, null)) {
+                              balances[from]--;
+                              balances[1 - from]++;
+                            }
+                          },
+                          executor))
+              .collect(Collectors.toList());
+
+      CompletableFuture.allOf(transfers.toArray(CompletableFuture[]::new))
+          .get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(2_000, balances[0] + balances[1]);
+  }
+
+  @Test
+  void timeoutReleasesPartiallyAcquiredLocks() throws Exception {
+    var locks = new AggregateLockManager(1024, true);
+    var free = new AccountId();
+    var held = new AccountId();
+    var locked = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+
+    var holder =
+        new Thread(
+            () -> {
+              try (var lock = locks.writeLock(held)) {
+                locked.countDown();
+                release.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    holder.start();
+    locked.await();
+
+    var exception =
+        assertThrows(
+            DomainException.class,
+            () -> locks.lock(List.of(), List.of(free, held), Duration.ofMillis(50)));
+    assertTrue(exception.getMessage().contains("could not be locked"));
+
+    var other = CompletableFuture.supplyAsync(() -> locks.withWriteLock(() -> true, free));
+    assertTrue(other.get(1, TimeUnit.SECONDS));
+
+    release.countDown();
+    holder.join();
+  }
+
+  @Test
+  void readLocksAreShared() throws Exception {
+    var locks = AggregateLockManager.striped(16);
+    var id = new AccountId();
+
+    try (var lock = locks.readLock(id)) {
+      var concurrentRead = CompletableFuture.supplyAsync(() -> locks.withReadLock(() -> true, id));
+      assertTrue(concurrentRead.get(1, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  void writeLockOnStripeHeldForReadingFails() {
+    var locks = AggregateLockManager.striped(1);
+    var read = locks.readLock(new AccountId());
+
+    try {
+      var exception =
+          assertThrows(DomainException.class, () -> locks.writeLock(new AccountId()));
+      assertEquals(DomainException.ERR.LOCK_UPGRADE, exception.getErrorCode());
+    } finally {
+      read.close();
+    }
+
+    assertTrue(locks.withWriteLock(() -> locks.withReadLock(() -> true, new AccountId())));
+  }
+}
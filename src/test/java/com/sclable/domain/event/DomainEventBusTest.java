@@ -0,0 +1,174 @@
+package com.sclable.domain.event;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.AbstractDomainObject;
+import com.sclable.domain.DomainEventMessage;
+import com.sclable.domain.EntityId;
+import com.sclable.domain.exception.DomainException;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class DomainEventBusTest {
+  private static class Numbered implements DomainEventMessage {
+    private final int producer;
+    private final int number;
+
+    private Numbered(int producer, int number) {
+      this.producer = producer;
+      this.number = number;
+    }
+  }
+
+  @Test
+  void everyHandlerReceivesAllEventsInPublicationOrderPerProducer() throws Exception {
+    var bus = new DomainEventBus<Numbered>(64, WaitStrategy.yielding());
+    var first = new ArrayList<Numbered>();
+    var second = new AtomicInteger();
+    var batchEnds = new AtomicInteger();
+    bus.subscribe(
+        (event, sequence, endOfBatch) -> {
+          first.add(event);
+          if (endOfBatch) {
+            batchEnds.incrementAndGet();
+          }
+        });
+    bus.subscribe((event, sequence, endOfBatch) -> second.incrementAndGet());
+    bus.start();
+
+    var producers =
+        IntStream.range(0, 4)
+            .mapToObj(
+                producer ->
+                    CompletableFuture.runAsync(
+                        () -> {
+                          for (var i = 0; i < 10_000; i++) {
+                            bus.publish(new Numbered(producer, i));
+                          }
+                        }))
+            .collect(Collectors.toList());
+    producers.forEach(CompletableFuture::join);
+    bus.close();
+
+    assertEquals(40_000, first.size());
+    assertEquals(40_000, second.get());
+    assertTrue(batchEnds.get() <= 40_000);
+    for (var producer = 0; producer < 4; producer++) {
+      var owner = producer;
+      var numbers =
+          first.stream()
+              .filter(event -> event.producer == owner)
+              .map(event -> event.number)
+              .collect(Collectors.toList());
+      assertEquals(IntStream.range(0, 10_000).boxed().collect(Collectors.toList()), numbers);
+    }
+  }
+
+  @Test
+  void publishFromDrainsCollectedEvents() {
+    var bus =
+        new DomainEventBus<DomainEventMessage>(8, WaitStrategy.sleeping(Duration.ofMillis(1)));
+    var received = new ArrayList<DomainEventMessage>();
+    bus.subscribe((event, sequence, endOfBatch) -> received.add(event));
+    bus.start();
+
+    var source = new Source();
+    source.addDomainEvent(new Numbered(0, 1));
+    source.addDomainEvent(new Numbered(0, 2));
+    bus.publishFrom(source);
+    bus.close();
+
+    assertEquals(2, received.size());
+    assertTrue(source.getDomainEvents().isEmpty());
+    assertThrows(DomainException.class, () -> bus.publish(new Numbered(0, 3)));
+  }
+
+  @Test
+  void failingHandlerKeepsConsuming() {
+    var bus = new DomainEventBus<Numbered>(4, WaitStrategy.blocking());
+    var handled = new AtomicInteger();
+    bus.subscribe(
+        (event, sequence, endOfBatch) -> {
+          if (handled.incrementAndGet() == 1) {
+            throw new IllegalStateException("expected in test");
+          }
+        });
+    var previous = Thread.getDefaultUncaughtExceptionHandler();
+    Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {});
+
+    try {
+      bus.start();
+      bus.publishAll(List.of(new Numbered(0, 0), new Numbered(0, 1), new Numbered(0, 2)));
+      for (var i = 0; i < 20; i++) {
+        bus.publish(new Numbered(0, i));
+      }
+      bus.close();
+    } finally {
+      Thread.setDefaultUncaughtExceptionHandler(previous);
+    }
+
+    assertEquals(23, handled.get());
+    assertEquals(0, bus.backlog());
+  }
+
+  @Test
+  void errorInHandlerDoesNotStopPublishers() {
+    var bus = new DomainEventBus<Numbered>(4, WaitStrategy.blocking());
+    var handled = new AtomicInteger();
+    bus.subscribe(
+        (event, sequence, endOfBatch) -> {
+          if (handled.incrementAndGet() == 1) {
+            throw new AssertionError("expected in test");
+          }
+        });
+    var previous = Thread.getDefaultUncaughtExceptionHandler();
+    Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {});
+
+    try {
+      bus.start();
+      for (var i = 0; i < 20; i++) {
+        bus.publish(new Numbered(0, i));
+      }
+      bus.close();
+    } finally {
+      Thread.setDefaultUncaughtExceptionHandler(previous);
+    }
+
+    assertEquals(20, handled.get());
+  }
+
+  @Test
+  void handledEventsAreReleased() throws Exception {
+    var bus = new DomainEventBus<Numbered>(64, WaitStrategy.yielding());
+    bus.subscribe((event, sequence, endOfBatch) -> {});
+    bus.subscribe((event, sequence, endOfBatch) -> {});
+    bus.start();
+
+    var published = new Numbered(0, 0);
+    var event = new WeakReference<>(published);
+    bus.publish(published);
+    published = null;
+    bus.close();
+
+    for (var i = 0; i < 10 && event.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(event.get());
+  }
+
+  private static class SourceId extends EntityId {}
+
+  private static class Source extends AbstractDomainObject<SourceId, DomainEventMessage> {
+    Source() {
+      super(new SourceId());
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package com.sclable.domain.event;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.DomainEventMessage;
+import com.sclable.domain.exception.DomainException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DomainEventPublisherTest {
+  @TempDir Path spillDirectory;
+
+  private static class Numbered implements DomainEventMessage {
+    private final int number;
+
+    private Numbered(int number) {
+      this.number = number;
+    }
+  }
+
+  private static class RecordingSubscriber implements Flow.Subscriber<Numbered> {
+    private final List<Integer> received = new CopyOnWriteArrayList<>();
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private volatile Flow.Subscription subscription;
+    private volatile Throwable error;
+    private volatile Thread signalThread;
+    private volatile boolean failing;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Numbered item) {
+      if (failing) {
+        throw new AssertionError("expected in test");
+      }
+      received.add(item.number);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      signalThread = Thread.currentThread();
+      completed.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      completed.countDown();
+    }
+  }
+
+  private DomainEventPublisher<Numbered> publisher(int bufferSize, OverflowStrategy strategy) {
+    return new DomainEventPublisher<>(
+        ForkJoinPool.commonPool(), bufferSize, strategy, spillDirectory);
+  }
+
+  private static void publish(DomainEventPublisher<Numbered> publisher, int count) {
+    IntStream.range(0, count).forEach(number -> publisher.publish(new Numbered(number)));
+  }
+
+  private static List<Integer> range(int count) {
+    return IntStream.range(0, count).boxed().collect(Collectors.toList());
+  }
+
+  private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+    var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "condition not met in time");
+      TimeUnit.MILLISECONDS.sleep(1);
+    }
+  }
+
+  @Test
+  void eventsAreDeliveredOnlyAsFarAsRequested() throws Exception {
+    var publisher = publisher(16, OverflowStrategy.DROP);
+    var subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    publish(publisher, 10);
+
+    subscriber.subscription.request(3);
+    awaitUntil(() -> subscriber.received.size() == 3);
+    TimeUnit.MILLISECONDS.sleep(20);
+    assertEquals(List.of(0, 1, 2), subscriber.received);
+
+    subscriber.subscription.request(100);
+    awaitUntil(() -> subscriber.received.size() == 10);
+    assertEquals(range(10), subscriber.received);
+  }
+
+  @Test
+  void spillKeepsPublishersFastAndDeliversEverythingInOrder() throws Exception {
+    var publisher = publisher(8, OverflowStrategy.SPILL);
+    var subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+
+    publish(publisher, 20_000);
+    try (var files = Files.list(spillDirectory)) {
+      assertEquals(1, files.count());
+    }
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    publisher.close();
+
+    assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+    assertEquals(range(20_000), subscriber.received);
+    assertNull(subscriber.error);
+    try (var files = Files.list(spillDirectory)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  @Test
+  void dropDiscardsEventsOfFullBuffers() throws Exception {
+    var publisher = publisher(4, OverflowStrategy.DROP);
+    var subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+
+    publish(publisher, 10);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    awaitUntil(() -> subscriber.received.size() == 4);
+
+    assertEquals(List.of(0, 1, 2, 3), subscriber.received);
+    assertEquals(6, publisher.getDropped());
+  }
+
+  @Test
+  void blockWaitsForTheSubscriber() throws Exception {
+    var publisher = publisher(2, OverflowStrategy.BLOCK);
+    var subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+
+    var publishing = CompletableFuture.runAsync(() -> publish(publisher, 5));
+    TimeUnit.MILLISECONDS.sleep(50);
+    assertFalse(publishing.isDone());
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    publishing.get(10, TimeUnit.SECONDS);
+    awaitUntil(() -> subscriber.received.size() == 5);
+    assertEquals(range(5), subscriber.received);
+  }
+
+  @Test
+  void cancelledSubscribersReceiveNothingMore() throws Exception {
+    var publisher = publisher(4, OverflowStrategy.BLOCK);
+    var subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+
+    subscriber.subscription.cancel();
+    publish(publisher, 10);
+
+    assertEquals(0, publisher.getSubscriberCount());
+    assertTrue(subscriber.received.isEmpty());
+  }
+
+  @Test
+  void invalidRequestFailsTheSubscription() throws Exception {
+    var publisher = publisher(4, OverflowStrategy.DROP);
+    var subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+
+    subscriber.subscription.request(0);
+
+    assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+    assertNotSame(Thread.currentThread(), subscriber.signalThread);
+  }
+
+  @Test
+  void errorInSubscriberFailsTheSubscriptionAndDeletesSpilledEvents() throws Exception {
+    var publisher = publisher(2, OverflowStrategy.SPILL);
+    var subscriber = new RecordingSubscriber();
+    subscriber.failing = true;
+    publisher.subscribe(subscriber);
+    publish(publisher, 10);
+
+    subscriber.subscription.request(1);
+
+    assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+    assertInstanceOf(AssertionError.class, subscriber.error);
+    assertEquals(0, publisher.getSubscriberCount());
+    try (var files = Files.list(spillDirectory)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  @Test
+  void closeCompletesSubscribersAndRejectsEvents() throws Exception {
+    var publisher = publisher(4, OverflowStrategy.DROP);
+    publisher.close();
+
+    var subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+
+    assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+    assertThrows(DomainException.class, () -> publisher.publish(new Numbered(1)));
+  }
+}
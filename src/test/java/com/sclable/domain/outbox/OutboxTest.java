@@ -0,0 +1,327 @@
+package com.sclable.domain.outbox;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRoot;
+import com.sclable.domain.DomainEventCollector;
+import com.sclable.domain.DomainEventMessage;
+import com.sclable.domain.DomainObject;
+import com.sclable.domain.codec.BinaryCodec;
+import com.sclable.domain.codec.BinaryReader;
+import com.sclable.domain.codec.BinaryWriter;
+import com.sclable.domain.codec.EventCodec;
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.projection.FileCheckpointStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutboxTest {
+  @TempDir Path directory;
+
+  private static class OrderId extends AggregateId {
+    OrderId() {}
+  }
+
+  private static class OrderEvent implements DomainEventMessage {
+    private final String name;
+
+    private OrderEvent(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class Order extends AggregateRoot<OrderId>
+      implements DomainObject<OrderId, DomainEventMessage> {
+    private final transient DomainEventCollector<DomainEventMessage> collector =
+        new DomainEventCollector<>();
+
+    private Order() {
+      super(new OrderId());
+    }
+
+    private Order with(String... events) {
+      for (var event : events) {
+        addDomainEvent(new OrderEvent(event));
+      }
+      return this;
+    }
+
+    @Override
+    public UUID getIdAsUUID() {
+      return getId().getId();
+    }
+
+    @Override
+    public void addDomainEvent(DomainEventMessage message) {
+      collector.add(message);
+    }
+
+    @Override
+    public List<DomainEventMessage> getDomainEvents() {
+      return collector.getEvents();
+    }
+
+    @Override
+    public void clearDomainEvents() {
+      collector.clear();
+    }
+  }
+
+  private static final EventCodec CODEC =
+      new EventCodec()
+          .registerMessage(
+              1,
+              OrderEvent.class,
+              1,
+              new BinaryCodec<>() {
+                @Override
+                public void write(OrderEvent value, BinaryWriter out) {
+                  out.writeString(value.name);
+                }
+
+                @Override
+                public OrderEvent read(BinaryReader in) {
+                  return new OrderEvent(in.readString());
+                }
+              });
+
+  private static List<String> names(List<OutboxEntry> entries) {
+    return entries.stream()
+        .map(entry -> ((OrderEvent) entry.getMessage()).name)
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  void committedEventsAreRelayedAndCleared() {
+    var delivered = new ArrayList<OutboxEntry>();
+    var first = new Order().with("placed", "paid");
+    var second = new Order().with("placed");
+
+    try (var outbox = new Outbox(directory, CODEC)) {
+      outbox.subscribe(delivered::addAll);
+
+      assertEquals("saved", outbox.record("orders", List.of(first, second), () -> "saved"));
+      assertEquals(3, outbox.relay());
+      assertEquals(0, outbox.relay());
+    }
+
+    assertEquals(List.of("placed", "paid", "placed"), names(delivered));
+    assertEquals(first.getId().getId(), delivered.get(0).getAggregateId());
+    assertEquals(second.getId().getId(), delivered.get(2).getAggregateId());
+    assertEquals(3, delivered.stream().map(OutboxEntry::getEventId).distinct().count());
+    assertTrue(first.getDomainEvents().isEmpty());
+    assertTrue(second.getDomainEvents().isEmpty());
+  }
+
+  @Test
+  void failedSaveIsNeverRelayed() {
+    var delivered = new ArrayList<OutboxEntry>();
+    var order = new Order().with("placed");
+
+    try (var outbox = new Outbox(directory, CODEC)) {
+      outbox.subscribe(delivered::addAll);
+
+      assertThrows(
+          IllegalStateException.class,
+          () ->
+              outbox.record(
+                  "orders",
+                  List.of(order),
+                  () -> {
+                    throw new IllegalStateException("conflict");
+                  }));
+      outbox.record("orders", List.of(new Order().with("cancelled")), () -> null);
+      outbox.relay();
+    }
+
+    assertEquals(List.of("cancelled"), names(delivered));
+    assertEquals(1, order.getDomainEvents().size());
+  }
+
+  @Test
+  void failedDeliveryIsRetriedWithTheSameEventIds() {
+    var attempts = new ArrayList<List<OutboxEntry>>();
+    var failures = new AtomicInteger(1);
+
+    try (var outbox = new Outbox(directory, CODEC)) {
+      outbox.subscribe(
+          entries -> {
+            attempts.add(entries);
+            if (failures.getAndDecrement() > 0) {
+              throw new IllegalStateException("broker down");
+            }
+          });
+      outbox.record("orders", List.of(new Order().with("placed", "paid")), () -> null);
+
+      assertThrows(IllegalStateException.class, outbox::relay);
+      assertEquals(2, outbox.relay());
+    }
+
+    assertEquals(2, attempts.size());
+    assertEquals(
+        attempts.get(0).stream().map(OutboxEntry::getEventId).collect(Collectors.toList()),
+        attempts.get(1).stream().map(OutboxEntry::getEventId).collect(Collectors.toList()));
+  }
+
+  @Test
+  void committedEventsSurviveRestartAndRelayedOnesAreNotRepeated() {
+    try (var outbox = new Outbox(directory, CODEC)) {
+      outbox.record("orders", List.of(new Order().with("placed")), () -> null);
+      outbox.relay();
+      outbox.record("orders", List.of(new Order().with("paid")), () -> null);
+    }
+
+    var delivered = new ArrayList<OutboxEntry>();
+    try (var outbox = new Outbox(directory, CODEC)) {
+      outbox.subscribe(delivered::addAll);
+      outbox.relay();
+    }
+
+    assertEquals(List.of("paid"), names(delivered));
+  }
+
+  @Test
+  void checkpointBeyondTruncatedJournalIsCapped() {
+    new FileCheckpointStore(directory).store(Outbox.CHECKPOINT, 1_000_000);
+
+    var delivered = new ArrayList<OutboxEntry>();
+    try (var outbox = new Outbox(directory, CODEC)) {
+      outbox.subscribe(delivered::addAll);
+      outbox.record("orders", List.of(new Order().with("placed")), () -> null);
+
+      assertEquals(1, outbox.relay());
+    }
+
+    assertEquals(List.of("placed"), names(delivered));
+  }
+
+  @Test
+  void interruptedRecordsAreHeldBackUntilResolved() {
+    var saved = new Order().with("placed");
+    var lost = new Order().with("lost");
+
+    try (var outbox = new Outbox(directory, CODEC)) {
+      outbox.prepare("orders", List.of(saved, lost));
+    }
+
+    var delivered = new ArrayList<OutboxEntry>();
+    try (var outbox = new Outbox(directory, CODEC)) {
+      outbox.subscribe(delivered::addAll);
+
+      assertEquals(1, outbox.unresolved());
+      assertEquals(0, outbox.relay());
+      assertEquals(0, outbox.resolve("invoices", save -> true));
+      assertEquals(
+          1, outbox.resolve("orders", save -> save.getAggregateId().equals(saved.getIdAsUUID())));
+      assertEquals(1, outbox.relay());
+      assertEquals(0, outbox.unresolved());
+    }
+
+    assertEquals(List.of("placed"), names(delivered));
+  }
+
+  @Test
+  void recordWhoseMarkerFailedIsHeldBackForResolution() {
+    var order = new Order().with("placed");
+    var outbox = new Outbox(directory, CODEC);
+
+    assertThrows(
+        DomainException.class,
+        () ->
+            outbox.record(
+                "orders",
+                List.of(order),
+                () -> {
+                  outbox.close();
+                  return order;
+                }));
+
+    assertEquals(1, outbox.unresolved());
+    assertEquals(1, order.getDomainEvents().size());
+  }
+
+  @Test
+  void relayedSegmentsAreDeleted() throws Exception {
+    var delivered = new AtomicInteger();
+
+    try (var outbox = new Outbox(directory, CODEC, 10, 512)) {
+      outbox.subscribe(entries -> delivered.addAndGet(entries.size()));
+
+      for (var i = 0; i < 200; i++) {
+        outbox.record("orders", List.of(new Order().with("placed " + i)), () -> null);
+      }
+      assertTrue(journalFiles() > 5);
+
+      while (outbox.relay() > 0) {}
+    }
+
+    assertEquals(200, delivered.get());
+    assertEquals(1, journalFiles());
+  }
+
+  @Test
+  void concurrentRecordsAreRelayedExactlyOnce() {
+    Set<UUID> eventIds = ConcurrentHashMap.newKeySet();
+    var delivered = new AtomicInteger();
+
+    try (var outbox = new Outbox(directory, CODEC, 100, 64 * 1024)) {
+      outbox.subscribe(
+          entries -> {
+            entries.forEach(entry -> eventIds.add(entry.getEventId()));
+            delivered.addAndGet(entries.size());
+          });
+      outbox.start(Duration.ofMillis(1));
+
+      var writers =
+          IntStream.range(0, 4)
+              .mapToObj(
+                  writer ->
+                      CompletableFuture.runAsync(
+                          () -> {
+                            for (var i = 0; i < 250; i++) {
+                              var orders = List.of(new Order().with("a", "b"), new Order());
+                              outbox.record("orders", orders, () -> null);
+                            }
+                          }))
+              .collect(Collectors.toList());
+      writers.forEach(CompletableFuture::join);
+
+      var deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+      while (delivered.get() < 2_000 && System.nanoTime() < deadline) {
+        Thread.onSpinWait();
+      }
+    }
+
+    assertEquals(2_000, delivered.get());
+    assertEquals(2_000, eventIds.size());
+  }
+
+  @Test
+  void closedOutboxRejectsRecords() {
+    var outbox = new Outbox(directory, CODEC);
+    outbox.close();
+
+    var order = new Order().with("placed");
+    assertThrows(DomainException.class, () -> outbox.record("orders", List.of(order), () -> null));
+    assertEquals(1, order.getDomainEvents().size());
+  }
+
+  private long journalFiles() throws Exception {
+    try (var files = Files.list(directory)) {
+      return files.filter(file -> file.toString().endsWith(OutboxJournal.SUFFIX)).count();
+    }
+  }
+}
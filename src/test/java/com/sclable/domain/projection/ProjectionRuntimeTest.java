@@ -0,0 +1,224 @@
+package com.sclable.domain.projection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.DomainEvent;
+import com.sclable.domain.Projection;
+import com.sclable.domain.exception.DomainException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProjectionRuntimeTest {
+  private static final String BALANCES = Balances.class.getName();
+
+  enum AccountEvent {
+    DEPOSITED,
+    CLOSED
+  }
+
+  private static class AccountId extends AggregateId {}
+
+  private static class Balances extends Projection {
+    private final Map<Long, List<Long>> deposits = new ConcurrentHashMap<>();
+
+    Balances() {
+      on(AccountEvent.DEPOSITED, (Long amount) -> record(amount));
+    }
+
+    private void record(long amount) {
+      deposits.computeIfAbsent(amount / 1_000, account -> new CopyOnWriteArrayList<>()).add(amount);
+    }
+  }
+
+  private static final class Stream implements EventStream {
+    private final List<RecordedEvent> events = new ArrayList<>();
+    private int failAt = -1;
+    private boolean appendOnRead;
+
+    void append(AggregateId id, AccountEvent type, long amount) {
+      events.add(new RecordedEvent(events.size(), id, new DomainEvent<>(type, amount)));
+    }
+
+    @Override
+    public List<RecordedEvent> read(long after, int limit) {
+      if (failAt >= 0 && after + 1 >= failAt) {
+        var broken = new DomainEvent<>(AccountEvent.DEPOSITED, (Long) null);
+        return List.of(new RecordedEvent(failAt, null, broken));
+      }
+      if (appendOnRead) {
+        append(new AccountId(), AccountEvent.DEPOSITED, 99_000 + events.size());
+      }
+
+      return events.stream()
+          .filter(event -> event.getPosition() > after)
+          .limit(limit)
+          .collect(Collectors.toList());
+    }
+  }
+
+  @Test
+  void eventsOfOneAggregateAreAppliedInOrder(@TempDir Path directory) {
+    var stream = new Stream();
+    for (var account = 0L; account < 8; account++) {
+      var id = new AccountId();
+      for (var i = 0L; i < 100; i++) {
+        stream.append(id, AccountEvent.DEPOSITED, account * 1_000 + i);
+      }
+      stream.append(id, AccountEvent.CLOSED, 0);
+    }
+
+    var balances = new Balances();
+    try (var runtime = new ProjectionRuntime(stream, new FileCheckpointStore(directory), 4, 64)) {
+      runtime.register(balances);
+
+      assertEquals(808, runtime.catchUp());
+      assertEquals(807, runtime.getCheckpoint(BALANCES));
+    }
+
+    assertEquals(8, balances.deposits.size());
+    balances.deposits.forEach(
+        (account, amounts) ->
+            assertEquals(
+                amounts.stream().sorted().collect(Collectors.toList()), List.copyOf(amounts)));
+  }
+
+  @Test
+  void restartContinuesAfterCheckpoint(@TempDir Path directory) {
+    var stream = new Stream();
+    var id = new AccountId();
+    stream.append(id, AccountEvent.DEPOSITED, 1);
+
+    try (var runtime = new ProjectionRuntime(stream, directory, 2)) {
+      runtime.register(new Balances());
+      runtime.catchUp();
+    }
+
+    stream.append(id, AccountEvent.DEPOSITED, 2);
+    var restarted = new Balances();
+
+    try (var runtime = new ProjectionRuntime(stream, directory, 2)) {
+      runtime.register(restarted);
+      assertEquals(0, runtime.getCheckpoint(BALANCES));
+      assertEquals(1, runtime.catchUp());
+    }
+
+    assertEquals(List.of(2L), restarted.deposits.get(0L));
+  }
+
+  @Test
+  void failedBatchDoesNotAdvanceCheckpoint(@TempDir Path directory) {
+    var stream = new Stream();
+    stream.append(new AccountId(), AccountEvent.DEPOSITED, 1);
+    stream.failAt = 1;
+
+    try (var runtime = new ProjectionRuntime(stream, directory, 2)) {
+      runtime.register(new Balances());
+
+      assertEquals(1, runtime.poll());
+      assertThrows(DomainException.class, runtime::poll);
+      assertEquals(0, runtime.getCheckpoint(BALANCES));
+    }
+  }
+
+  @Test
+  void rebuildSwapsInShadowProjection(@TempDir Path directory) {
+    var stream = new Stream();
+    for (var account = 0L; account < 16; account++) {
+      var id = new AccountId();
+      for (var i = 0L; i < 50; i++) {
+        stream.append(id, AccountEvent.DEPOSITED, account * 1_000 + i);
+      }
+    }
+
+    var pool = new ForkJoinPool(4);
+    try (var runtime = new ProjectionRuntime(stream, new FileCheckpointStore(directory), 2, 16)) {
+      var live = new Balances();
+      runtime.register(live);
+      runtime.catchUp();
+
+      var rebuilt = runtime.rebuild(Balances::new, pool);
+
+      assertNotSame(live, rebuilt);
+      assertSame(rebuilt, runtime.getProjection(BALANCES));
+      assertEquals(799, runtime.getCheckpoint(BALANCES));
+      assertEquals(live.deposits, rebuilt.deposits);
+      rebuilt.deposits.forEach(
+          (account, amounts) ->
+              assertEquals(
+                  amounts.stream().sorted().collect(Collectors.toList()), List.copyOf(amounts)));
+
+      stream.append(new AccountId(), AccountEvent.DEPOSITED, 99_000);
+      runtime.poll();
+
+      assertEquals(List.of(99_000L), rebuilt.deposits.get(99L));
+      assertNull(live.deposits.get(99L));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void rebuildFinishesWhileStreamKeepsGrowing(@TempDir Path directory) {
+    var stream = new Stream();
+    for (var i = 0L; i < 500; i++) {
+      stream.append(new AccountId(), AccountEvent.DEPOSITED, i);
+    }
+
+    var pool = new ForkJoinPool(2);
+    try (var runtime = new ProjectionRuntime(stream, new FileCheckpointStore(directory), 2, 16)) {
+      runtime.register(new Balances());
+      runtime.catchUp();
+      stream.appendOnRead = true;
+
+      var rebuilt =
+          assertTimeoutPreemptively(
+              Duration.ofSeconds(10), () -> runtime.rebuild(Balances::new, pool));
+
+      assertSame(rebuilt, runtime.getProjection(BALANCES));
+      assertTrue(runtime.getCheckpoint(BALANCES) >= 499);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void failedRebuildKeepsRegisteredProjection(@TempDir Path directory) {
+    var stream = new Stream();
+    stream.append(new AccountId(), AccountEvent.DEPOSITED, 1);
+    stream.failAt = 1;
+
+    try (var runtime = new ProjectionRuntime(stream, directory, 2)) {
+      var live = new Balances();
+      runtime.register(live);
+
+      assertThrows(DomainException.class, () -> runtime.rebuild(Balances::new));
+      assertSame(live, runtime.getProjection(BALANCES));
+      assertEquals(-1, runtime.getCheckpoint(BALANCES));
+    }
+  }
+
+  @Test
+  void checkpointsAreKeyedByDistinctValidNames(@TempDir Path directory) {
+    var store = new FileCheckpointStore(directory);
+    var first = new Projection() {};
+    var second = new Projection() {};
+
+    store.store(first.getName(), 1);
+    store.store(second.getName(), 2);
+
+    assertEquals(1, store.load(first.getName()));
+    assertEquals(2, store.load(second.getName()));
+    assertThrows(DomainException.class, () -> store.store("", 3));
+    assertThrows(DomainException.class, () -> store.load("../Balances"));
+  }
+}
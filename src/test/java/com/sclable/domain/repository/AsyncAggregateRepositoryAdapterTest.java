@@ -0,0 +1,68 @@
+package com.sclable.domain.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.repository.TestRepository.TestAggregate;
+import com.sclable.domain.repository.TestRepository.TestId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+
+class AsyncAggregateRepositoryAdapterTest {
+  @Test
+  void operationsCompleteWithTheResultsOfTheDelegate() {
+    var backing = new TestRepository();
+    var executor = Executors.newFixedThreadPool(2);
+
+    try (var repository = new AsyncAggregateRepositoryAdapter<>(backing, executor)) {
+      var first = repository.save(new TestAggregate("first")).join();
+      var second = repository.saveAll(List.of(new TestAggregate("second"))).join().get(0);
+
+      assertEquals(Optional.of(first), repository.find(first.getId()).join());
+      assertEquals(
+          List.of(first, second),
+          repository.findMany(List.of(first.getId(), second.getId())).join());
+      assertEquals(2, repository.count().join());
+
+      repository.delete(first).join();
+      repository.delete(second.getId()).join();
+      assertEquals(0, repository.count().join());
+    } finally {
+      assertFalse(executor.isShutdown());
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void failuresOfTheDelegateCompleteExceptionally() {
+    var failure = new IllegalStateException("store unavailable");
+    var backing =
+        new TestRepository() {
+          @Override
+          public Optional<TestAggregate> find(TestId id) {
+            throw failure;
+          }
+        };
+
+    try (var repository = new AsyncAggregateRepositoryAdapter<>(backing)) {
+      var future = repository.find(new TestId());
+
+      var thrown = assertThrows(CompletionException.class, future::join);
+      assertSame(failure, thrown.getCause());
+      assertTrue(future.isCompletedExceptionally());
+    }
+  }
+
+  @Test
+  void closeShutsDownOnlyTheOwnExecutor() {
+    var repository = new AsyncAggregateRepositoryAdapter<>(new TestRepository());
+    assertEquals(0, repository.count().join());
+
+    repository.close();
+
+    assertThrows(RejectedExecutionException.class, repository::count);
+  }
+}
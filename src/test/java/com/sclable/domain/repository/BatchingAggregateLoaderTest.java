@@ -0,0 +1,68 @@
+package com.sclable.domain.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.repository.TestRepository.TestAggregate;
+import com.sclable.domain.repository.TestRepository.TestId;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class BatchingAggregateLoaderTest {
+  @Test
+  void concurrentLoadsOfSameAggregateShareOneRequest() {
+    var backing = new TestRepository();
+    var aggregate = backing.save(new TestAggregate("hot"));
+
+    try (var loader = new BatchingAggregateLoader<>(backing, 64, Duration.ofMillis(20))) {
+      var futures = new ArrayList<CompletableFuture<Optional<TestAggregate>>>();
+      for (var i = 0; i < 100; i++) {
+        futures.add(loader.load(aggregate.getId()));
+      }
+
+      futures.forEach(future -> assertSame(aggregate, future.join().orElseThrow()));
+    }
+
+    assertEquals(1, backing.findManyCalls.get());
+  }
+
+  @Test
+  void distinctIdsAreMergedIntoOneFindMany() {
+    var backing = new TestRepository();
+    var first = backing.save(new TestAggregate("first"));
+    var second = backing.save(new TestAggregate("second"));
+
+    try (var loader = new BatchingAggregateLoader<>(backing, 64, Duration.ofMillis(20))) {
+      var found = loader.findMany(List.of(first.getId(), second.getId(), new TestId()));
+
+      assertEquals(List.of(first, second), found);
+    }
+
+    assertEquals(1, backing.findManyCalls.get());
+  }
+
+  @Test
+  void missingIdsReturnedAsNullAreLoadedEmpty() {
+    var backing =
+        new TestRepository() {
+          @Override
+          public List<TestAggregate> findMany(List<TestId> ids) {
+            var found = new ArrayList<TestAggregate>();
+            ids.forEach(id -> found.add(aggregates.get(id)));
+            return found;
+          }
+        };
+    var stored = backing.save(new TestAggregate("stored"));
+
+    try (var loader = new BatchingAggregateLoader<>(backing, 64, Duration.ofMillis(20))) {
+      var missing = loader.load(new TestId());
+      var found = loader.load(stored.getId());
+
+      assertEquals(Optional.empty(), missing.join());
+      assertSame(stored, found.join().orElseThrow());
+    }
+  }
+}
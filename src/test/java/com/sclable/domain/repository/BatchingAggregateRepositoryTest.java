@@ -0,0 +1,96 @@
+package com.sclable.domain.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.repository.TestRepository.TestAggregate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class BatchingAggregateRepositoryTest {
+  @Test
+  void concurrentSavesAreWrittenInFewerBatches() throws InterruptedException {
+    var backing = new TestRepository();
+    var executor = Executors.newFixedThreadPool(16);
+
+    try (var repository = new BatchingAggregateRepository<>(backing, 64, Duration.ofMillis(5))) {
+      for (var i = 0; i < 256; i++) {
+        executor.submit(() -> repository.save(new TestAggregate("name")));
+      }
+
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    assertEquals(256, backing.aggregates.size());
+    assertTrue(backing.saveAllCalls.get() < 256);
+  }
+
+  @Test
+  void repeatedSavesOfSameAggregateAreCoalesced() {
+    var backing = new TestRepository();
+    var aggregate = new TestAggregate("first");
+    var futures = new ArrayList<CompletableFuture<TestAggregate>>();
+
+    try (var repository = new BatchingAggregateRepository<>(backing, 64, Duration.ofMillis(50))) {
+      for (var i = 0; i < 10; i++) {
+        futures.add(repository.saveAsync(aggregate));
+      }
+    }
+
+    futures.forEach(future -> assertSame(aggregate, future.join()));
+    assertEquals(1, backing.saveAllCalls.get());
+    assertEquals(1, backing.aggregates.size());
+  }
+
+  @Test
+  void failedBatchCompletesAllCallersExceptionally() {
+    var backing =
+        new TestRepository() {
+          @Override
+          public List<TestAggregate> saveAll(List<TestAggregate> aggregates) {
+            throw new IllegalStateException("disk full");
+          }
+        };
+
+    try (var repository = new BatchingAggregateRepository<>(backing)) {
+      assertThrows(IllegalStateException.class, () -> repository.save(new TestAggregate("name")));
+    }
+  }
+
+  @Test
+  void saveAllIsWrittenAsOneUnit() {
+    var failing = new TestAggregate("failing");
+    var batches = new ArrayList<List<TestAggregate>>();
+    var backing =
+        new TestRepository() {
+          @Override
+          public List<TestAggregate> saveAll(List<TestAggregate> aggregates) {
+            batches.add(aggregates);
+
+            if (aggregates.contains(failing)) {
+              throw new IllegalStateException("invalid aggregate");
+            }
+
+            return super.saveAll(aggregates);
+          }
+        };
+    var aggregates = List.of(new TestAggregate("a"), new TestAggregate("b"));
+    CompletableFuture<TestAggregate> failed;
+    List<TestAggregate> saved;
+
+    try (var repository = new BatchingAggregateRepository<>(backing, 64, Duration.ofMillis(50))) {
+      failed = repository.saveAsync(failing);
+      saved = repository.saveAll(aggregates);
+    }
+
+    assertEquals(aggregates, saved);
+    assertTrue(batches.contains(aggregates));
+    assertThrows(IllegalStateException.class, () -> Futures.await(failed));
+    assertEquals(2, backing.aggregates.size());
+  }
+}
@@ -0,0 +1,148 @@
+package com.sclable.domain.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.repository.TestRepository.TestAggregate;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class CachingAggregateRepositoryTest {
+  @Test
+  void repeatedFindIsServedFromCache() {
+    var backing = new TestRepository();
+    var aggregate = backing.save(new TestAggregate("name"));
+    var repository = CachingAggregateRepository.boundedBySize(backing, 100);
+
+    repository.find(aggregate.getId());
+    repository.find(aggregate.getId());
+    repository.find(aggregate.getId());
+
+    assertEquals(1, backing.findCalls.get());
+    assertEquals(2, repository.getHitCount());
+  }
+
+  @Test
+  void callersReceiveIsolatedCopies() {
+    var backing = new TestRepository();
+    var repository = CachingAggregateRepository.boundedBySize(backing, 100);
+    var aggregate = repository.save(new TestAggregate("original"));
+
+    repository.find(aggregate.getId()).orElseThrow().setName("modified");
+
+    assertEquals("original", repository.find(aggregate.getId()).orElseThrow().getName());
+  }
+
+  @Test
+  void loadedAndSavedAggregatesAreIsolatedFromTheCache() {
+    var backing = new TestRepository();
+    var stored = backing.save(new TestAggregate("original"));
+    var repository = CachingAggregateRepository.boundedBySize(backing, 100);
+
+    var loaded = repository.find(stored.getId()).orElseThrow();
+    var saved = repository.save(new TestAggregate("saved"));
+    loaded.setName("modified");
+    saved.setName("modified");
+
+    assertNotSame(stored, loaded);
+    assertEquals("original", repository.find(stored.getId()).orElseThrow().getName());
+    assertEquals("saved", repository.find(saved.getId()).orElseThrow().getName());
+  }
+
+  @Test
+  void olderVersionDoesNotReplaceNewerEntry() {
+    var backing = new TestRepository();
+    var repository = CachingAggregateRepository.boundedBySize(backing, 100);
+    var aggregate = new TestAggregate("v2");
+    aggregate.setVersion(2);
+    repository.save(aggregate);
+
+    var stale = new TestAggregate(aggregate.getId(), "v1");
+    stale.setVersion(1);
+    repository.save(stale);
+
+    assertEquals("v2", repository.find(aggregate.getId()).orElseThrow().getName());
+  }
+
+  @Test
+  void versionMismatchInvalidatesEntry() {
+    var backing = new TestRepository();
+    var repository = CachingAggregateRepository.boundedBySize(backing, 100);
+    var aggregate = repository.save(new TestAggregate("name"));
+
+    repository.invalidate(aggregate.getId(), 0);
+    assertEquals(1, repository.size());
+
+    repository.invalidate(aggregate.getId(), 1);
+    assertEquals(0, repository.size());
+  }
+
+  @Test
+  void versionProbeRejectsOutdatedHits() {
+    var backing = new TestRepository();
+    var aggregate = backing.save(new TestAggregate("name"));
+    var repository =
+        new CachingAggregateRepository<>(backing, 100, false, id -> Optional.of(1L));
+
+    repository.find(aggregate.getId());
+    repository.find(aggregate.getId());
+
+    assertEquals(2, backing.findCalls.get());
+  }
+
+  @Test
+  void frequentlyUsedAggregatesSurviveScans() {
+    var backing = new TestRepository();
+    var repository = CachingAggregateRepository.boundedBySize(backing, 100);
+    var hot = backing.save(new TestAggregate("hot"));
+
+    for (var i = 0; i < 10; i++) {
+      repository.find(hot.getId());
+    }
+
+    for (var i = 0; i < 1_000; i++) {
+      repository.find(backing.save(new TestAggregate("cold")).getId());
+    }
+
+    var loads = backing.findCalls.get();
+    repository.find(hot.getId());
+
+    assertEquals(loads, backing.findCalls.get());
+    assertTrue(repository.size() <= 100);
+  }
+
+  @Test
+  void findManyLoadsOnlyMissingAggregates() {
+    var backing = new TestRepository();
+    var repository = CachingAggregateRepository.boundedBySize(backing, 100);
+    var first = repository.save(new TestAggregate("first"));
+    var second = backing.save(new TestAggregate("second"));
+
+    var found = repository.findMany(List.of(first.getId(), second.getId()));
+
+    assertEquals(2, found.size());
+    assertEquals(1, backing.findManyCalls.get());
+    assertEquals(1, repository.getHitCount());
+  }
+
+  @Test
+  void findWithoutKeyThrows() {
+    var repository = CachingAggregateRepository.boundedBySize(new TestRepository(), 100);
+
+    var exception = assertThrows(DomainException.class, () -> repository.find(null));
+    assertEquals(DomainException.ERR.CACHE_KEY_MISSING, exception.getErrorCode());
+  }
+
+  @Test
+  void streamingWithoutNativePagingLoadsBackingRepositoryOnce() {
+    var backing = new TestRepository();
+    for (var i = 0; i < 25; i++) {
+      backing.save(new TestAggregate("name"));
+    }
+    var repository = CachingAggregateRepository.boundedBySize(backing, 100);
+
+    assertEquals(25, repository.streamAllIds(10).count());
+    assertEquals(1, backing.findAllCalls.get());
+  }
+}
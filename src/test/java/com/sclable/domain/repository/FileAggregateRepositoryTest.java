@@ -0,0 +1,98 @@
+package com.sclable.domain.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.repository.TestRepository.TestAggregate;
+import com.sclable.domain.repository.TestRepository.TestId;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileAggregateRepositoryTest {
+  @TempDir Path directory;
+
+  @Test
+  void savedAggregatesSurviveReopening() {
+    var aggregate = new TestAggregate("name");
+    aggregate.setVersion(3);
+
+    try (var repository = open()) {
+      repository.save(aggregate);
+      repository.delete(repository.save(new TestAggregate("deleted")));
+    }
+
+    try (var repository = open()) {
+      assertEquals(1, repository.count());
+      assertEquals("name", repository.find(aggregate.getId()).orElseThrow().getName());
+      assertEquals(3L, repository.findVersion(aggregate.getId()).orElseThrow());
+    }
+  }
+
+  @Test
+  void tornRecordIsTruncatedOnRecovery() throws IOException {
+    var aggregate = new TestAggregate("name");
+
+    try (var repository = open()) {
+      repository.save(aggregate);
+    }
+
+    var dataFile = directory.resolve(FileAggregateRepository.DATA_FILE);
+    var validSize = Files.size(dataFile);
+    Files.write(dataFile, new byte[] {2, 0, 0, 7, 1, 9}, StandardOpenOption.APPEND);
+
+    try (var repository = open()) {
+      assertEquals(validSize, repository.size());
+      assertTrue(repository.find(aggregate.getId()).isPresent());
+
+      repository.save(new TestAggregate("after recovery"));
+      assertEquals(2, repository.count());
+    }
+  }
+
+  @Test
+  void compactionKeepsOnlyLatestState() {
+    var aggregate = new TestAggregate("v0");
+
+    try (var repository = open()) {
+      for (var i = 1; i <= 50; i++) {
+        aggregate.setName("v" + i);
+        repository.save(aggregate);
+      }
+      var sizeBefore = repository.size();
+
+      repository.compact();
+
+      assertTrue(repository.size() < sizeBefore / 10);
+      assertEquals("v50", repository.find(aggregate.getId()).orElseThrow().getName());
+    }
+
+    try (var repository = open()) {
+      assertEquals("v50", repository.find(aggregate.getId()).orElseThrow().getName());
+    }
+  }
+
+  @Test
+  void pagesAreOrderedById() {
+    try (var repository = open()) {
+      for (var i = 0; i < 20; i++) {
+        repository.save(new TestAggregate("name"));
+      }
+
+      var ids = repository.streamAllIds(7).collect(Collectors.toList());
+      var sorted = ids.stream().sorted().collect(Collectors.toList());
+
+      assertEquals(20, ids.size());
+      assertEquals(sorted, ids);
+      assertEquals(List.of(), repository.findPage(ids.get(19), 5));
+    }
+  }
+
+  private FileAggregateRepository<TestId, TestAggregate> open() {
+    return new FileAggregateRepository<>(directory, TestId::new);
+  }
+}
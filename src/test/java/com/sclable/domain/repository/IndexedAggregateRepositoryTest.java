@@ -0,0 +1,148 @@
+package com.sclable.domain.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.exception.DomainException;
+import com.sclable.domain.repository.TestRepository.TestAggregate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class IndexedAggregateRepositoryTest {
+  private static final AggregateIndex<TestAggregate, String> BY_NAME =
+      AggregateIndex.uniqueSorted("name", TestAggregate::getName);
+  private static final AggregateIndex<TestAggregate, Integer> BY_LENGTH =
+      AggregateIndex.nonUnique("length", aggregate -> aggregate.getName().length());
+
+  @Test
+  void existingAggregatesAreIndexedOnCreation() {
+    var backing = new TestRepository();
+    var anna = backing.save(new TestAggregate("anna"));
+
+    var repository = new IndexedAggregateRepository<>(backing, BY_NAME, BY_LENGTH);
+
+    assertEquals(anna, repository.findOneBy(BY_NAME, "anna").orElseThrow());
+  }
+
+  @Test
+  void indexesFollowSavesAndDeletes() {
+    var repository = new IndexedAggregateRepository<>(new TestRepository(), BY_NAME, BY_LENGTH);
+    var aggregate = repository.save(new TestAggregate("anna"));
+    repository.save(new TestAggregate("otto"));
+
+    assertEquals(2, repository.findBy(BY_LENGTH, 4).size());
+
+    aggregate.setName("hannah");
+    repository.save(aggregate);
+
+    assertTrue(repository.findOneBy(BY_NAME, "anna").isEmpty());
+    assertEquals(aggregate, repository.findOneBy(BY_NAME, "hannah").orElseThrow());
+    assertEquals(1, repository.findBy(BY_LENGTH, 4).size());
+
+    repository.delete(aggregate);
+
+    assertTrue(repository.findOneBy(BY_NAME, "hannah").isEmpty());
+  }
+
+  @Test
+  void uniqueIndexRejectsDuplicateKeys() {
+    var backing = new TestRepository();
+    var repository = new IndexedAggregateRepository<>(backing, BY_NAME);
+    repository.save(new TestAggregate("anna"));
+
+    var exception =
+        assertThrows(DomainException.class, () -> repository.save(new TestAggregate("anna")));
+
+    assertEquals(DomainException.ERR.INDEX_KEY_NOT_UNIQUE, exception.getErrorCode());
+    assertEquals(1, backing.aggregates.size());
+  }
+
+  @Test
+  void failedBatchLeavesIndexesUnchanged() {
+    var repository = new IndexedAggregateRepository<>(new TestRepository(), BY_NAME);
+
+    assertThrows(
+        DomainException.class,
+        () -> repository.saveAll(List.of(new TestAggregate("anna"), new TestAggregate("anna"))));
+
+    assertTrue(repository.findOneBy(BY_NAME, "anna").isEmpty());
+  }
+
+  @Test
+  void failingKeyExtractorRollsBackBatch() {
+    var byInitial =
+        AggregateIndex.<TestAggregate, Character>nonUnique(
+            "initial", aggregate -> aggregate.getName().charAt(0));
+    var repository = new IndexedAggregateRepository<>(new TestRepository(), BY_NAME, byInitial);
+
+    assertThrows(
+        StringIndexOutOfBoundsException.class,
+        () -> repository.saveAll(List.of(new TestAggregate("anna"), new TestAggregate(""))));
+
+    assertTrue(repository.findOneBy(BY_NAME, "anna").isEmpty());
+    assertTrue(repository.findBy(byInitial, 'a').isEmpty());
+  }
+
+  @Test
+  void sortedIndexAnswersRangeQueries() {
+    var repository = new IndexedAggregateRepository<>(new TestRepository(), BY_NAME);
+    List.of("anna", "bert", "carl", "dora").forEach(name -> repository.save(new TestAggregate(name)));
+
+    var names =
+        repository.findRange(BY_NAME, "b", "d").stream()
+            .map(TestAggregate::getName)
+            .collect(Collectors.toList());
+
+    assertEquals(List.of("bert", "carl"), names);
+    assertThrows(DomainException.class, () -> repository.findRange(sortedLength(), 1, 2));
+  }
+
+  @Test
+  void saveOfSameUniqueKeyWaitsForFailingPendingSave() throws InterruptedException {
+    var entered = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var first = new TestAggregate("anna");
+    var backing =
+        new TestRepository() {
+          @Override
+          public TestAggregate save(TestAggregate aggregateRoot) {
+            if (aggregateRoot == first) {
+              entered.countDown();
+              awaitQuietly(release);
+              throw new IllegalStateException("disk full");
+            }
+
+            return super.save(aggregateRoot);
+          }
+        };
+    var repository = new IndexedAggregateRepository<>(backing, BY_NAME);
+
+    var failing = CompletableFuture.runAsync(() -> repository.save(first));
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+    var second = new TestAggregate("anna");
+    var waiting = CompletableFuture.supplyAsync(() -> repository.save(second));
+
+    Thread.sleep(50);
+    assertFalse(waiting.isDone());
+    release.countDown();
+
+    assertSame(second, waiting.join());
+    assertThrows(Exception.class, failing::join);
+    assertEquals(second, repository.findOneBy(BY_NAME, "anna").orElseThrow());
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static AggregateIndex<TestAggregate, Integer> sortedLength() {
+    return AggregateIndex.sorted("unregistered", aggregate -> aggregate.getName().length());
+  }
+}
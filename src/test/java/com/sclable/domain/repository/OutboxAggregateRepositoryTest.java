@@ -0,0 +1,198 @@
+package com.sclable.domain.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.DomainEventCollector;
+import com.sclable.domain.DomainEventMessage;
+import com.sclable.domain.DomainObject;
+import com.sclable.domain.codec.BinaryCodec;
+import com.sclable.domain.codec.BinaryReader;
+import com.sclable.domain.codec.BinaryWriter;
+import com.sclable.domain.codec.EventCodec;
+import com.sclable.domain.outbox.Outbox;
+import com.sclable.domain.outbox.OutboxEntry;
+import com.sclable.domain.repository.TestRepository.TestAggregate;
+import com.sclable.domain.repository.TestRepository.TestId;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutboxAggregateRepositoryTest {
+  @TempDir Path directory;
+
+  private static class Renamed implements DomainEventMessage {
+    private final String name;
+
+    private Renamed(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class EventfulAggregate extends TestAggregate
+      implements DomainObject<TestId, DomainEventMessage> {
+    private final transient DomainEventCollector<DomainEventMessage> collector =
+        new DomainEventCollector<>();
+
+    private EventfulAggregate(String name) {
+      super(name);
+    }
+
+    private EventfulAggregate(TestId id, String name) {
+      super(id, name);
+    }
+
+    private EventfulAggregate rename(String name) {
+      setName(name);
+      setVersion(getVersion() + 1);
+      addDomainEvent(new Renamed(name));
+      return this;
+    }
+
+    @Override
+    public UUID getIdAsUUID() {
+      return getId().getId();
+    }
+
+    @Override
+    public void addDomainEvent(DomainEventMessage message) {
+      collector.add(message);
+    }
+
+    @Override
+    public List<DomainEventMessage> getDomainEvents() {
+      return collector.getEvents();
+    }
+
+    @Override
+    public void clearDomainEvents() {
+      collector.clear();
+    }
+  }
+
+  private static final EventCodec CODEC =
+      new EventCodec()
+          .registerMessage(
+              1,
+              Renamed.class,
+              1,
+              new BinaryCodec<>() {
+                @Override
+                public void write(Renamed value, BinaryWriter out) {
+                  out.writeString(value.name);
+                }
+
+                @Override
+                public Renamed read(BinaryReader in) {
+                  return new Renamed(in.readString());
+                }
+              });
+
+  @Test
+  void savedAggregatesPublishTheirEvents() {
+    var backing = new TestRepository();
+    var delivered = new ArrayList<OutboxEntry>();
+
+    try (var outbox = new Outbox(directory, CODEC)) {
+      var repository =
+          new OutboxAggregateRepository<>(backing, outbox, TestId::new, TestAggregate.class);
+      outbox.subscribe(delivered::addAll);
+
+      repository.saveAll(List.of(new EventfulAggregate("a").rename("b")));
+      outbox.relay();
+    }
+
+    assertEquals(1, backing.count());
+    assertEquals("b", ((Renamed) delivered.get(0).getMessage()).name);
+  }
+
+  @Test
+  void interruptedSavesAreResolvedByStoredContent() throws Exception {
+    var backing = new TestRepository();
+    var saved = new EventfulAggregate("a").rename("saved");
+    var lost = new EventfulAggregate("a").rename("lost");
+    var saving = new CountDownLatch(1);
+    var crash = new CountDownLatch(1);
+    var delivered = new ArrayList<OutboxEntry>();
+
+    try (var interrupted = new Outbox(directory, CODEC)) {
+      var save =
+          CompletableFuture.runAsync(
+              () ->
+                  interrupted.record(
+                      TestAggregate.class.getName(),
+                      List.of(saved, lost),
+                      () -> {
+                        backing.save(saved);
+                        saving.countDown();
+                        await(crash);
+                        throw new IllegalStateException("crash");
+                      }));
+      saving.await();
+
+      try (var outbox = new Outbox(directory, CODEC)) {
+        outbox.subscribe(delivered::addAll);
+        new OutboxAggregateRepository<>(backing, outbox, TestId::new, TestAggregate.class);
+        outbox.relay();
+      } finally {
+        crash.countDown();
+        assertThrows(CompletionException.class, save::join);
+      }
+    }
+
+    assertEquals(1, delivered.size());
+    assertEquals("saved", ((Renamed) delivered.get(0).getMessage()).name);
+  }
+
+  @Test
+  void saveInterruptedBeforeItRanIsNotPublished() throws Exception {
+    var backing = new TestRepository();
+    var stored = backing.save(new TestAggregate("a"));
+    var changed = new EventfulAggregate(stored.getId(), "b");
+    changed.addDomainEvent(new Renamed("b"));
+    var saving = new CountDownLatch(1);
+    var crash = new CountDownLatch(1);
+    var delivered = new ArrayList<OutboxEntry>();
+
+    try (var interrupted = new Outbox(directory, CODEC)) {
+      var save =
+          CompletableFuture.runAsync(
+              () ->
+                  interrupted.record(
+                      TestAggregate.class.getName(),
+                      List.of(changed),
+                      () -> {
+                        saving.countDown();
+                        await(crash);
+                        throw new IllegalStateException("crash");
+                      }));
+      saving.await();
+
+      try (var outbox = new Outbox(directory, CODEC)) {
+        outbox.subscribe(delivered::addAll);
+        new OutboxAggregateRepository<>(backing, outbox, TestId::new, TestAggregate.class);
+
+        assertEquals(0, outbox.unresolved());
+        outbox.relay();
+      } finally {
+        crash.countDown();
+        assertThrows(CompletionException.class, save::join);
+      }
+    }
+
+    assertEquals(List.of(), delivered);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.sclable.domain.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.exception.DomainException;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class RepositoryExecutorsTest {
+  private static final int FEATURE = Runtime.version().feature();
+
+  @Test
+  void virtualThreadsAreFoundReflectivelyWhereTheJdkProvidesThem() {
+    var executor = RepositoryExecutors.newVirtualThreadPerTaskExecutor();
+
+    if (FEATURE >= 21) {
+      assertTrue(executor.isPresent());
+    } else if (FEATURE < 19) {
+      assertTrue(executor.isEmpty());
+    }
+    executor.ifPresent(
+        virtual -> {
+          var thread = CompletableFuture.supplyAsync(Thread::currentThread, virtual).join();
+          assertTrue(thread.isDaemon());
+          virtual.shutdown();
+        });
+  }
+
+  @Test
+  void blockingIoExecutorFallsBackToDaemonPlatformThreads() {
+    var executor = RepositoryExecutors.newBlockingIoExecutor(2);
+
+    try {
+      var thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).join();
+
+      assertTrue(thread.isDaemon());
+      if (RepositoryExecutors.newVirtualThreadPerTaskExecutor().isEmpty()) {
+        assertTrue(thread.getName().startsWith("repository-io-"));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void fallbackRejectsInvalidParallelism() {
+    if (RepositoryExecutors.newVirtualThreadPerTaskExecutor().isEmpty()) {
+      assertThrows(DomainException.class, () -> RepositoryExecutors.newBlockingIoExecutor(0));
+    }
+  }
+}
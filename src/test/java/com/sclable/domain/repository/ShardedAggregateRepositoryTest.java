@@ -0,0 +1,73 @@
+package com.sclable.domain.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sclable.domain.repository.TestRepository.TestAggregate;
+import com.sclable.domain.repository.TestRepository.TestId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ShardedAggregateRepositoryTest {
+  @Test
+  void aggregatesAreSpreadOverAllShards() {
+    var shards = shards(4);
+
+    try (var repository = new ShardedAggregateRepository<>(shards)) {
+      var saved = repository.saveAll(aggregates(1_000));
+
+      assertEquals(1_000, repository.count());
+      assertEquals(saved, repository.findMany(ids(saved)));
+      shards.forEach(shard -> assertTrue(shard.aggregates.size() > 150));
+      shards.forEach(shard -> assertEquals(1, shard.saveAllCalls.get()));
+    }
+  }
+
+  @Test
+  void pagesAreMergedInIdOrder() {
+    try (var repository = new ShardedAggregateRepository<>(shards(3))) {
+      repository.saveAll(aggregates(100));
+
+      var ids = repository.streamAllIds(9).collect(Collectors.toList());
+
+      assertEquals(100, ids.size());
+      assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+    }
+  }
+
+  @Test
+  void addingShardMovesOnlyKeysItTakesOver() {
+    var newShard = new TestRepository();
+
+    try (var repository = new ShardedAggregateRepository<>(shards(4))) {
+      var saved = repository.saveAll(aggregates(1_000));
+
+      var moved = repository.addShard(newShard);
+
+      assertEquals(newShard.aggregates.size(), moved);
+      assertTrue(moved > 100 && moved < 300, "moved " + moved);
+      assertEquals(1_000, repository.count());
+      assertEquals(saved, repository.findMany(ids(saved)));
+    }
+  }
+
+  private static List<TestRepository> shards(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> new TestRepository())
+        .collect(Collectors.toList());
+  }
+
+  private static List<TestAggregate> aggregates(int count) {
+    var aggregates = new ArrayList<TestAggregate>();
+    for (var i = 0; i < count; i++) {
+      aggregates.add(new TestAggregate("name" + i));
+    }
+    return aggregates;
+  }
+
+  private static List<TestId> ids(List<TestAggregate> aggregates) {
+    return aggregates.stream().map(TestAggregate::getId).collect(Collectors.toList());
+  }
+}
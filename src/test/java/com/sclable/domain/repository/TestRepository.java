@@ -0,0 +1,109 @@
+package com.sclable.domain.repository;
+
+import com.sclable.domain.AggregateId;
+import com.sclable.domain.AggregateRepository;
+import com.sclable.domain.AggregateRoot;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.Setter;
+
+/** In memory repository used as backing repository for the decorator tests. */
+class TestRepository implements AggregateRepository<TestRepository.TestId, TestRepository.TestAggregate> {
+  final Map<TestId, TestAggregate> aggregates = new ConcurrentHashMap<>();
+  final AtomicInteger saveAllCalls = new AtomicInteger();
+  final AtomicInteger findCalls = new AtomicInteger();
+  final AtomicInteger findManyCalls = new AtomicInteger();
+  final AtomicInteger findAllCalls = new AtomicInteger();
+
+  static class TestId extends AggregateId {
+    public TestId() {
+      super();
+    }
+
+    public TestId(UUID id) {
+      super(id);
+    }
+  }
+
+  static class TestAggregate extends AggregateRoot<TestId> {
+    @Getter @Setter private String name;
+
+    public TestAggregate(String name) {
+      this(new TestId(), name);
+    }
+
+    public TestAggregate(TestId id, String name) {
+      super(id);
+      this.name = name;
+    }
+  }
+
+  @Override
+  public TestAggregate save(TestAggregate aggregateRoot) {
+    aggregates.put(aggregateRoot.getId(), aggregateRoot);
+    return aggregateRoot;
+  }
+
+  @Override
+  public TestAggregate save(TestAggregate aggregateRoot, AggregateRoot<?> related) {
+    return save(aggregateRoot);
+  }
+
+  @Override
+  public List<TestAggregate> saveAll(List<TestAggregate> aggregateRoots) {
+    saveAllCalls.incrementAndGet();
+    aggregateRoots.forEach(this::save);
+    return new ArrayList<>(aggregateRoots);
+  }
+
+  @Override
+  public List<TestAggregate> saveMany(List<TestAggregate> aggregateRoots, AggregateRoot<?> related) {
+    return saveAll(aggregateRoots);
+  }
+
+  @Override
+  public List<TestAggregate> saveMany(List<TestAggregate> aggregateRoots, AggregateId relatedId) {
+    return saveAll(aggregateRoots);
+  }
+
+  @Override
+  public Optional<TestAggregate> find(TestId id) {
+    findCalls.incrementAndGet();
+    return Optional.ofNullable(aggregates.get(id));
+  }
+
+  @Override
+  public List<TestAggregate> findMany(List<TestId> ids) {
+    findManyCalls.incrementAndGet();
+    return ids.stream().map(aggregates::get).filter(Objects::nonNull).collect(Collectors.toList());
+  }
+
+  @Override
+  public List<TestAggregate> findAll() {
+    findAllCalls.incrementAndGet();
+    return new ArrayList<>(aggregates.values());
+  }
+
+  @Override
+  public void delete(TestAggregate aggregateRoot) {
+    delete(aggregateRoot.getId());
+  }
+
+  @Override
+  public void delete(TestId id) {
+    aggregates.remove(id);
+  }
+
+  @Override
+  public Long count() {
+    return (long) aggregates.size();
+  }
+}